@@ -2,22 +2,47 @@ package gc.grivyzom;
 
 import gc.grivyzom.commands.VarietyLootCommand;
 import gc.grivyzom.commands.VarietyLootTabCompleter;
+import gc.grivyzom.items.EquipmentSnapshot;
+import gc.grivyzom.items.EquipmentTracker;
+import gc.grivyzom.items.ItemDefinition;
 import gc.grivyzom.items.ItemRegistry;
+import gc.grivyzom.items.MaterialCountIndex;
+import gc.grivyzom.listeners.DynamicHandlerRegistrar;
 import gc.grivyzom.listeners.ItemEventListener;
+import gc.grivyzom.listeners.ProjectileListener;
+import gc.grivyzom.mechanics.actions.ActionRegistry;
+import gc.grivyzom.mechanics.aura.AuraManager;
+import gc.grivyzom.mechanics.combat.DamageModifiers;
 import gc.grivyzom.mechanics.conditions.ConditionChecker;
 import gc.grivyzom.mechanics.detection.ActionDetector;
-import gc.grivyzom.mechanics.parser.MechanicsParser;
+import gc.grivyzom.mechanics.movement.MovementResolver;
+import gc.grivyzom.storage.CooldownPersistence;
+import gc.grivyzom.util.EntityQueries;
 import gc.grivyzom.util.MessageManager;
+import gc.grivyzom.util.ParticleDispatcher;
+import gc.grivyzom.util.TickDriver;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public class VarietyMain extends JavaPlugin {
 
     private static VarietyMain instance;
     private MessageManager messageManager;
+    private TickDriver tickDriver;
+    private ParticleDispatcher particleDispatcher;
+    private MovementResolver movementResolver;
+    private EntityQueries entityQueries;
+    private AuraManager auraManager;
+    private DamageModifiers damageModifiers;
     private ItemRegistry itemRegistry;
+    private EquipmentTracker equipmentTracker;
+    private MaterialCountIndex materialCountIndex;
     private ActionDetector actionDetector;
     private ConditionChecker conditionChecker;
+    private ActionRegistry actionRegistry;
     private ItemEventListener eventListener;
+    private ProjectileListener projectileListener;
+    private DynamicHandlerRegistrar handlerRegistrar;
+    private CooldownPersistence cooldownPersistence;
 
     @Override
     public void onEnable() {
@@ -28,16 +53,42 @@ public class VarietyMain extends JavaPlugin {
 
         try {
             // 1. Inicializar sistemas básicos
+            saveDefaultConfig();
             messageManager = new MessageManager(this);
+            tickDriver = new TickDriver(this);
+            tickDriver.start();
+            particleDispatcher = new ParticleDispatcher(this);
+            movementResolver = new MovementResolver();
+            entityQueries = new EntityQueries(); // Antes de las condiciones: enemies_within lo consulta
+            conditionChecker = new ConditionChecker(this); // Antes de los ítems: compila sus condiciones
+            auraManager = new AuraManager(this);
+            damageModifiers = new DamageModifiers(this);
+            actionRegistry = new ActionRegistry(this); // Antes de los ítems: crea sus acciones
             itemRegistry = new ItemRegistry(this);
+            equipmentTracker = new EquipmentTracker(this);
+            materialCountIndex = new MaterialCountIndex(this);
 
             // 2. Inicializar sistemas de mecánicas
-            conditionChecker = new ConditionChecker(this);
-            actionDetector = new ActionDetector(this, conditionChecker);
+            actionDetector = new ActionDetector(this);
+
+            // Persistencia de cooldowns (carga asíncrona y escritura por lotes)
+            cooldownPersistence = new CooldownPersistence(this, actionDetector.getCooldownManager());
+            cooldownPersistence.start();
 
             // 3. Registrar listeners de eventos
             eventListener = new ItemEventListener(this, actionDetector);
             getServer().getPluginManager().registerEvents(eventListener, this);
+            getServer().getPluginManager().registerEvents(cooldownPersistence, this);
+            getServer().getPluginManager().registerEvents(particleDispatcher, this);
+            getServer().getPluginManager().registerEvents(auraManager, this);
+            getServer().getPluginManager().registerEvents(damageModifiers, this);
+
+            // Handlers que solo se registran si algún ítem usa su trigger
+            handlerRegistrar = new DynamicHandlerRegistrar(this);
+            eventListener.registerDynamicHandlers(handlerRegistrar);
+            projectileListener = new ProjectileListener(this, actionDetector);
+            projectileListener.registerDynamicHandlers(handlerRegistrar);
+            handlerRegistrar.refresh(itemRegistry.getTriggerIndex());
 
             // 4. Registrar comandos
             registerCommands();
@@ -68,6 +119,15 @@ public class VarietyMain extends JavaPlugin {
             }
 
             // Limpiar recursos en orden inverso de inicialización
+            if (handlerRegistrar != null) {
+                handlerRegistrar.unregisterAll();
+            }
+
+            if (cooldownPersistence != null) {
+                cooldownPersistence.shutdown();
+                getLogger().info("Cooldowns guardados");
+            }
+
             if (actionDetector != null) {
                 actionDetector.shutdown();
                 getLogger().info("ActionDetector limpiado");
@@ -78,6 +138,22 @@ public class VarietyMain extends JavaPlugin {
                 getLogger().info("ConditionChecker limpiado");
             }
 
+            if (auraManager != null) {
+                auraManager.clear();
+            }
+
+            if (damageModifiers != null) {
+                damageModifiers.clear();
+            }
+
+            if (projectileListener != null) {
+                projectileListener.clear();
+            }
+
+            if (tickDriver != null) {
+                tickDriver.stop();
+            }
+
             if (itemRegistry != null) {
                 getLogger().info("Guardando configuración de ítems...");
                 itemRegistry.save();
@@ -100,10 +176,42 @@ public class VarietyMain extends JavaPlugin {
         return messageManager;
     }
 
+    public TickDriver getTickDriver() {
+        return tickDriver;
+    }
+
+    public ParticleDispatcher getParticleDispatcher() {
+        return particleDispatcher;
+    }
+
+    public MovementResolver getMovementResolver() {
+        return movementResolver;
+    }
+
+    public EntityQueries getEntityQueries() {
+        return entityQueries;
+    }
+
+    public AuraManager getAuraManager() {
+        return auraManager;
+    }
+
+    public DamageModifiers getDamageModifiers() {
+        return damageModifiers;
+    }
+
     public ItemRegistry getItemRegistry() {
         return itemRegistry;
     }
 
+    public EquipmentTracker getEquipmentTracker() {
+        return equipmentTracker;
+    }
+
+    public MaterialCountIndex getMaterialCountIndex() {
+        return materialCountIndex;
+    }
+
     public ActionDetector getActionDetector() {
         return actionDetector;
     }
@@ -112,6 +220,44 @@ public class VarietyMain extends JavaPlugin {
         return conditionChecker;
     }
 
+    public DynamicHandlerRegistrar getHandlerRegistrar() {
+        return handlerRegistrar;
+    }
+
+    public CooldownPersistence getCooldownPersistence() {
+        return cooldownPersistence;
+    }
+
+    public ActionRegistry getActionRegistry() {
+        return actionRegistry;
+    }
+
+    /**
+     * Recarga items.yml y reinicia el equipamiento, las auras y el monitoreo periódico de los jugadores
+     */
+    public void reloadItems() {
+        // Las auras y los modificadores de daño de las definiciones anteriores se retiran antes de que dejen de existir
+        for (org.bukkit.entity.Player player : getServer().getOnlinePlayers()) {
+            EquipmentSnapshot previous = equipmentTracker.getSnapshot(player);
+            for (int i = 0; i < EquipmentSnapshot.TRACKED_SLOTS.length; i++) {
+                ItemDefinition definition = previous.get(i);
+                if (definition != null) {
+                    auraManager.revokeSource(player, definition);
+                    damageModifiers.revokeSource(player, definition);
+                }
+            }
+        }
+
+        itemRegistry.reload();
+
+        // Las definiciones cambiaron: releer equipamiento y volver a equipar lo que lleva puesto
+        actionDetector.cancelAllPeriodicTasks();
+        for (org.bukkit.entity.Player player : getServer().getOnlinePlayers()) {
+            equipmentTracker.initialize(player);
+            eventListener.reequipAll(player);
+        }
+    }
+
     private void registerCommands() {
         try {
             getCommand("varietyloot").setExecutor(new VarietyLootCommand(this));
@@ -129,14 +275,19 @@ public class VarietyMain extends JavaPlugin {
         getLogger().info("Recargando VarietyLoot...");
 
         try {
+            // Recargar config.yml (el almacenamiento de cooldowns solo cambia al reiniciar)
+            reloadConfig();
+            actionDetector.getActionBudget().loadConfig();
+            particleDispatcher.loadConfig();
+
             // Recargar mensajes
             messageManager.reloadMessages();
 
             // Limpiar cache de condiciones
             conditionChecker.cleanupCache();
 
-            // Recargar ítems
-            itemRegistry.reload();
+            // Recargar ítems (también ajusta los handlers de eventos a los triggers en uso)
+            reloadItems();
 
             getLogger().info("VarietyLoot recargado correctamente");
             logReloadStats();
@@ -154,7 +305,8 @@ public class VarietyMain extends JavaPlugin {
         getLogger().info("=== Estadísticas de Inicio ===");
         getLogger().info("- Ítems registrados: " + itemRegistry.getRegisteredItemIds().size());
         getLogger().info("- Condiciones personalizadas: " + conditionChecker.getStats().get("custom_conditions"));
-        getLogger().info("- Listeners registrados: 1 (ItemEventListener)");
+        getLogger().info("- Listeners registrados: 1 (ItemEventListener) + " +
+                handlerRegistrar.getRegisteredHandlers().size() + " handlers dinámicos");
         getLogger().info("=============================");
     }
 
@@ -164,8 +316,9 @@ public class VarietyMain extends JavaPlugin {
     private void logReloadStats() {
         getLogger().info("=== Estadísticas de Recarga ===");
         getLogger().info("- Ítems cargados: " + itemRegistry.getRegisteredItemIds().size());
-        getLogger().info("- Cache de condiciones limpiado");
+        getLogger().info("- Estado de jugadores para condiciones limpiado");
         getLogger().info("- Tareas periódicas activas: " + actionDetector.getActivePeriodicTasks());
+        getLogger().info("- Handlers dinámicos: " + handlerRegistrar.getRegisteredHandlers());
         getLogger().info("==============================");
     }
 
@@ -184,12 +337,12 @@ public class VarietyMain extends JavaPlugin {
 
         if (actionDetector != null) {
             status.append("Tareas periódicas: ").append(actionDetector.getActivePeriodicTasks()).append("\n");
+            status.append("Acciones en espera: ").append(actionDetector.getActionBudget().getQueueDepth()).append("\n");
             status.append("Cooldowns: ").append(actionDetector.getCooldownManager().getDebugInfo()).append("\n");
         }
 
         if (conditionChecker != null) {
             var conditionStats = conditionChecker.getStats();
-            status.append("Condiciones cacheadas: ").append(conditionStats.get("cached_conditions")).append("\n");
             status.append("Condiciones personalizadas: ").append(conditionStats.get("custom_conditions")).append("\n");
         }
 
@@ -225,6 +378,14 @@ public class VarietyMain extends JavaPlugin {
             conditionChecker.cleanupPlayer(player);
         }
 
+        if (equipmentTracker != null) {
+            equipmentTracker.remove(player);
+        }
+
+        if (materialCountIndex != null) {
+            materialCountIndex.remove(player);
+        }
+
         getLogger().fine("Recursos limpiados para el jugador: " + player.getName());
     }
 
@@ -251,6 +412,42 @@ public class VarietyMain extends JavaPlugin {
             allStats.put("periodic_tasks", actionDetector.getActivePeriodicTasks());
         }
 
+        if (actionDetector != null) {
+            actionDetector.getActionBudget().getStats().forEach((k, v) -> allStats.put("budget_" + k, v));
+        }
+
+        if (particleDispatcher != null) {
+            particleDispatcher.getStats().forEach((k, v) -> allStats.put("particles_" + k, v));
+        }
+
+        if (movementResolver != null) {
+            movementResolver.getStats().forEach((k, v) -> allStats.put("movement_" + k, v));
+        }
+
+        if (entityQueries != null) {
+            entityQueries.getStats().forEach((k, v) -> allStats.put("entity_queries_" + k, v));
+        }
+
+        if (auraManager != null) {
+            auraManager.getStats().forEach((k, v) -> allStats.put("aura_" + k, v));
+        }
+
+        if (damageModifiers != null) {
+            damageModifiers.getStats().forEach((k, v) -> allStats.put("damage_" + k, v));
+        }
+
+        if (projectileListener != null) {
+            projectileListener.getStats().forEach((k, v) -> allStats.put("projectile_" + k, v));
+        }
+
+        if (eventListener != null) {
+            eventListener.getInteractionCacheStats().forEach((k, v) -> allStats.put("interaction_cache_" + k, v));
+        }
+
+        if (cooldownPersistence != null) {
+            cooldownPersistence.getStats().forEach((k, v) -> allStats.put("storage_" + k, v));
+        }
+
         return allStats;
     }
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package gc.grivyzom.commands;
 
 import gc.grivyzom.VarietyMain;
 import gc.grivyzom.items.ItemDefinition;
+import gc.grivyzom.mechanics.TriggerType;
+import gc.grivyzom.mechanics.conditions.CompiledCondition;
+import gc.grivyzom.util.ParticleDispatcher;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -22,6 +25,12 @@ public class VarietyLootCommand implements CommandExecutor {
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
 
+        // Preferencia de efectos: disponible para cualquier jugador, sin varietyloot.use
+        if (args.length > 0 && (args[0].equalsIgnoreCase("effects") || args[0].equalsIgnoreCase("efectos"))) {
+            handleEffectsCommand(sender, args);
+            return true;
+        }
+
         // Verificar permisos básicos
         if (!sender.hasPermission("varietyloot.use")) {
             if (sender instanceof Player) {
@@ -82,6 +91,11 @@ public class VarietyLootCommand implements CommandExecutor {
                 handleStatsCommand(sender);
                 break;
 
+            case "conditions":
+            case "condiciones":
+                handleConditionsCommand(sender, args);
+                break;
+
             case "version":
             case "ver":
                 String version = plugin.getDescription().getVersion();
@@ -172,6 +186,37 @@ public class VarietyLootCommand implements CommandExecutor {
         }
     }
 
+    private void handleEffectsCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("varietyloot.effects")) {
+            sendNoPermission(sender);
+            return;
+        }
+
+        if (!(sender instanceof Player)) {
+            sender.sendMessage("§c✘ Este comando solo puede usarlo un jugador");
+            return;
+        }
+
+        Player player = (Player) sender;
+        ParticleDispatcher dispatcher = plugin.getParticleDispatcher();
+        boolean reduced;
+
+        if (args.length < 2) {
+            // Sin argumento alterna la preferencia actual
+            reduced = !dispatcher.isReducedEffects(player);
+        } else if (args[1].equalsIgnoreCase("reduced") || args[1].equalsIgnoreCase("reducidos")) {
+            reduced = true;
+        } else if (args[1].equalsIgnoreCase("full") || args[1].equalsIgnoreCase("completos")) {
+            reduced = false;
+        } else {
+            sender.sendMessage(plugin.getMessageManager().getMessage("commands.effects.usage"));
+            return;
+        }
+
+        dispatcher.setReducedEffects(player, reduced);
+        sender.sendMessage(plugin.getMessageManager().getMessage(reduced ? "commands.effects.reduced" : "commands.effects.full"));
+    }
+
     private void handleListCommand(CommandSender sender) {
         String header = plugin.getMessageManager().getMessage("commands.list.header");
         sender.sendMessage(header);
@@ -222,6 +267,42 @@ public class VarietyLootCommand implements CommandExecutor {
         sender.sendMessage("§6§m                                                    ");
     }
 
+    /**
+     * Muestra el orden de evaluación actual de las condiciones de cada trigger de un ítem
+     */
+    private void handleConditionsCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("varietyloot.debug")) {
+            sendNoPermission(sender);
+            return;
+        }
+
+        if (args.length < 2) {
+            sender.sendMessage("§e! Uso: /varietyloot conditions <ítem>");
+            return;
+        }
+
+        ItemDefinition definition = plugin.getItemRegistry().getItemDefinition(args[1]);
+        if (definition == null) {
+            String message = plugin.getMessageManager().getMessage("commands.give.item-not-found", "item", args[1]);
+            sender.sendMessage(message);
+            return;
+        }
+
+        sender.sendMessage("§6§m          §r §6Condiciones de " + definition.getId() + " §6§m          ");
+        for (TriggerType trigger : definition.getTriggers().keySet()) {
+            CompiledCondition condition = definition.getCondition(trigger);
+            if (condition == CompiledCondition.ALWAYS) {
+                sender.sendMessage("§e" + trigger.name() + ": §7sin condiciones");
+            } else {
+                sender.sendMessage("§e" + trigger.name() + " §7(coste " + condition.getWeight() + "): §f"
+                        + condition.describe());
+            }
+            sender.sendMessage("§7  Plan: " + definition.getExecutionPlan(trigger).describe());
+        }
+        sender.sendMessage("§7Orden actual de evaluación; se ajusta según los resultados observados");
+        sender.sendMessage("§6§m                                                    ");
+    }
+
     private void handleStatsCommand(CommandSender sender) {
         Map<String, Object> stats = plugin.getItemRegistry().getStats();
 
@@ -246,6 +327,12 @@ public class VarietyLootCommand implements CommandExecutor {
         sender.sendMessage(line3);
         sender.sendMessage("§e/varietyloot info <ítem> §7- §fVer información de un ítem");
         sender.sendMessage("§e/varietyloot stats §7- §fVer estadísticas del plugin");
+        if (sender.hasPermission("varietyloot.effects")) {
+            sender.sendMessage("§e/varietyloot effects [reduced|full] §7- §fReducir las partículas que ves");
+        }
+        if (sender.hasPermission("varietyloot.debug")) {
+            sender.sendMessage("§e/varietyloot conditions <ítem> §7- §fVer el orden de evaluación de sus condiciones");
+        }
         sender.sendMessage(footer);
     }
 
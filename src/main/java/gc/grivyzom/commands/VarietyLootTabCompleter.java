@@ -17,7 +17,7 @@ public class VarietyLootTabCompleter implements TabCompleter {
 
         // Primera palabra (subcomandos principales)
         if (args.length == 1) {
-            List<String> subcommands = Arrays.asList("help", "reload", "version", "give", "list");
+            List<String> subcommands = Arrays.asList("help", "reload", "version", "give", "list", "conditions", "effects");
 
             for (String subcommand : subcommands) {
                 if (subcommand.toLowerCase().startsWith(args[0].toLowerCase())) {
@@ -27,6 +27,13 @@ public class VarietyLootTabCompleter implements TabCompleter {
                     }
                 }
             }
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("effects")
+                && sender.hasPermission("varietyloot.effects")) {
+            for (String mode : Arrays.asList("reduced", "full")) {
+                if (mode.startsWith(args[1].toLowerCase())) {
+                    completions.add(mode);
+                }
+            }
         }
 
         return completions;
@@ -41,6 +48,10 @@ public class VarietyLootTabCompleter implements TabCompleter {
                 return sender.hasPermission("varietyloot.reload");
             case "give":
                 return sender.hasPermission("varietyloot.give");
+            case "conditions":
+                return sender.hasPermission("varietyloot.debug");
+            case "effects":
+                return sender.hasPermission("varietyloot.effects");
             case "help":
             case "version":
             case "list":
@@ -0,0 +1,121 @@
+package gc.grivyzom.items;
+
+import gc.grivyzom.mechanics.TriggerType;
+import org.bukkit.inventory.EquipmentSlot;
+
+/**
+ * Definiciones de ítems personalizados que un jugador tiene en sus seis slots de equipamiento
+ * Se mantiene de forma incremental desde los eventos de inventario, por lo que leerla
+ * no requiere acceder al inventario ni al ItemMeta
+ */
+public class EquipmentSnapshot {
+
+    /**
+     * Slots rastreados, en el orden usado por el arreglo interno
+     */
+    public static final EquipmentSlot[] TRACKED_SLOTS = {
+            EquipmentSlot.HAND,
+            EquipmentSlot.OFF_HAND,
+            EquipmentSlot.FEET,
+            EquipmentSlot.LEGS,
+            EquipmentSlot.CHEST,
+            EquipmentSlot.HEAD
+    };
+
+    private final ItemDefinition[] slots = new ItemDefinition[TRACKED_SLOTS.length];
+
+    // Unión de las máscaras de triggers de lo equipado
+    private long triggerMask;
+
+    /**
+     * Obtiene la posición de un slot en el arreglo interno
+     * @return El índice o -1 si el slot no se rastrea
+     */
+    public static int indexOf(EquipmentSlot slot) {
+        switch (slot) {
+            case HAND: return 0;
+            case OFF_HAND: return 1;
+            case FEET: return 2;
+            case LEGS: return 3;
+            case CHEST: return 4;
+            case HEAD: return 5;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Obtiene la definición equipada en un slot
+     */
+    public ItemDefinition get(EquipmentSlot slot) {
+        int index = indexOf(slot);
+        return index >= 0 ? slots[index] : null;
+    }
+
+    /**
+     * Obtiene la definición por posición en TRACKED_SLOTS
+     */
+    public ItemDefinition get(int index) {
+        return slots[index];
+    }
+
+    void set(int index, ItemDefinition definition) {
+        slots[index] = definition;
+
+        long mask = 0L;
+        for (ItemDefinition slot : slots) {
+            if (slot != null) {
+                mask |= slot.getTriggerMask();
+            }
+        }
+        triggerMask = mask;
+    }
+
+    /**
+     * Verifica si algún ítem equipado tiene el trigger, sin recorrer los slots
+     */
+    public boolean hasTrigger(TriggerType trigger) {
+        return (triggerMask & trigger.mask()) != 0L;
+    }
+
+    /**
+     * Verifica si la definición está en la mano principal o secundaria
+     */
+    public boolean isHeld(ItemDefinition definition) {
+        return definition != null && (slots[0] == definition || slots[1] == definition);
+    }
+
+    /**
+     * Verifica si la definición está en cualquiera de los slots rastreados
+     */
+    public boolean contains(ItemDefinition definition) {
+        return indexOf(slots, definition) >= 0;
+    }
+
+    /**
+     * Verifica si no hay ningún ítem personalizado equipado
+     */
+    public boolean isEmpty() {
+        for (ItemDefinition definition : slots) {
+            if (definition != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    ItemDefinition[] copy() {
+        return slots.clone();
+    }
+
+    static int indexOf(ItemDefinition[] array, ItemDefinition definition) {
+        if (definition == null) {
+            return -1;
+        }
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == definition) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,191 @@
+package gc.grivyzom.items;
+
+import gc.grivyzom.VarietyMain;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantiene un EquipmentSnapshot por jugador y detecta los cambios de equipamiento
+ * Los listeners actualizan slots concretos cuando el evento indica el ítem nuevo, o
+ * programan una relectura al siguiente tick cuando el cambio aún no se ha aplicado
+ */
+public class EquipmentTracker {
+
+    /**
+     * Recibe los flancos de equipamiento: un ítem pasa a estar equipado en algún slot
+     * o deja de estarlo en todos
+     */
+    public interface ChangeHandler {
+        void onEquip(Player player, EquipmentSlot slot, ItemDefinition definition);
+
+        void onUnequip(Player player, EquipmentSlot slot, ItemDefinition definition);
+    }
+
+    private final VarietyMain plugin;
+    private final Map<UUID, EquipmentSnapshot> snapshots;
+
+    // Jugadores con una relectura ya programada para el siguiente tick
+    private final Set<UUID> pendingRefresh;
+
+    private ChangeHandler changeHandler;
+
+    public EquipmentTracker(VarietyMain plugin) {
+        this.plugin = plugin;
+        this.snapshots = new ConcurrentHashMap<>();
+        this.pendingRefresh = ConcurrentHashMap.newKeySet();
+    }
+
+    public void setChangeHandler(ChangeHandler changeHandler) {
+        this.changeHandler = changeHandler;
+    }
+
+    /**
+     * Obtiene el snapshot de un jugador, leyéndolo sin disparar cambios si aún no existe
+     */
+    public EquipmentSnapshot getSnapshot(Player player) {
+        EquipmentSnapshot snapshot = snapshots.get(player.getUniqueId());
+        return snapshot != null ? snapshot : initialize(player);
+    }
+
+    /**
+     * Lee todo el equipamiento del jugador sin disparar ON_EQUIP (unión al servidor, recargas)
+     */
+    public EquipmentSnapshot initialize(Player player) {
+        EquipmentSnapshot snapshot = new EquipmentSnapshot();
+        ItemDefinition[] current = readEquipment(player);
+        for (int i = 0; i < current.length; i++) {
+            snapshot.set(i, current[i]);
+        }
+        snapshots.put(player.getUniqueId(), snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Relee todo el equipamiento del jugador y notifica los cambios
+     */
+    public void refresh(Player player) {
+        apply(player, getSnapshot(player), readEquipment(player));
+    }
+
+    /**
+     * Actualiza un único slot con el ítem que el evento indica que quedará en él
+     */
+    public void updateSlot(Player player, EquipmentSlot slot, ItemStack item) {
+        int index = EquipmentSnapshot.indexOf(slot);
+        if (index < 0) {
+            return;
+        }
+
+        EquipmentSnapshot snapshot = getSnapshot(player);
+        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(item);
+        if (snapshot.get(index) == definition) {
+            return;
+        }
+
+        ItemDefinition[] updated = snapshot.copy();
+        updated[index] = definition;
+        apply(player, snapshot, updated);
+    }
+
+    /**
+     * Actualiza ambas manos a la vez (intercambio de manos), para que un ítem que solo
+     * cambia de mano no genere flancos
+     */
+    public void updateHands(Player player, ItemStack mainHand, ItemStack offHand) {
+        EquipmentSnapshot snapshot = getSnapshot(player);
+        ItemRegistry registry = plugin.getItemRegistry();
+
+        ItemDefinition[] updated = snapshot.copy();
+        updated[EquipmentSnapshot.indexOf(EquipmentSlot.HAND)] = registry.getDefinitionFromItemStack(mainHand);
+        updated[EquipmentSnapshot.indexOf(EquipmentSlot.OFF_HAND)] = registry.getDefinitionFromItemStack(offHand);
+        apply(player, snapshot, updated);
+    }
+
+    /**
+     * Programa una relectura en el siguiente tick, cuando Bukkit ya aplicó el cambio
+     * Varias llamadas en el mismo tick se agrupan en una sola lectura
+     */
+    public void scheduleRefresh(Player player) {
+        UUID uuid = player.getUniqueId();
+        if (!pendingRefresh.add(uuid)) {
+            return;
+        }
+
+        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+            pendingRefresh.remove(uuid);
+            if (player.isOnline()) {
+                refresh(player);
+            }
+        }, 1L);
+    }
+
+    /**
+     * Elimina el snapshot de un jugador que se desconecta
+     */
+    public void remove(Player player) {
+        snapshots.remove(player.getUniqueId());
+        pendingRefresh.remove(player.getUniqueId());
+    }
+
+    /**
+     * Lee las definiciones de los seis slots; los ítems vanilla se descartan por material
+     */
+    private ItemDefinition[] readEquipment(Player player) {
+        PlayerInventory inventory = player.getInventory();
+        ItemRegistry registry = plugin.getItemRegistry();
+        ItemDefinition[] definitions = new ItemDefinition[EquipmentSnapshot.TRACKED_SLOTS.length];
+
+        // Muerto no tiene nada equipado, aunque keepInventory le conserve los ítems
+        if (player.isDead()) {
+            return definitions;
+        }
+
+        for (int i = 0; i < definitions.length; i++) {
+            definitions[i] = registry.getDefinitionFromItemStack(inventory.getItem(EquipmentSnapshot.TRACKED_SLOTS[i]));
+        }
+
+        return definitions;
+    }
+
+    /**
+     * Aplica el nuevo estado y notifica los flancos por definición: un ítem que solo
+     * cambia de slot (por ejemplo de la mano principal a la secundaria) no genera flancos
+     */
+    private void apply(Player player, EquipmentSnapshot snapshot, ItemDefinition[] updated) {
+        ItemDefinition[] previous = snapshot.copy();
+        for (int i = 0; i < updated.length; i++) {
+            snapshot.set(i, updated[i]);
+        }
+
+        if (changeHandler == null) {
+            return;
+        }
+
+        for (int i = 0; i < previous.length; i++) {
+            ItemDefinition definition = previous[i];
+            if (definition != null && EquipmentSnapshot.indexOf(previous, definition) == i
+                    && EquipmentSnapshot.indexOf(updated, definition) < 0) {
+                changeHandler.onUnequip(player, EquipmentSnapshot.TRACKED_SLOTS[i], definition);
+            }
+        }
+
+        for (int i = 0; i < updated.length; i++) {
+            ItemDefinition definition = updated[i];
+            if (definition != null && EquipmentSnapshot.indexOf(updated, definition) == i
+                    && EquipmentSnapshot.indexOf(previous, definition) < 0) {
+                changeHandler.onEquip(player, EquipmentSnapshot.TRACKED_SLOTS[i], definition);
+            }
+        }
+    }
+
+    public int getTrackedPlayers() {
+        return snapshots.size();
+    }
+}
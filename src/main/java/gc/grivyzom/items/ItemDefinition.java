@@ -1,10 +1,14 @@
 package gc.grivyzom.items;
 
+import gc.grivyzom.mechanics.ExecutionPlan;
 import gc.grivyzom.mechanics.TriggerType;
 import gc.grivyzom.mechanics.actions.Action;
+import gc.grivyzom.mechanics.conditions.CompiledCondition;
 import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
 
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,9 +30,14 @@ public class ItemDefinition {
     private final Map<Enchantment, Integer> enchantments;
     private final boolean glowing;
 
-    // Mecánicas del ítem
+    // Mecánicas del ítem, congeladas al construir: tabla por ordinal de trigger y máscara de bits
     private final Map<TriggerType, List<Action>> triggers;
+    private final Action[][] actionsByTrigger;
+    private final List<Action>[] actionListsByTrigger;
+    private final ExecutionPlan[] plansByTrigger;
+    private final long triggerMask;
     private final int cooldown; // En segundos
+    private final boolean cooldownNotify; // Avisar al jugador cuando el cooldown termine
     private final boolean consumable;
 
     // Configuración avanzada
@@ -37,14 +46,35 @@ public class ItemDefinition {
     private final String permission;
     private final boolean dropOnDeath;
 
+    // ID numérico compacto asignado por el registro (-1 si aún no está registrado)
+    private int numericId = -1;
+
+    private static final Action[] NO_ACTIONS = new Action[0];
+
     /**
-     * Constructor principal para crear una definición de ítem
+     * Constructor principal para crear una definición de ítem (sin aviso de fin de cooldown)
      */
     public ItemDefinition(String id, String displayName, List<String> lore, Material material,
                           int customModelData, boolean unbreakable, Map<Enchantment, Integer> enchantments,
                           boolean glowing, Map<TriggerType, List<Action>> triggers, int cooldown,
                           boolean consumable, boolean stackable, int maxStackSize, String permission,
                           boolean dropOnDeath) {
+        this(id, displayName, lore, material, customModelData, unbreakable, enchantments, glowing,
+                triggers, null, cooldown, false, consumable, stackable, maxStackSize, permission, dropOnDeath);
+    }
+
+    /**
+     * Constructor completo, con condiciones por trigger y aviso de fin de cooldown
+     * Los triggers se copian a estructuras inmutables; cambios posteriores al mapa original no afectan
+     * @param conditions Condiciones compiladas de cada trigger (null o sin entrada: siempre)
+     */
+    @SuppressWarnings("unchecked")
+    public ItemDefinition(String id, String displayName, List<String> lore, Material material,
+                          int customModelData, boolean unbreakable, Map<Enchantment, Integer> enchantments,
+                          boolean glowing, Map<TriggerType, List<Action>> triggers,
+                          Map<TriggerType, CompiledCondition> conditions, int cooldown,
+                          boolean cooldownNotify, boolean consumable, boolean stackable, int maxStackSize,
+                          String permission, boolean dropOnDeath) {
         this.id = id;
         this.displayName = displayName;
         this.lore = lore;
@@ -53,8 +83,34 @@ public class ItemDefinition {
         this.unbreakable = unbreakable;
         this.enchantments = enchantments;
         this.glowing = glowing;
-        this.triggers = triggers;
+
+        EnumMap<TriggerType, List<Action>> frozen = new EnumMap<>(TriggerType.class);
+        this.actionsByTrigger = new Action[TriggerType.count()][];
+        this.actionListsByTrigger = new List[TriggerType.count()];
+        this.plansByTrigger = new ExecutionPlan[TriggerType.count()];
+        long mask = 0L;
+        for (TriggerType trigger : TriggerType.values()) {
+            List<Action> actions = triggers != null ? triggers.get(trigger) : null;
+            if (actions == null || actions.isEmpty()) {
+                actionsByTrigger[trigger.ordinal()] = NO_ACTIONS;
+                actionListsByTrigger[trigger.ordinal()] = List.of();
+                plansByTrigger[trigger.ordinal()] = ExecutionPlan.EMPTY;
+                continue;
+            }
+            List<Action> copy = List.copyOf(actions);
+            frozen.put(trigger, copy);
+            actionsByTrigger[trigger.ordinal()] = copy.toArray(NO_ACTIONS);
+            actionListsByTrigger[trigger.ordinal()] = copy;
+            CompiledCondition condition = conditions != null ? conditions.get(trigger) : null;
+            plansByTrigger[trigger.ordinal()] = ExecutionPlan.compile(copy, condition, cooldown, cooldownNotify,
+                    consumable);
+            mask |= trigger.mask();
+        }
+        this.triggers = Collections.unmodifiableMap(frozen);
+        this.triggerMask = mask;
+
         this.cooldown = cooldown;
+        this.cooldownNotify = cooldownNotify;
         this.consumable = consumable;
         this.stackable = stackable;
         this.maxStackSize = maxStackSize;
@@ -73,31 +129,76 @@ public class ItemDefinition {
     public boolean isGlowing() { return glowing; }
     public Map<TriggerType, List<Action>> getTriggers() { return triggers; }
     public int getCooldown() { return cooldown; }
+    public boolean isCooldownNotify() { return cooldownNotify; }
     public boolean isConsumable() { return consumable; }
     public boolean isStackable() { return stackable; }
     public int getMaxStackSize() { return maxStackSize; }
     public String getPermission() { return permission; }
     public boolean shouldDropOnDeath() { return dropOnDeath; }
+    public int getNumericId() { return numericId; }
+
+    /**
+     * Asigna el ID numérico estable (solo lo usa ItemRegistry al registrar)
+     */
+    void setNumericId(int numericId) {
+        this.numericId = numericId;
+    }
 
     /**
      * Verifica si el ítem tiene un trigger específico
      */
     public boolean hasTrigger(TriggerType trigger) {
-        return triggers.containsKey(trigger) && !triggers.get(trigger).isEmpty();
+        return (triggerMask & trigger.mask()) != 0;
+    }
+
+    /**
+     * Verifica si el ítem tiene alguno de los triggers de una máscara
+     */
+    public boolean hasAnyTrigger(long mask) {
+        return (triggerMask & mask) != 0;
+    }
+
+    /**
+     * Máscara con un bit por cada trigger que tiene acciones
+     */
+    public long getTriggerMask() {
+        return triggerMask;
     }
 
     /**
      * Obtiene las acciones para un trigger específico
      */
     public List<Action> getActionsForTrigger(TriggerType trigger) {
-        return triggers.getOrDefault(trigger, List.of());
+        return actionListsByTrigger[trigger.ordinal()];
+    }
+
+    /**
+     * Obtiene las acciones de un trigger como arreglo compartido (no modificar)
+     * Es la vía usada en el camino caliente de ejecución
+     */
+    public Action[] getActionArray(TriggerType trigger) {
+        return actionsByTrigger[trigger.ordinal()];
+    }
+
+    /**
+     * Plan de ejecución compilado de un trigger (vacío si no tiene acciones)
+     */
+    public ExecutionPlan getExecutionPlan(TriggerType trigger) {
+        return plansByTrigger[trigger.ordinal()];
+    }
+
+    /**
+     * Condiciones compiladas de un trigger (la guarda de su plan)
+     */
+    public CompiledCondition getCondition(TriggerType trigger) {
+        return plansByTrigger[trigger.ordinal()].getGuard();
     }
 
     /**
      * Verifica si el ítem tiene alguna mecánica definida
      */
     public boolean hasMechanics() {
-        return !triggers.isEmpty();
+        return triggerMask != 0L;
     }
 
     @Override
@@ -10,6 +10,7 @@ import org.bukkit.enchantments.Enchantment;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.util.ArrayList;
@@ -24,15 +25,28 @@ public class ItemFactory {
 
     private static final String NBT_ITEM_ID = "varietyloot_item_id";
     private static final String NBT_ITEM_VERSION = "varietyloot_item_version";
+    private static final String NBT_ITEM_REF = "varietyloot_item_ref";
 
     private final VarietyMain plugin;
     private final NamespacedKey itemIdKey;
     private final NamespacedKey itemVersionKey;
+    private final NamespacedKey itemRefKey;
+
+    // Época de la tabla de IDs numéricos, se guarda junto al ID para detectar tablas regeneradas
+    private int idEpoch;
 
     public ItemFactory(VarietyMain plugin) {
         this.plugin = plugin;
         this.itemIdKey = new NamespacedKey(plugin, NBT_ITEM_ID);
         this.itemVersionKey = new NamespacedKey(plugin, NBT_ITEM_VERSION);
+        this.itemRefKey = new NamespacedKey(plugin, NBT_ITEM_REF);
+    }
+
+    /**
+     * Establece la época de la tabla de IDs numéricos en uso
+     */
+    void setIdEpoch(int idEpoch) {
+        this.idEpoch = idEpoch;
     }
 
     /**
@@ -95,6 +109,10 @@ public class ItemFactory {
         // Almacenar ID del ítem en NBT para identificación
         meta.getPersistentDataContainer().set(itemIdKey, PersistentDataType.STRING, definition.getId());
         meta.getPersistentDataContainer().set(itemVersionKey, PersistentDataType.STRING, "1.0");
+        if (definition.getNumericId() >= 0) {
+            meta.getPersistentDataContainer().set(itemRefKey, PersistentDataType.LONG,
+                    encodeItemRef(definition.getNumericId()));
+        }
 
         // Aplicar meta al item
         item.setItemMeta(meta);
@@ -129,14 +147,42 @@ public class ItemFactory {
      * @return El ID del ítem o null si no es un ítem personalizado
      */
     public String getCustomItemId(ItemStack itemStack) {
-        if (!isCustomItem(itemStack)) {
+        if (itemStack == null || !itemStack.hasItemMeta()) {
             return null;
         }
 
+        // getItemMeta() devuelve una copia: se obtiene una sola vez
         ItemMeta meta = itemStack.getItemMeta();
         return meta.getPersistentDataContainer().get(itemIdKey, PersistentDataType.STRING);
     }
 
+    /**
+     * Obtiene el ID de texto desde un contenedor de datos ya leído
+     */
+    public String getCustomItemId(PersistentDataContainer data) {
+        return data.get(itemIdKey, PersistentDataType.STRING);
+    }
+
+    /**
+     * Obtiene el ID numérico compacto desde un contenedor de datos ya leído
+     * @param data El contenedor persistente del ItemMeta
+     * @return El ID numérico o -1 si no existe o pertenece a otra tabla de IDs
+     */
+    public int getCustomItemIndex(PersistentDataContainer data) {
+        Long ref = data.get(itemRefKey, PersistentDataType.LONG);
+        if (ref == null || (int) (ref >>> 32) != idEpoch) {
+            return -1;
+        }
+        return (int) (long) ref;
+    }
+
+    /**
+     * Combina la época de la tabla y el ID numérico en un único valor
+     */
+    private long encodeItemRef(int numericId) {
+        return ((long) idEpoch << 32) | (numericId & 0xFFFFFFFFL);
+    }
+
     /**
      * Verifica si un ItemStack corresponde a una ItemDefinition específica
      * @param itemStack El ItemStack a verificar
@@ -0,0 +1,120 @@
+package gc.grivyzom.items;
+
+import gc.grivyzom.VarietyMain;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+
+/**
+ * Asignación estable entre IDs de texto de los ítems y sus IDs numéricos compactos
+ * Se persiste en item-ids.yml para que los ítems ya repartidos sigan resolviéndose
+ * tras recargas y reinicios. Los IDs nunca se reutilizan aunque el ítem se elimine.
+ */
+public class ItemIdMapping {
+
+    private static final String FILE_NAME = "item-ids.yml";
+
+    private final VarietyMain plugin;
+    private final File mappingFile;
+    private final Map<String, Integer> idsByName;
+
+    // Identifica esta tabla: si el archivo se borra, los ítems antiguos no se confunden con IDs nuevos
+    private int epoch;
+    private int nextId;
+    private boolean dirty;
+
+    public ItemIdMapping(VarietyMain plugin) {
+        this.plugin = plugin;
+        this.mappingFile = new File(plugin.getDataFolder(), FILE_NAME);
+        this.idsByName = new HashMap<>();
+        load();
+    }
+
+    /**
+     * Carga la tabla desde disco o crea una nueva si no existe
+     */
+    private void load() {
+        idsByName.clear();
+
+        if (!mappingFile.exists()) {
+            epoch = ThreadLocalRandom.current().nextInt();
+            nextId = 0;
+            dirty = true;
+            return;
+        }
+
+        FileConfiguration config = YamlConfiguration.loadConfiguration(mappingFile);
+        epoch = config.getInt("epoch", 0);
+        nextId = config.getInt("next-id", 0);
+
+        ConfigurationSection idsSection = config.getConfigurationSection("ids");
+        if (idsSection != null) {
+            for (String name : idsSection.getKeys(false)) {
+                int id = idsSection.getInt(name, -1);
+                if (id >= 0) {
+                    idsByName.put(name, id);
+                    nextId = Math.max(nextId, id + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene el ID numérico de un ítem, asignando uno nuevo si no tenía
+     * @param itemName El ID de texto del ítem
+     * @return El ID numérico estable
+     */
+    public synchronized int getOrAssign(String itemName) {
+        Integer id = idsByName.get(itemName);
+        if (id != null) {
+            return id;
+        }
+
+        int assigned = nextId++;
+        idsByName.put(itemName, assigned);
+        dirty = true;
+        return assigned;
+    }
+
+    /**
+     * Guarda la tabla en disco si hubo cambios
+     */
+    public synchronized void saveIfDirty() {
+        if (!dirty) {
+            return;
+        }
+
+        FileConfiguration config = new YamlConfiguration();
+        config.set("epoch", epoch);
+        config.set("next-id", nextId);
+        for (Map.Entry<String, Integer> entry : idsByName.entrySet()) {
+            config.set("ids." + entry.getKey(), entry.getValue());
+        }
+
+        try {
+            plugin.getDataFolder().mkdirs();
+            config.save(mappingFile);
+            dirty = false;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Error al guardar " + FILE_NAME, e);
+        }
+    }
+
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Tamaño necesario para un arreglo indexado por ID numérico
+     */
+    public synchronized int getCapacity() {
+        return nextId;
+    }
+}
@@ -1,14 +1,19 @@
 package gc.grivyzom.items;
 
 import gc.grivyzom.VarietyMain;
+import gc.grivyzom.mechanics.TriggerSubscriptionIndex;
 import gc.grivyzom.mechanics.TriggerType;
 import gc.grivyzom.mechanics.actions.Action;
+import gc.grivyzom.mechanics.conditions.CompiledCondition;
+import gc.grivyzom.mechanics.parser.MechanicsParser;
+import gc.grivyzom.mechanics.parser.ValidationReport;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataContainer;
 
 import java.io.File;
 import java.io.IOException;
@@ -25,6 +30,21 @@ public class ItemRegistry {
     private final VarietyMain plugin;
     private final ItemFactory itemFactory;
     private final Map<String, ItemDefinition> registeredItems;
+    private final ItemIdMapping idMapping;
+    private final MechanicsParser mechanicsParser;
+
+    // Definiciones indexadas por ID numérico compacto
+    private volatile ItemDefinition[] definitionsByIndex;
+
+    // Materiales usados por alguna definición: descarta ítems vanilla sin tocar el ItemMeta
+    private volatile EnumSet<Material> customMaterials;
+
+    // Triggers usados por alguna definición: decide qué handlers de eventos se registran
+    private volatile TriggerSubscriptionIndex triggerIndex;
+
+    // Problemas de configuración encontrados en la última carga
+    private volatile ValidationReport validationReport;
+
     private File itemsFile;
     private FileConfiguration itemsConfig;
 
@@ -32,6 +52,13 @@ public class ItemRegistry {
         this.plugin = plugin;
         this.itemFactory = new ItemFactory(plugin);
         this.registeredItems = new ConcurrentHashMap<>();
+        this.customMaterials = EnumSet.noneOf(Material.class);
+        this.idMapping = new ItemIdMapping(plugin);
+        this.mechanicsParser = new MechanicsParser(plugin);
+        this.triggerIndex = TriggerSubscriptionIndex.empty();
+        this.definitionsByIndex = new ItemDefinition[0];
+        this.validationReport = new ValidationReport();
+        this.itemFactory.setIdEpoch(idMapping.getEpoch());
         createItemsFile();
         loadItems();
     }
@@ -55,24 +82,29 @@ public class ItemRegistry {
      */
     public void loadItems() {
         registeredItems.clear();
+        rebuildIndexes();
 
         if (itemsConfig == null) {
             plugin.getLogger().warning("No se pudo cargar el archivo items.yml");
+            refreshHandlers();
             return;
         }
 
         ConfigurationSection itemsSection = itemsConfig.getConfigurationSection("items");
         if (itemsSection == null) {
             plugin.getLogger().info("No se encontraron ítems en items.yml");
+            refreshHandlers();
             return;
         }
 
         int loadedCount = 0;
+        ValidationReport report = new ValidationReport();
 
         for (String itemId : itemsSection.getKeys(false)) {
             try {
-                ItemDefinition definition = loadItemDefinition(itemId, itemsSection.getConfigurationSection(itemId));
+                ItemDefinition definition = loadItemDefinition(itemId, itemsSection.getConfigurationSection(itemId), report);
                 if (definition != null) {
+                    definition.setNumericId(idMapping.getOrAssign(itemId));
                     registeredItems.put(itemId, definition);
                     loadedCount++;
                     plugin.getLogger().info("Ítem cargado: " + itemId);
@@ -82,13 +114,67 @@ public class ItemRegistry {
             }
         }
 
+        rebuildIndexes();
+        idMapping.saveIfDirty();
+        refreshHandlers();
+        validationReport = report;
+        report.log(plugin.getLogger());
         plugin.getLogger().info("Se cargaron " + loadedCount + " ítems personalizados");
     }
 
+    /**
+     * Recalcula los índices derivados de las definiciones registradas
+     * (materiales usados, arreglo por ID numérico y triggers usados). Se publican instancias nuevas
+     * para que las lecturas concurrentes nunca vean un índice a medias
+     */
+    private void rebuildIndexes() {
+        EnumSet<Material> materials = EnumSet.noneOf(Material.class);
+        ItemDefinition[] byIndex = new ItemDefinition[idMapping.getCapacity()];
+
+        for (ItemDefinition definition : registeredItems.values()) {
+            materials.add(definition.getMaterial());
+
+            int index = definition.getNumericId();
+            if (index >= 0 && index < byIndex.length) {
+                byIndex[index] = definition;
+            }
+        }
+
+        customMaterials = materials;
+        definitionsByIndex = byIndex;
+        triggerIndex = TriggerSubscriptionIndex.build(registeredItems.values());
+    }
+
+    /**
+     * Ajusta los handlers de eventos registrados a los triggers en uso
+     * Durante el arranque aún no existe el registrador: VarietyMain lo refresca al crearlo
+     */
+    private void refreshHandlers() {
+        if (plugin.getHandlerRegistrar() != null) {
+            plugin.getHandlerRegistrar().refresh(triggerIndex);
+        }
+    }
+
+    /**
+     * Obtiene el índice de triggers usados por los ítems cargados
+     */
+    public TriggerSubscriptionIndex getTriggerIndex() {
+        return triggerIndex;
+    }
+
+    /**
+     * Verifica si algún ítem registrado usa este material
+     * @param material El material a verificar
+     * @return true si el material puede corresponder a un ítem personalizado
+     */
+    public boolean isCustomMaterial(Material material) {
+        return material != null && customMaterials.contains(material);
+    }
+
     /**
      * Carga una definición de ítem desde una sección de configuración
      */
-    private ItemDefinition loadItemDefinition(String id, ConfigurationSection section) {
+    private ItemDefinition loadItemDefinition(String id, ConfigurationSection section, ValidationReport report) {
         if (section == null) {
             plugin.getLogger().warning("Sección de configuración nula para el ítem: " + id);
             return null;
@@ -102,7 +188,7 @@ public class ItemRegistry {
             Material material = Material.matchMaterial(materialName);
 
             if (material == null) {
-                plugin.getLogger().warning("Material inválido '" + materialName + "' para el ítem: " + id);
+                report.add(id, null, -1, "Material inválido '" + materialName + "', se usa STONE");
                 material = Material.STONE;
             }
 
@@ -114,11 +200,14 @@ public class ItemRegistry {
             // Cargar encantamientos
             Map<Enchantment, Integer> enchantments = loadEnchantments(section.getConfigurationSection("enchantments"));
 
-            // Cargar triggers y acciones (por ahora vacío, se implementará en la siguiente fase)
-            Map<TriggerType, List<Action>> triggers = new HashMap<>();
+            // Cargar triggers y acciones
+            Map<TriggerType, CompiledCondition> conditions = new EnumMap<>(TriggerType.class);
+            Map<TriggerType, List<Action>> triggers = mechanicsParser.parseMechanics(id,
+                    section.getConfigurationSection("mechanics"), report, conditions);
 
             // Configuración de mecánicas
             int cooldown = section.getInt("cooldown", 0);
+            boolean cooldownNotify = section.getBoolean("cooldown-notify", false);
             boolean consumable = section.getBoolean("consumable", false);
 
             // Configuración avanzada
@@ -128,7 +217,7 @@ public class ItemRegistry {
             boolean dropOnDeath = section.getBoolean("drop-on-death", true);
 
             return new ItemDefinition(id, displayName, lore, material, customModelData,
-                    unbreakable, enchantments, glowing, triggers, cooldown,
+                    unbreakable, enchantments, glowing, triggers, conditions, cooldown, cooldownNotify,
                     consumable, stackable, maxStackSize, permission, dropOnDeath);
 
         } catch (Exception e) {
@@ -178,7 +267,11 @@ public class ItemRegistry {
             return false;
         }
 
+        definition.setNumericId(idMapping.getOrAssign(definition.getId()));
         registeredItems.put(definition.getId(), definition);
+        rebuildIndexes();
+        idMapping.saveIfDirty();
+        refreshHandlers();
         plugin.getLogger().info("Ítem registrado: " + definition.getId());
         return true;
     }
@@ -191,6 +284,8 @@ public class ItemRegistry {
     public boolean unregisterItem(String itemId) {
         ItemDefinition removed = registeredItems.remove(itemId);
         if (removed != null) {
+            rebuildIndexes();
+            refreshHandlers();
             plugin.getLogger().info("Ítem desregistrado: " + itemId);
             return true;
         }
@@ -206,6 +301,23 @@ public class ItemRegistry {
         return registeredItems.get(itemId);
     }
 
+    /**
+     * Obtiene una definición de ítem por su ID numérico compacto
+     * @param index El ID numérico del ítem
+     * @return La definición del ítem o null si no existe
+     */
+    public ItemDefinition getItemDefinition(int index) {
+        ItemDefinition[] byIndex = definitionsByIndex;
+        return index >= 0 && index < byIndex.length ? byIndex[index] : null;
+    }
+
+    /**
+     * Tamaño del espacio de IDs numéricos (para arreglos indexados por ítem)
+     */
+    public int getIndexCapacity() {
+        return definitionsByIndex.length;
+    }
+
     /**
      * Verifica si un ítem está registrado
      * @param itemId El ID del ítem
@@ -259,12 +371,24 @@ public class ItemRegistry {
      * @return La definición del ítem o null si no es un ítem personalizado
      */
     public ItemDefinition getDefinitionFromItemStack(ItemStack itemStack) {
-        String itemId = itemFactory.getCustomItemId(itemStack);
-        if (itemId == null) {
+        // Filtro por material antes de cualquier acceso al ItemMeta
+        if (itemStack == null || !customMaterials.contains(itemStack.getType())) {
+            return null;
+        }
+
+        if (!itemStack.hasItemMeta()) {
             return null;
         }
 
-        return getItemDefinition(itemId);
+        // Una sola copia del ItemMeta: primero el ID numérico, luego el de texto para ítems antiguos
+        PersistentDataContainer data = itemStack.getItemMeta().getPersistentDataContainer();
+        ItemDefinition definition = getItemDefinition(itemFactory.getCustomItemIndex(data));
+        if (definition != null) {
+            return definition;
+        }
+
+        String itemId = itemFactory.getCustomItemId(data);
+        return itemId != null ? getItemDefinition(itemId) : null;
     }
 
     /**
@@ -305,6 +429,13 @@ public class ItemRegistry {
         return itemFactory;
     }
 
+    /**
+     * Problemas de configuración de la última carga de items.yml
+     */
+    public ValidationReport getValidationReport() {
+        return validationReport;
+    }
+
     /**
      * Obtiene estadísticas del registro
      * @return Un mapa con información estadística
@@ -318,6 +449,9 @@ public class ItemRegistry {
                 .mapToInt(def -> def.isConsumable() ? 1 : 0).sum());
         stats.put("items_with_cooldown", registeredItems.values().stream()
                 .mapToInt(def -> def.getCooldown() > 0 ? 1 : 0).sum());
+        stats.put("custom_materials", customMaterials.size());
+        stats.put("subscribed_triggers", triggerIndex.getSubscribedTriggers().size());
+        stats.put("validation_problems", validationReport.size());
 
         return stats;
     }
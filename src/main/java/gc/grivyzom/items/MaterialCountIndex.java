@@ -0,0 +1,103 @@
+package gc.grivyzom.items;
+
+import gc.grivyzom.VarietyMain;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cantidad de cada material en el inventario de cada jugador, para has_item / missing_item
+ * Los eventos con cantidad exacta (recoger, soltar) ajustan el conteo; el resto lo invalida
+ * y se relee el inventario en la siguiente consulta. Como red de seguridad ante cambios sin
+ * evento (otros plugins), un conteo se relee si tiene más de MAX_AGE_TICKS
+ */
+public class MaterialCountIndex {
+
+    private static final int MATERIAL_COUNT = Material.values().length;
+    private static final long MAX_AGE_TICKS = 40L;
+
+    private final VarietyMain plugin;
+    private final Map<UUID, Counts> counts;
+
+    public MaterialCountIndex(VarietyMain plugin) {
+        this.plugin = plugin;
+        this.counts = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Cantidad total de un material en el inventario del jugador (incluye armadura y segunda mano)
+     */
+    public int getCount(Player player, Material material) {
+        long tick = plugin.getTickDriver().getCurrentTick();
+        Counts playerCounts = counts.computeIfAbsent(player.getUniqueId(), id -> new Counts());
+
+        if (playerCounts.isStale(tick)) {
+            playerCounts.rebuild(player, tick);
+        }
+        return playerCounts.byMaterial[material.ordinal()];
+    }
+
+    /**
+     * Ajusta el conteo con un cambio de cantidad conocido
+     * Si el conteo ya estaba invalidado no hace falta: se releerá entero
+     */
+    public void adjust(Player player, Material material, int delta) {
+        Counts playerCounts = counts.get(player.getUniqueId());
+        if (playerCounts != null && !playerCounts.isStale(plugin.getTickDriver().getCurrentTick())) {
+            int ordinal = material.ordinal();
+            playerCounts.byMaterial[ordinal] = Math.max(0, playerCounts.byMaterial[ordinal] + delta);
+        }
+    }
+
+    /**
+     * Marca el conteo como desactualizado por un cambio sin cantidad exacta
+     * Los eventos llegan antes de aplicarse el cambio: cualquier lectura de este mismo tick
+     * también se considera desactualizada
+     */
+    public void invalidate(Player player) {
+        Counts playerCounts = counts.get(player.getUniqueId());
+        if (playerCounts != null) {
+            playerCounts.invalidAtTick = plugin.getTickDriver().getCurrentTick();
+        }
+    }
+
+    /**
+     * Elimina el conteo de un jugador (al desconectarse)
+     */
+    public void remove(Player player) {
+        counts.remove(player.getUniqueId());
+    }
+
+    public int getTrackedPlayers() {
+        return counts.size();
+    }
+
+    /**
+     * Conteo de un jugador indexado por ordinal de Material
+     * Solo se usa desde el hilo principal
+     */
+    private static final class Counts {
+        private final int[] byMaterial = new int[MATERIAL_COUNT];
+        private long builtAtTick = Long.MIN_VALUE;
+        private long invalidAtTick = Long.MIN_VALUE;
+
+        private boolean isStale(long tick) {
+            return builtAtTick <= invalidAtTick || tick - builtAtTick > MAX_AGE_TICKS;
+        }
+
+        private void rebuild(Player player, long tick) {
+            Arrays.fill(byMaterial, 0);
+            for (ItemStack item : player.getInventory().getContents()) {
+                if (item != null) {
+                    byMaterial[item.getType().ordinal()] += item.getAmount();
+                }
+            }
+            builtAtTick = tick;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package gc.grivyzom.listeners;
+
+import gc.grivyzom.VarietyMain;
+import gc.grivyzom.mechanics.TriggerSubscriptionIndex;
+import gc.grivyzom.mechanics.TriggerType;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Registra en Bukkit los handlers de eventos solo mientras algún ítem cargado use
+ * los triggers que producen. Un evento frecuente como PlayerMoveEvent no tiene coste
+ * si ningún ítem declara "jump"
+ */
+public class DynamicHandlerRegistrar {
+
+    /**
+     * Handler registrable de forma independiente: cada uno tiene su propio Listener
+     * como marca, para poder desregistrarlo sin afectar a los demás
+     */
+    private static final class HandlerSpec<E extends Event> {
+        private final String name;
+        private final Class<E> eventClass;
+        private final EventPriority priority;
+        private final boolean ignoreCancelled;
+        private final long triggerMask;
+        private final Consumer<E> handler;
+        private final Listener token = new Listener() { };
+        private boolean registered;
+
+        private HandlerSpec(String name, Class<E> eventClass, EventPriority priority, boolean ignoreCancelled,
+                            long triggerMask, Consumer<E> handler) {
+            this.name = name;
+            this.eventClass = eventClass;
+            this.priority = priority;
+            this.ignoreCancelled = ignoreCancelled;
+            this.triggerMask = triggerMask;
+            this.handler = handler;
+        }
+
+        private EventExecutor executor() {
+            // Las subclases comparten HandlerList con su evento padre: filtrar por tipo
+            return (listener, event) -> {
+                if (eventClass.isInstance(event)) {
+                    handler.accept(eventClass.cast(event));
+                }
+            };
+        }
+    }
+
+    private final VarietyMain plugin;
+    private final List<HandlerSpec<?>> handlers;
+
+    public DynamicHandlerRegistrar(VarietyMain plugin) {
+        this.plugin = plugin;
+        this.handlers = new ArrayList<>();
+    }
+
+    /**
+     * Declara un handler que se registrará mientras algún ítem use alguno de los triggers
+     * @param name Nombre para logs
+     * @param eventClass Clase del evento
+     * @param priority Prioridad del handler
+     * @param ignoreCancelled Si se ignoran los eventos cancelados
+     * @param handler El código a ejecutar
+     * @param first Trigger que produce este handler
+     * @param triggers Otros triggers que produce el mismo handler
+     */
+    public <E extends Event> void addHandler(String name, Class<E> eventClass, EventPriority priority,
+                                             boolean ignoreCancelled, Consumer<E> handler,
+                                             TriggerType first, TriggerType... triggers) {
+        handlers.add(new HandlerSpec<>(name, eventClass, priority, ignoreCancelled,
+                first.mask() | TriggerType.maskOf(triggers), handler));
+    }
+
+    /**
+     * Registra o desregistra cada handler según el índice de suscripciones actual
+     * Debe llamarse desde el hilo principal
+     */
+    public synchronized void refresh(TriggerSubscriptionIndex index) {
+        int registeredCount = 0;
+
+        for (HandlerSpec<?> spec : handlers) {
+            boolean needed = index.isAnySubscribed(spec.triggerMask);
+
+            if (needed && !spec.registered) {
+                plugin.getServer().getPluginManager().registerEvent(spec.eventClass, spec.token,
+                        spec.priority, spec.executor(), plugin, spec.ignoreCancelled);
+                spec.registered = true;
+            } else if (!needed && spec.registered) {
+                HandlerList.unregisterAll(spec.token);
+                spec.registered = false;
+            }
+
+            if (spec.registered) {
+                registeredCount++;
+            }
+        }
+
+        plugin.getLogger().info("Handlers de eventos activos: " + registeredCount + "/" + handlers.size());
+    }
+
+    /**
+     * Desregistra todos los handlers dinámicos
+     */
+    public synchronized void unregisterAll() {
+        for (HandlerSpec<?> spec : handlers) {
+            if (spec.registered) {
+                HandlerList.unregisterAll(spec.token);
+                spec.registered = false;
+            }
+        }
+    }
+
+    /**
+     * Obtiene los nombres de los handlers registrados actualmente
+     */
+    public synchronized List<String> getRegisteredHandlers() {
+        List<String> names = new ArrayList<>();
+        for (HandlerSpec<?> spec : handlers) {
+            if (spec.registered) {
+                names.add(spec.name);
+            }
+        }
+        return names;
+    }
+
+    public int getTotalHandlers() {
+        return handlers.size();
+    }
+}
@@ -1,43 +1,76 @@
 package gc.grivyzom.listeners;
 
 import gc.grivyzom.VarietyMain;
+import gc.grivyzom.items.EquipmentSnapshot;
+import gc.grivyzom.items.EquipmentTracker;
 import gc.grivyzom.items.ItemDefinition;
 import gc.grivyzom.mechanics.TriggerType;
 import gc.grivyzom.mechanics.actions.ActionContext;
 import gc.grivyzom.mechanics.detection.ActionDetector;
+import gc.grivyzom.util.BoundedCache;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockDispenseArmorEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.*;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.*;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Listener principal que detecta eventos de Minecraft y los traduce a triggers de ítems
  * Maneja la comunicación entre el sistema de eventos de Bukkit y el ActionDetector
  */
-public class ItemEventListener implements Listener {
+public class ItemEventListener implements Listener, EquipmentTracker.ChangeHandler {
 
     private final VarietyMain plugin;
     private final ActionDetector actionDetector;
 
-    // Cache para optimizar verificaciones repetitivas
-    private final ConcurrentHashMap<String, Long> lastInteractionCache;
+    // Última interacción de cada jugador por trigger (índice = ordinal), con tamaño acotado
+    private final BoundedCache<UUID, long[]> lastInteractionCache;
 
     // Control de spam para evitar múltiples ejecuciones
     private static final long INTERACTION_COOLDOWN = 100; // 100ms entre interacciones del mismo tipo
+    private static final int INTERACTION_CACHE_SIZE = 2048;
+    private static final long INTERACTION_CACHE_TTL = 60000; // Sin interacciones en 1 minuto se descarta
+    private static final int TRIGGER_COUNT = TriggerType.count();
 
     public ItemEventListener(VarietyMain plugin, ActionDetector actionDetector) {
         this.plugin = plugin;
         this.actionDetector = actionDetector;
-        this.lastInteractionCache = new ConcurrentHashMap<>();
+        this.lastInteractionCache = new BoundedCache<>(INTERACTION_CACHE_SIZE, INTERACTION_CACHE_TTL);
+        plugin.getEquipmentTracker().setChangeHandler(this);
+    }
+
+    /**
+     * Declara los handlers que solo se registran en Bukkit mientras algún ítem use su trigger
+     * Interacción, consumo, colocación y equipamiento se registran siempre porque también
+     * mantienen actualizado el snapshot de equipamiento
+     */
+    public void registerDynamicHandlers(DynamicHandlerRegistrar registrar) {
+        registrar.addHandler("attack_entity", EntityDamageByEntityEvent.class, EventPriority.HIGH, false,
+                this::onEntityDamageByEntity, TriggerType.ATTACK_ENTITY);
+        registrar.addHandler("kill_entity", EntityDeathEvent.class, EventPriority.HIGH, false,
+                this::onEntityDeath, TriggerType.KILL_ENTITY);
+        registrar.addHandler("damage_taken", EntityDamageEvent.class, EventPriority.HIGH, false,
+                this::onPlayerDamage, TriggerType.DAMAGE_TAKEN);
+        registrar.addHandler("sprint", PlayerToggleSprintEvent.class, EventPriority.MONITOR, false,
+                this::onPlayerToggleSprint, TriggerType.SPRINT);
+        registrar.addHandler("sneak", PlayerToggleSneakEvent.class, EventPriority.MONITOR, false,
+                this::onPlayerToggleSneak, TriggerType.SNEAK);
+        registrar.addHandler("jump", PlayerMoveEvent.class, EventPriority.MONITOR, false,
+                this::onPlayerJump, TriggerType.JUMP);
+        registrar.addHandler("break_block", BlockBreakEvent.class, EventPriority.HIGH, false,
+                this::onBlockBreak, TriggerType.BREAK_BLOCK);
     }
 
     // ==========================================
@@ -49,7 +82,16 @@ public class ItemEventListener implements Listener {
         Player player = event.getPlayer();
         ItemStack item = event.getItem();
 
-        if (!plugin.getItemRegistry().isCustomItem(item)) {
+        // Antes de cualquier salida: el ítem puede ser vanilla y aun así desequipar uno personalizado
+        refreshOnArmorSwap(player, item, event.getAction());
+
+        // Ningún ítem usa triggers de clic
+        if (!plugin.getItemRegistry().getTriggerIndex().isAnySubscribed(TriggerType.CLICK_TRIGGERS)) {
+            return;
+        }
+
+        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(item);
+        if (definition == null) {
             return;
         }
 
@@ -64,7 +106,6 @@ public class ItemEventListener implements Listener {
         }
 
         // Crear contexto con información del evento
-        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(item);
         ActionContext context = new ActionContext.Builder(player, definition, trigger)
                 .itemStack(item)
                 .targetLocation(event.getClickedBlock() != null ? event.getClickedBlock().getLocation() : null)
@@ -83,7 +124,6 @@ public class ItemEventListener implements Listener {
     // EVENTOS DE COMBATE
     // ==========================================
 
-    @EventHandler(priority = EventPriority.HIGH)
     public void onEntityDamageByEntity(EntityDamageByEntityEvent event) {
         if (!(event.getDamager() instanceof Player)) {
             return;
@@ -92,11 +132,11 @@ public class ItemEventListener implements Listener {
         Player player = (Player) event.getDamager();
         ItemStack weapon = player.getInventory().getItemInMainHand();
 
-        if (!plugin.getItemRegistry().isCustomItem(weapon)) {
+        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(weapon);
+        if (definition == null) {
             return;
         }
 
-        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(weapon);
         ActionContext context = new ActionContext.Builder(player, definition, TriggerType.ATTACK_ENTITY)
                 .itemStack(weapon)
                 .target(event.getEntity())
@@ -106,7 +146,6 @@ public class ItemEventListener implements Listener {
         actionDetector.detectAndExecute(player, weapon, TriggerType.ATTACK_ENTITY, context);
     }
 
-    @EventHandler(priority = EventPriority.HIGH)
     public void onEntityDeath(EntityDeathEvent event) {
         Player killer = event.getEntity().getKiller();
         if (killer == null) {
@@ -114,11 +153,11 @@ public class ItemEventListener implements Listener {
         }
 
         ItemStack weapon = killer.getInventory().getItemInMainHand();
-        if (!plugin.getItemRegistry().isCustomItem(weapon)) {
+        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(weapon);
+        if (definition == null) {
             return;
         }
 
-        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(weapon);
         ActionContext context = new ActionContext.Builder(killer, definition, TriggerType.KILL_ENTITY)
                 .itemStack(weapon)
                 .target(event.getEntity())
@@ -127,7 +166,6 @@ public class ItemEventListener implements Listener {
         actionDetector.detectAndExecute(killer, weapon, TriggerType.KILL_ENTITY, context);
     }
 
-    @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerDamage(EntityDamageEvent event) {
         if (!(event.getEntity() instanceof Player)) {
             return;
@@ -149,11 +187,21 @@ public class ItemEventListener implements Listener {
         Player player = event.getPlayer();
         ItemStack item = event.getItem();
 
-        if (!plugin.getItemRegistry().isCustomItem(item)) {
+        // Puede devolver un recipiente (botella, cuenco): releer el conteo de materiales
+        plugin.getMaterialCountIndex().invalidate(player);
+
+        // Ningún ítem usa triggers de consumo: solo mantener el snapshot al día
+        if (!plugin.getItemRegistry().getTriggerIndex().isAnySubscribed(TriggerType.CONSUME_TRIGGERS)) {
+            if (plugin.getItemRegistry().isCustomMaterial(item.getType())) {
+                plugin.getEquipmentTracker().scheduleRefresh(player);
+            }
             return;
         }
 
         ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(item);
+        if (definition == null) {
+            return;
+        }
 
         // Determinar tipo de consumo
         TriggerType trigger = item.getType().isEdible() ? TriggerType.EAT : TriggerType.DRINK;
@@ -173,6 +221,9 @@ public class ItemEventListener implements Listener {
 
         if (executed) {
             event.setCancelled(true);
+        } else {
+            // El consumo vanilla puede vaciar la mano
+            plugin.getEquipmentTracker().scheduleRefresh(player);
         }
     }
 
@@ -180,7 +231,6 @@ public class ItemEventListener implements Listener {
     // EVENTOS DE MOVIMIENTO
     // ==========================================
 
-    @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerToggleSprint(PlayerToggleSprintEvent event) {
         if (!event.isSprinting()) {
             return; // Solo cuando empieza a correr
@@ -190,7 +240,6 @@ public class ItemEventListener implements Listener {
         checkItemsForTrigger(player, TriggerType.SPRINT, context -> context.build());
     }
 
-    @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerToggleSneak(PlayerToggleSneakEvent event) {
         if (!event.isSneaking()) {
             return; // Solo cuando empieza a agacharse
@@ -200,7 +249,6 @@ public class ItemEventListener implements Listener {
         checkItemsForTrigger(player, TriggerType.SNEAK, context -> context.build());
     }
 
-    @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJump(PlayerMoveEvent event) {
         Player player = event.getPlayer();
 
@@ -217,16 +265,15 @@ public class ItemEventListener implements Listener {
     // EVENTOS DE BLOQUES
     // ==========================================
 
-    @EventHandler(priority = EventPriority.HIGH)
     public void onBlockBreak(BlockBreakEvent event) {
         Player player = event.getPlayer();
         ItemStack tool = player.getInventory().getItemInMainHand();
 
-        if (!plugin.getItemRegistry().isCustomItem(tool)) {
+        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(tool);
+        if (definition == null) {
             return;
         }
 
-        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(tool);
         ActionContext context = new ActionContext.Builder(player, definition, TriggerType.BREAK_BLOCK)
                 .itemStack(tool)
                 .targetLocation(event.getBlock().getLocation())
@@ -246,11 +293,21 @@ public class ItemEventListener implements Listener {
         Player player = event.getPlayer();
         ItemStack item = event.getItemInHand();
 
-        if (!plugin.getItemRegistry().isCustomItem(item)) {
+        // En creativo no se gasta el bloque: releer el conteo en lugar de restar
+        plugin.getMaterialCountIndex().invalidate(player);
+
+        if (!plugin.getItemRegistry().getTriggerIndex().isSubscribed(TriggerType.PLACE_BLOCK)) {
+            if (plugin.getItemRegistry().isCustomMaterial(item.getType())) {
+                plugin.getEquipmentTracker().scheduleRefresh(player);
+            }
             return;
         }
 
         ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(item);
+        if (definition == null) {
+            return;
+        }
+
         ActionContext context = new ActionContext.Builder(player, definition, TriggerType.PLACE_BLOCK)
                 .itemStack(item)
                 .targetLocation(event.getBlock().getLocation())
@@ -261,6 +318,9 @@ public class ItemEventListener implements Listener {
 
         if (executed) {
             event.setCancelled(true);
+        } else {
+            // Colocar el último bloque vacía la mano
+            plugin.getEquipmentTracker().scheduleRefresh(player);
         }
     }
 
@@ -268,31 +328,119 @@ public class ItemEventListener implements Listener {
     // EVENTOS DE INVENTARIO Y EQUIPAMIENTO
     // ==========================================
 
-    @EventHandler(priority = EventPriority.MONITOR)
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onInventoryClick(InventoryClickEvent event) {
         if (!(event.getWhoClicked() instanceof Player)) {
             return;
         }
 
-        Player player = (Player) event.getWhoClicked();
-        ItemStack item = event.getCurrentItem();
+        // El clic se aplica después del evento: releer el equipamiento en el siguiente tick
+        plugin.getEquipmentTracker().scheduleRefresh((Player) event.getWhoClicked());
+        plugin.getMaterialCountIndex().invalidate((Player) event.getWhoClicked());
+    }
 
-        if (!plugin.getItemRegistry().isCustomItem(item)) {
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        if (!(event.getWhoClicked() instanceof Player)) {
             return;
         }
 
-        // Detectar equipamiento/desequipamiento según el slot
-        if (isArmorSlot(event.getSlot()) || isHotbarSlot(event.getSlot())) {
-            scheduleEquipmentCheck(player, item);
+        plugin.getEquipmentTracker().scheduleRefresh((Player) event.getWhoClicked());
+        plugin.getMaterialCountIndex().invalidate((Player) event.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemHeld(PlayerItemHeldEvent event) {
+        Player player = event.getPlayer();
+        ItemStack newItem = player.getInventory().getItem(event.getNewSlot());
+        plugin.getEquipmentTracker().updateSlot(player, EquipmentSlot.HAND, newItem);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSwapHandItems(PlayerSwapHandItemsEvent event) {
+        plugin.getEquipmentTracker().updateHands(event.getPlayer(), event.getMainHandItem(), event.getOffHandItem());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerDropItem(PlayerDropItemEvent event) {
+        ItemStack dropped = event.getItemDrop().getItemStack();
+
+        // El ítem ya salió del inventario: restar exactamente lo soltado
+        plugin.getMaterialCountIndex().adjust(event.getPlayer(), dropped.getType(), -dropped.getAmount());
+
+        if (plugin.getItemRegistry().isCustomMaterial(dropped.getType())) {
+            plugin.getEquipmentTracker().scheduleRefresh(event.getPlayer());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityPickupItem(EntityPickupItemEvent event) {
+        if (!(event.getEntity() instanceof Player)) {
+            return;
+        }
+
+        Player player = (Player) event.getEntity();
+        ItemStack picked = event.getItem().getItemStack();
+
+        // Si cabe entero se suma lo recogido; si no, se relee el inventario
+        if (event.getRemaining() == 0) {
+            plugin.getMaterialCountIndex().adjust(player, picked.getType(), picked.getAmount());
+        } else {
+            plugin.getMaterialCountIndex().invalidate(player);
+        }
+
+        if (plugin.getItemRegistry().isCustomMaterial(picked.getType())) {
+            plugin.getEquipmentTracker().scheduleRefresh(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityShootBow(EntityShootBowEvent event) {
+        // Disparar gasta flechas (salvo Infinidad o creativo)
+        if (event.getEntity() instanceof Player) {
+            plugin.getMaterialCountIndex().invalidate((Player) event.getEntity());
         }
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemBreak(PlayerItemBreakEvent event) {
+        plugin.getEquipmentTracker().scheduleRefresh(event.getPlayer());
+        plugin.getMaterialCountIndex().invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDispenseArmor(BlockDispenseArmorEvent event) {
+        if (!(event.getTargetEntity() instanceof Player)
+                || !plugin.getItemRegistry().isCustomMaterial(event.getItem().getType())) {
+            return;
+        }
+
+        // El dispensador coloca la pieza después del evento
+        Player player = (Player) event.getTargetEntity();
+        plugin.getEquipmentTracker().scheduleRefresh(player);
+        plugin.getMaterialCountIndex().invalidate(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerDeath(PlayerDeathEvent event) {
+        // Un jugador muerto no tiene nada equipado: se detienen sus pulsos hasta reaparecer
+        plugin.getEquipmentTracker().scheduleRefresh(event.getEntity());
+        plugin.getMaterialCountIndex().invalidate(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        plugin.getEquipmentTracker().scheduleRefresh(event.getPlayer());
+        plugin.getMaterialCountIndex().invalidate(event.getPlayer());
+    }
+
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
 
-        // Iniciar monitoreo para ítems que el jugador ya tiene equipados
-        scheduleEquipmentScan(player);
+        // Leer el equipamiento inicial e iniciar monitoreo para los ítems ya equipados
+        plugin.getEquipmentTracker().initialize(player);
+        resumeMonitoring(player);
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
@@ -301,193 +449,186 @@ public class ItemEventListener implements Listener {
 
         // Limpiar recursos del jugador
         actionDetector.cleanupPlayer(player);
+        plugin.getConditionChecker().cleanupPlayer(player);
+        plugin.getEquipmentTracker().remove(player);
+        plugin.getMaterialCountIndex().remove(player);
 
         // Limpiar cache de interacciones
-        String playerKey = player.getUniqueId().toString();
-        lastInteractionCache.entrySet().removeIf(entry -> entry.getKey().contains(playerKey));
+        lastInteractionCache.invalidate(player.getUniqueId());
     }
 
     // ==========================================
-    // MÉTODOS AUXILIARES
+    // FLANCOS DE EQUIPAMIENTO
     // ==========================================
 
-    /**
-     * Mapea una acción de Bukkit a un TriggerType
-     */
-    private TriggerType mapActionToTrigger(Action action, boolean sneaking) {
-        switch (action) {
-            case RIGHT_CLICK_AIR:
-            case RIGHT_CLICK_BLOCK:
-                return sneaking ? TriggerType.SHIFT_RIGHT_CLICK : TriggerType.RIGHT_CLICK;
+    @Override
+    public void onEquip(Player player, EquipmentSlot slot, ItemDefinition definition) {
+        ActionContext context = new ActionContext.Builder(player, definition, TriggerType.ON_EQUIP)
+                .itemStack(player.getInventory().getItem(slot))
+                .equipmentSlot(slot)
+                .build();
 
-            case LEFT_CLICK_AIR:
-            case LEFT_CLICK_BLOCK:
-                return sneaking ? TriggerType.SHIFT_LEFT_CLICK : TriggerType.LEFT_CLICK;
+        actionDetector.detectAndExecute(player, definition, TriggerType.ON_EQUIP, context);
 
-            default:
-                return null;
-        }
+        // Iniciar monitoreo periódico si es necesario
+        actionDetector.startPeriodicMonitoring(player, definition);
     }
 
-    /**
-     * Verifica si un jugador está spammeando interacciones
-     */
-    private boolean isSpamming(Player player, TriggerType trigger) {
-        String key = player.getUniqueId() + ":" + trigger.name();
-        long currentTime = System.currentTimeMillis();
-        long lastTime = lastInteractionCache.getOrDefault(key, 0L);
+    @Override
+    public void onUnequip(Player player, EquipmentSlot slot, ItemDefinition definition) {
+        ActionContext context = new ActionContext.Builder(player, definition, TriggerType.ON_UNEQUIP)
+                .equipmentSlot(slot)
+                .build();
 
-        if (currentTime - lastTime < INTERACTION_COOLDOWN) {
-            return true;
-        }
+        actionDetector.detectAndExecute(player, definition, TriggerType.ON_UNEQUIP, context);
 
-        lastInteractionCache.put(key, currentTime);
-        return false;
+        // Detener monitoreo periódico y retirar las auras y los modificadores de daño ligados al equipo
+        actionDetector.stopPeriodicMonitoring(player, definition);
+        plugin.getAuraManager().revokeSource(player, definition);
+        plugin.getDamageModifiers().revokeSource(player, definition);
     }
 
     /**
-     * Verifica todos los ítems relevantes de un jugador para un trigger específico
+     * Inicia el monitoreo periódico de todos los ítems equipados según el snapshot
+     * (al unirse al servidor o tras recargar las definiciones)
      */
-    private void checkItemsForTrigger(Player player, TriggerType trigger,
-                                      java.util.function.Function<ActionContext.Builder, ActionContext> contextBuilder) {
-
-        // Verificar ítem en mano principal
-        ItemStack mainHand = player.getInventory().getItemInMainHand();
-        if (plugin.getItemRegistry().isCustomItem(mainHand)) {
-            ItemDefinition def = plugin.getItemRegistry().getDefinitionFromItemStack(mainHand);
-            ActionContext context = contextBuilder.apply(
-                    new ActionContext.Builder(player, def, trigger).itemStack(mainHand)
-            );
-            actionDetector.detectAndExecute(player, mainHand, trigger, context);
-        }
-
-        // Verificar armadura si el trigger no requiere estar en la mano
-        if (!trigger.requiresInHand()) {
-            for (ItemStack armor : player.getInventory().getArmorContents()) {
-                if (plugin.getItemRegistry().isCustomItem(armor)) {
-                    ItemDefinition def = plugin.getItemRegistry().getDefinitionFromItemStack(armor);
-                    ActionContext context = contextBuilder.apply(
-                            new ActionContext.Builder(player, def, trigger).itemStack(armor)
-                    );
-                    actionDetector.detectAndExecute(player, armor, trigger, context);
-                }
+    public void resumeMonitoring(Player player) {
+        EquipmentSnapshot snapshot = plugin.getEquipmentTracker().getSnapshot(player);
+        for (int i = 0; i < EquipmentSnapshot.TRACKED_SLOTS.length; i++) {
+            ItemDefinition definition = snapshot.get(i);
+            if (definition != null) {
+                actionDetector.startPeriodicMonitoring(player, definition);
             }
         }
     }
 
     /**
-     * Programa una verificación de equipamiento con delay
+     * Vuelve a disparar ON_EQUIP de todos los ítems equipados según el snapshot (tras recargar
+     * las definiciones), para que sus efectos queden registrados con las definiciones nuevas
      */
-    private void scheduleEquipmentCheck(Player player, ItemStack item) {
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (player.isOnline()) {
-                checkEquipmentChanges(player, item);
+    public void reequipAll(Player player) {
+        EquipmentSnapshot snapshot = plugin.getEquipmentTracker().getSnapshot(player);
+        for (int i = 0; i < EquipmentSnapshot.TRACKED_SLOTS.length; i++) {
+            ItemDefinition definition = snapshot.get(i);
+            // Un ítem en varios slots se equipa una sola vez, como en los flancos del tracker
+            if (definition != null && firstSlotOf(snapshot, definition) == i) {
+                onEquip(player, EquipmentSnapshot.TRACKED_SLOTS[i], definition);
             }
-        }, 1L);
+        }
     }
 
-    /**
-     * Programa un escaneo completo del equipamiento del jugador
-     */
-    private void scheduleEquipmentScan(Player player) {
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (player.isOnline()) {
-                scanPlayerEquipment(player);
+    private static int firstSlotOf(EquipmentSnapshot snapshot, ItemDefinition definition) {
+        for (int i = 0; i < EquipmentSnapshot.TRACKED_SLOTS.length; i++) {
+            if (snapshot.get(i) == definition) {
+                return i;
             }
-        }, 20L); // 1 segundo después del join
+        }
+        return -1;
     }
 
+    // ==========================================
+    // MÉTODOS AUXILIARES
+    // ==========================================
+
     /**
-     * Verifica cambios en el equipamiento y activa triggers correspondientes
+     * Mapea una acción de Bukkit a un TriggerType
      */
-    private void checkEquipmentChanges(Player player, ItemStack item) {
-        if (!plugin.getItemRegistry().isCustomItem(item)) {
-            return;
-        }
-
-        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(item);
-
-        // Verificar si el ítem está actualmente equipado
-        boolean equipped = isItemEquipped(player, item);
-
-        if (equipped) {
-            // Trigger ON_EQUIP
-            ActionContext context = new ActionContext.Builder(player, definition, TriggerType.ON_EQUIP)
-                    .itemStack(item)
-                    .build();
-
-            actionDetector.detectAndExecute(player, item, TriggerType.ON_EQUIP, context);
-
-            // Iniciar monitoreo periódico si es necesario
-            actionDetector.startPeriodicMonitoring(player, item);
-        } else {
-            // Trigger ON_UNEQUIP
-            ActionContext context = new ActionContext.Builder(player, definition, TriggerType.ON_UNEQUIP)
-                    .itemStack(item)
-                    .build();
+    private TriggerType mapActionToTrigger(Action action, boolean sneaking) {
+        switch (action) {
+            case RIGHT_CLICK_AIR:
+            case RIGHT_CLICK_BLOCK:
+                return sneaking ? TriggerType.SHIFT_RIGHT_CLICK : TriggerType.RIGHT_CLICK;
 
-            actionDetector.detectAndExecute(player, item, TriggerType.ON_UNEQUIP, context);
+            case LEFT_CLICK_AIR:
+            case LEFT_CLICK_BLOCK:
+                return sneaking ? TriggerType.SHIFT_LEFT_CLICK : TriggerType.LEFT_CLICK;
 
-            // Detener monitoreo periódico
-            actionDetector.stopPeriodicMonitoring(player, definition);
+            default:
+                return null;
         }
     }
 
     /**
-     * Escanea todo el equipamiento del jugador para inicializar triggers
+     * Clic derecho con armadura: se equipa directamente o se intercambia con la pieza puesta
+     * Hay que releer si entra o sale una pieza personalizada, aunque la del clic sea vanilla
      */
-    private void scanPlayerEquipment(Player player) {
-        // Escanear manos
-        ItemStack[] hands = {
-                player.getInventory().getItemInMainHand(),
-                player.getInventory().getItemInOffHand()
-        };
-
-        for (ItemStack item : hands) {
-            if (plugin.getItemRegistry().isCustomItem(item)) {
-                actionDetector.startPeriodicMonitoring(player, item);
-            }
+    private void refreshOnArmorSwap(Player player, ItemStack item, Action action) {
+        if (item == null || (action != Action.RIGHT_CLICK_AIR && action != Action.RIGHT_CLICK_BLOCK)
+                || !isArmorMaterial(item)) {
+            return;
         }
 
-        // Escanear armadura
-        for (ItemStack armor : player.getInventory().getArmorContents()) {
-            if (plugin.getItemRegistry().isCustomItem(armor)) {
-                actionDetector.startPeriodicMonitoring(player, armor);
-            }
+        ItemStack worn = player.getInventory().getItem(item.getType().getEquipmentSlot());
+        if (plugin.getItemRegistry().isCustomMaterial(item.getType())
+                || (worn != null && plugin.getItemRegistry().isCustomMaterial(worn.getType()))) {
+            plugin.getEquipmentTracker().scheduleRefresh(player);
         }
     }
 
     /**
-     * Verifica si un ítem está actualmente equipado por el jugador
+     * Verifica si el material del ítem se equipa en un slot de armadura
      */
-    private boolean isItemEquipped(Player player, ItemStack item) {
-        // Verificar manos
-        if (item.equals(player.getInventory().getItemInMainHand()) ||
-                item.equals(player.getInventory().getItemInOffHand())) {
-            return true;
+    private boolean isArmorMaterial(ItemStack item) {
+        EquipmentSlot equipSlot = item.getType().getEquipmentSlot();
+        return equipSlot != EquipmentSlot.HAND && equipSlot != EquipmentSlot.OFF_HAND;
+    }
+
+    /**
+     * Verifica si un jugador está spammeando interacciones
+     */
+    private boolean isSpamming(Player player, TriggerType trigger) {
+        long currentTime = System.currentTimeMillis();
+        long[] lastTimes = lastInteractionCache.get(player.getUniqueId());
+        if (lastTimes == null) {
+            lastTimes = new long[TRIGGER_COUNT];
         }
 
-        // Verificar armadura
-        for (ItemStack armor : player.getInventory().getArmorContents()) {
-            if (item.equals(armor)) {
-                return true;
-            }
+        if (currentTime - lastTimes[trigger.ordinal()] < INTERACTION_COOLDOWN) {
+            return true;
         }
 
+        lastTimes[trigger.ordinal()] = currentTime;
+        lastInteractionCache.put(player.getUniqueId(), lastTimes);
         return false;
     }
 
     /**
-     * Verifica si un slot es de armadura
+     * Verifica todos los ítems relevantes de un jugador para un trigger específico
+     * Se resuelven desde el snapshot de equipamiento, sin leer el ItemMeta
      */
-    private boolean isArmorSlot(int slot) {
-        return slot >= 36 && slot <= 39; // Slots de armadura en el inventario
+    private void checkItemsForTrigger(Player player, TriggerType trigger,
+                                      java.util.function.Function<ActionContext.Builder, ActionContext> contextBuilder) {
+
+        EquipmentSnapshot snapshot = plugin.getEquipmentTracker().getSnapshot(player);
+        if (!snapshot.hasTrigger(trigger)) {
+            return;
+        }
+
+        for (int i = 0; i < EquipmentSnapshot.TRACKED_SLOTS.length; i++) {
+            EquipmentSlot slot = EquipmentSnapshot.TRACKED_SLOTS[i];
+
+            // Mano principal siempre; armadura solo si el trigger no requiere estar en la mano
+            if (slot == EquipmentSlot.OFF_HAND || (trigger.requiresInHand() && slot != EquipmentSlot.HAND)) {
+                continue;
+            }
+
+            ItemDefinition definition = snapshot.get(i);
+            if (definition == null || !definition.hasTrigger(trigger)) {
+                continue;
+            }
+
+            ActionContext context = contextBuilder.apply(
+                    new ActionContext.Builder(player, definition, trigger)
+                            .itemStack(player.getInventory().getItem(slot))
+            );
+            actionDetector.detectAndExecute(player, definition, trigger, context);
+        }
     }
 
     /**
-     * Verifica si un slot es de la hotbar
+     * Estadísticas del cache de interacciones
      */
-    private boolean isHotbarSlot(int slot) {
-        return slot >= 0 && slot <= 8; // Slots de la hotbar
+    public Map<String, Object> getInteractionCacheStats() {
+        return lastInteractionCache.getStats();
     }
-}
\ No newline at end of file
+}
@@ -1,4 +1,252 @@
 package gc.grivyzom.listeners;
 
+import gc.grivyzom.VarietyMain;
+import gc.grivyzom.items.ItemDefinition;
+import gc.grivyzom.mechanics.TriggerType;
+import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.detection.ActionDetector;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.AbstractArrow;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Projectile;
+import org.bukkit.entity.ThrowableProjectile;
+import org.bukkit.entity.Trident;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.entity.EntityShootBowEvent;
+import org.bukkit.event.entity.ProjectileHitEvent;
+import org.bukkit.event.entity.ProjectileLaunchEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+/**
+ * Triggers de proyectiles: SHOOT_BOW, THROW_ITEM y HIT_TARGET
+ * Al lanzar un proyectil desde un ítem personalizado se etiqueta con el ID numérico del ítem y
+ * los datos del disparo; al impactar se despacha desde la etiqueta, sin volver a leer el
+ * inventario del tirador (que puede haber cambiado de ítem). Las etiquetas se guardan con
+ * referencias débiles al proyectil y caducan a los TAG_TTL ticks
+ */
 public class ProjectileListener {
+
+    // Vida máxima de una etiqueta (30 segundos); cubre flechas clavadas y tridentes que vuelven
+    private static final long TAG_TTL = 600L;
+
+    // Cada cuánto se eliminan las etiquetas caducadas mientras quede alguna
+    private static final long SWEEP_INTERVAL = 200L;
+
+    /**
+     * Datos del disparo guardados en el proyectil
+     */
+    private static final class ShotTag {
+        private final int definitionId;
+        private final UUID shooterId;
+        private final ItemStack item;
+        private final long expiresTick;
+
+        private ShotTag(int definitionId, UUID shooterId, ItemStack item, long expiresTick) {
+            this.definitionId = definitionId;
+            this.shooterId = shooterId;
+            this.item = item;
+            this.expiresTick = expiresTick;
+        }
+    }
+
+    private final VarietyMain plugin;
+    private final ActionDetector actionDetector;
+    private final Map<Projectile, ShotTag> tags;
+    private boolean sweepScheduled;
+
+    // Métricas
+    private long taggedTotal;
+    private long hitsDispatched;
+
+    public ProjectileListener(VarietyMain plugin, ActionDetector actionDetector) {
+        this.plugin = plugin;
+        this.actionDetector = actionDetector;
+        this.tags = new WeakHashMap<>();
+    }
+
+    /**
+     * Declara los handlers, que solo se registran mientras algún ítem use triggers de proyectiles
+     * El disparo y el lanzamiento también se necesitan para HIT_TARGET, porque etiquetan el proyectil
+     */
+    public void registerDynamicHandlers(DynamicHandlerRegistrar registrar) {
+        registrar.addHandler("shoot_bow", EntityShootBowEvent.class, EventPriority.HIGH, true,
+                this::onEntityShootBow, TriggerType.SHOOT_BOW, TriggerType.HIT_TARGET);
+        registrar.addHandler("throw_item", ProjectileLaunchEvent.class, EventPriority.HIGH, true,
+                this::onProjectileLaunch, TriggerType.THROW_ITEM, TriggerType.HIT_TARGET);
+        registrar.addHandler("hit_target", ProjectileHitEvent.class, EventPriority.HIGH, true,
+                this::onProjectileHit, TriggerType.HIT_TARGET);
+    }
+
+    // ==========================================
+    // LANZAMIENTO
+    // ==========================================
+
+    public void onEntityShootBow(EntityShootBowEvent event) {
+        if (!(event.getEntity() instanceof Player) || !(event.getProjectile() instanceof Projectile)) {
+            return;
+        }
+
+        Player player = (Player) event.getEntity();
+        ItemStack bow = event.getBow();
+        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(bow);
+        if (definition == null) {
+            return;
+        }
+
+        // Copia: el arco del evento refleja el del inventario, que puede cambiar o consumirse
+        ItemStack item = bow.clone();
+        tag((Projectile) event.getProjectile(), definition, player, item);
+
+        if (definition.hasTrigger(TriggerType.SHOOT_BOW)) {
+            ActionContext context = new ActionContext.Builder(player, definition, TriggerType.SHOOT_BOW)
+                    .itemStack(item)
+                    .equipmentSlot(event.getHand())
+                    .additionalData(String.valueOf(event.getForce()))
+                    .build();
+
+            actionDetector.detectAndExecute(player, definition, TriggerType.SHOOT_BOW, context);
+        }
+    }
+
+    public void onProjectileLaunch(ProjectileLaunchEvent event) {
+        Projectile projectile = event.getEntity();
+        if (!(projectile.getShooter() instanceof Player) || tags.containsKey(projectile)) {
+            // Sin tirador jugador, o flecha ya etiquetada en EntityShootBowEvent
+            return;
+        }
+
+        Player player = (Player) projectile.getShooter();
+        ItemStack item = thrownItem(player, projectile);
+        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(item);
+        if (definition == null) {
+            return;
+        }
+
+        tag(projectile, definition, player, item);
+
+        if (definition.hasTrigger(TriggerType.THROW_ITEM)) {
+            ActionContext context = new ActionContext.Builder(player, definition, TriggerType.THROW_ITEM)
+                    .itemStack(item)
+                    .build();
+
+            actionDetector.detectAndExecute(player, definition, TriggerType.THROW_ITEM, context);
+        }
+    }
+
+    /**
+     * Ítem que originó un proyectil lanzado a mano (bola de nieve, poción, perla, tridente)
+     */
+    private static ItemStack thrownItem(Player player, Projectile projectile) {
+        if (projectile instanceof ThrowableProjectile) {
+            return ((ThrowableProjectile) projectile).getItem();
+        }
+
+        if (projectile instanceof Trident) {
+            ItemStack mainHand = player.getInventory().getItemInMainHand();
+            ItemStack item = mainHand != null && mainHand.getType() == Material.TRIDENT
+                    ? mainHand : player.getInventory().getItemInOffHand();
+            return item != null ? item.clone() : null;
+        }
+
+        // Flechas de dispensadores u otras fuentes, bolas de fuego...
+        return null;
+    }
+
+    private void tag(Projectile projectile, ItemDefinition definition, Player player, ItemStack item) {
+        long now = plugin.getTickDriver().getCurrentTick();
+        tags.put(projectile, new ShotTag(definition.getNumericId(), player.getUniqueId(), item, now + TAG_TTL));
+        taggedTotal++;
+        scheduleSweep();
+    }
+
+    // ==========================================
+    // IMPACTO
+    // ==========================================
+
+    public void onProjectileHit(ProjectileHitEvent event) {
+        ShotTag tag = tags.get(event.getEntity());
+        if (tag == null || tag.expiresTick < plugin.getTickDriver().getCurrentTick()) {
+            return;
+        }
+
+        Player player = plugin.getServer().getPlayer(tag.shooterId);
+        ItemDefinition definition = plugin.getItemRegistry().getItemDefinition(tag.definitionId);
+        if (player == null || definition == null || !definition.hasTrigger(TriggerType.HIT_TARGET)) {
+            return;
+        }
+
+        Entity hitEntity = event.getHitEntity();
+        Location hitLocation = hitEntity != null ? hitEntity.getLocation()
+                : event.getHitBlock() != null ? event.getHitBlock().getLocation()
+                : event.getEntity().getLocation();
+
+        ActionContext context = new ActionContext.Builder(player, definition, TriggerType.HIT_TARGET)
+                .itemStack(tag.item)
+                .target(hitEntity)
+                .targetLocation(hitLocation)
+                .build();
+
+        if (actionDetector.detectAndExecute(player, definition, TriggerType.HIT_TARGET, context)) {
+            hitsDispatched++;
+        }
+
+        // Una bola de nieve o poción desaparece al impactar; una flecha clavada ya no vuelve a golpear
+        if (!(event.getEntity() instanceof AbstractArrow) || hitEntity == null) {
+            tags.remove(event.getEntity());
+        }
+    }
+
+    // ==========================================
+    // CADUCIDAD
+    // ==========================================
+
+    private void scheduleSweep() {
+        if (!sweepScheduled) {
+            sweepScheduled = true;
+            plugin.getTickDriver().schedule(SWEEP_INTERVAL, this::sweep);
+        }
+    }
+
+    /**
+     * Elimina las etiquetas caducadas o de proyectiles que ya no existen
+     */
+    private void sweep() {
+        sweepScheduled = false;
+        long now = plugin.getTickDriver().getCurrentTick();
+
+        Iterator<Map.Entry<Projectile, ShotTag>> iterator = tags.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Projectile, ShotTag> entry = iterator.next();
+            if (entry.getValue().expiresTick < now || !entry.getKey().isValid()) {
+                iterator.remove();
+            }
+        }
+
+        if (!tags.isEmpty()) {
+            scheduleSweep();
+        }
+    }
+
+    /**
+     * Descarta todas las etiquetas (al deshabilitar)
+     */
+    public void clear() {
+        tags.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("tagged_active", tags.size());
+        stats.put("tagged_total", taggedTotal);
+        stats.put("hits_dispatched", hitsDispatched);
+        return stats;
+    }
 }
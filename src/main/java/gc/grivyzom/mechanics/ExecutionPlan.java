@@ -0,0 +1,192 @@
+package gc.grivyzom.mechanics;
+
+import gc.grivyzom.mechanics.actions.Action;
+import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.conditions.CompiledCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Plan de ejecución inmutable de un trigger de un ítem, compilado al cargar
+ * Reúne las condiciones compiladas, las acciones inmediatas, las retrasadas agrupadas por
+ * retraso y la política de cooldown y consumo, de modo que ejecutar un trigger es recorrer
+ * arreglos. No depende del plugin: puede ejecutarse y medirse con cualquier Runner
+ */
+public final class ExecutionPlan {
+
+    /**
+     * Ejecuta las acciones que el plan decide lanzar
+     */
+    public interface Runner {
+        /**
+         * Ejecuta una acción en el momento
+         */
+        void runNow(Action action, ActionContext context);
+
+        /**
+         * Ejecuta un grupo de acciones tras un retraso (una sola tarea para todo el grupo)
+         */
+        void runLater(long delayTicks, Action[] actions, ActionContext context);
+    }
+
+    private static final Action[] NO_ACTIONS = new Action[0];
+
+    /**
+     * Plan de un trigger sin acciones
+     */
+    public static final ExecutionPlan EMPTY = new ExecutionPlan(CompiledCondition.ALWAYS, NO_ACTIONS,
+            new long[0], new Action[0][], 0, false, false);
+
+    private final CompiledCondition guard;
+    private final Action[] immediate;
+    private final long[] delays;
+    private final Action[][] delayed;
+    private final int cooldown;
+    private final boolean cooldownNotify;
+    private final boolean consumable;
+    private final int actionCount;
+
+    private ExecutionPlan(CompiledCondition guard, Action[] immediate, long[] delays, Action[][] delayed,
+                          int cooldown, boolean cooldownNotify, boolean consumable) {
+        this.guard = guard;
+        this.immediate = immediate;
+        this.delays = delays;
+        this.delayed = delayed;
+        this.cooldown = cooldown;
+        this.cooldownNotify = cooldownNotify;
+        this.consumable = consumable;
+
+        int count = immediate.length;
+        for (Action[] group : delayed) {
+            count += group.length;
+        }
+        this.actionCount = count;
+    }
+
+    /**
+     * Compila el plan de un trigger
+     * @param actions Acciones del trigger en orden de configuración
+     * @param condition Condiciones compiladas del trigger (null: siempre)
+     * @param cooldown Cooldown del ítem en segundos
+     */
+    public static ExecutionPlan compile(List<Action> actions, CompiledCondition condition, int cooldown,
+                                        boolean cooldownNotify, boolean consumable) {
+        if (actions == null || actions.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<Action> immediate = new ArrayList<>();
+        TreeMap<Long, List<Action>> byDelay = new TreeMap<>();
+        for (Action action : actions) {
+            if (action.getDelay() > 0) {
+                byDelay.computeIfAbsent((long) action.getDelay(), delay -> new ArrayList<>()).add(action);
+            } else {
+                immediate.add(action);
+            }
+        }
+
+        long[] delays = new long[byDelay.size()];
+        Action[][] delayed = new Action[byDelay.size()][];
+        int i = 0;
+        for (var entry : byDelay.entrySet()) {
+            delays[i] = entry.getKey();
+            delayed[i] = entry.getValue().toArray(NO_ACTIONS);
+            i++;
+        }
+
+        CompiledCondition guard = condition != null ? condition : CompiledCondition.ALWAYS;
+        return new ExecutionPlan(guard, immediate.toArray(NO_ACTIONS), delays, delayed,
+                cooldown, cooldownNotify, consumable);
+    }
+
+    /**
+     * Evalúa las condiciones y lanza las acciones que pueden ejecutarse
+     * @return true si se lanzó alguna acción (inmediata o retrasada)
+     */
+    public boolean run(ActionContext context, Runner runner) {
+        if (actionCount == 0 || !guard.test(context)) {
+            return false;
+        }
+
+        boolean anyExecuted = false;
+
+        for (Action action : immediate) {
+            if (action.canExecute(context)) {
+                runner.runNow(action, context);
+                anyExecuted = true;
+            }
+        }
+
+        for (int i = 0; i < delayed.length; i++) {
+            Action[] group = eligible(delayed[i], context);
+            if (group.length > 0) {
+                runner.runLater(delays[i], group, context);
+                anyExecuted = true;
+            }
+        }
+
+        return anyExecuted;
+    }
+
+    /**
+     * Acciones de un grupo que pueden ejecutarse; el propio grupo si son todas (caso habitual)
+     * Cada acción se comprueba una sola vez
+     */
+    private static Action[] eligible(Action[] group, ActionContext context) {
+        Action[] result = null;
+        int count = 0;
+        for (int i = 0; i < group.length; i++) {
+            if (group[i].canExecute(context)) {
+                if (result != null) {
+                    result[count] = group[i];
+                }
+                count++;
+            } else if (result == null) {
+                // Primera descartada: a partir de aquí se copian las que pasan
+                result = new Action[group.length];
+                System.arraycopy(group, 0, result, 0, count);
+            }
+        }
+
+        if (result == null) {
+            return group;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    public CompiledCondition getGuard() { return guard; }
+    public int getCooldown() { return cooldown; }
+    public boolean isCooldownNotify() { return cooldownNotify; }
+    public boolean isConsumable() { return consumable; }
+    public int getActionCount() { return actionCount; }
+
+    public boolean isEmpty() {
+        return actionCount == 0;
+    }
+
+    /**
+     * Descripción del plan para depuración
+     */
+    public String describe() {
+        StringBuilder description = new StringBuilder()
+                .append(immediate.length).append(" inmediatas");
+        for (int i = 0; i < delays.length; i++) {
+            description.append(", ").append(delayed[i].length).append(" a ").append(delays[i]).append(" ticks");
+        }
+        if (cooldown > 0) {
+            description.append(", cooldown ").append(cooldown).append("s");
+        }
+        if (consumable) {
+            description.append(", consumible");
+        }
+        return description.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionPlan{" + describe() + '}';
+    }
+}
@@ -0,0 +1,88 @@
+package gc.grivyzom.mechanics;
+
+import gc.grivyzom.items.ItemDefinition;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Índice inmutable de los triggers que usa al menos un ítem cargado
+ * Se reconstruye completo en cada carga y se publica como instancia nueva, de modo
+ * que quien lo lea nunca ve un estado a medias
+ */
+public final class TriggerSubscriptionIndex {
+
+    private static final TriggerSubscriptionIndex EMPTY = new TriggerSubscriptionIndex(0L, new int[TriggerType.count()]);
+
+    // Unión de las máscaras de triggers de todas las definiciones
+    private final long mask;
+
+    // Número de ítems que declaran cada trigger, indexado por ordinal
+    private final int[] itemCounts;
+
+    private TriggerSubscriptionIndex(long mask, int[] itemCounts) {
+        this.mask = mask;
+        this.itemCounts = itemCounts;
+    }
+
+    /**
+     * Construye el índice a partir de las definiciones registradas
+     */
+    public static TriggerSubscriptionIndex build(Collection<ItemDefinition> definitions) {
+        long mask = 0L;
+        int[] itemCounts = new int[TriggerType.count()];
+
+        for (ItemDefinition definition : definitions) {
+            long definitionMask = definition.getTriggerMask();
+            mask |= definitionMask;
+
+            while (definitionMask != 0L) {
+                itemCounts[Long.numberOfTrailingZeros(definitionMask)]++;
+                definitionMask &= definitionMask - 1;
+            }
+        }
+
+        return new TriggerSubscriptionIndex(mask, itemCounts);
+    }
+
+    public static TriggerSubscriptionIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Verifica si algún ítem usa este trigger
+     */
+    public boolean isSubscribed(TriggerType trigger) {
+        return (mask & trigger.mask()) != 0L;
+    }
+
+    /**
+     * Verifica si algún ítem usa cualquiera de los triggers de la máscara
+     * (por ejemplo TriggerType.CLICK_TRIGGERS para descartar una categoría entera)
+     */
+    public boolean isAnySubscribed(long triggers) {
+        return (mask & triggers) != 0L;
+    }
+
+    public long getMask() {
+        return mask;
+    }
+
+    /**
+     * Obtiene cuántos ítems declaran un trigger
+     */
+    public int getItemCount(TriggerType trigger) {
+        return itemCounts[trigger.ordinal()];
+    }
+
+    public Set<TriggerType> getSubscribedTriggers() {
+        EnumSet<TriggerType> subscribed = EnumSet.noneOf(TriggerType.class);
+        for (int i = 0; i < itemCounts.length; i++) {
+            if (itemCounts[i] > 0) {
+                subscribed.add(TriggerType.fromOrdinal(i));
+            }
+        }
+        return subscribed;
+    }
+}
@@ -62,6 +62,17 @@ public enum TriggerType {
     PLAYER_JOIN("player_join", "Jugador se une"),
     PLAYER_QUIT("player_quit", "Jugador se va");
 
+    // Máscaras por categoría: permiten descartar trabajo cuando ningún ítem usa esos triggers
+    public static final long CLICK_TRIGGERS = maskOf(RIGHT_CLICK, LEFT_CLICK, SHIFT_RIGHT_CLICK, SHIFT_LEFT_CLICK);
+    public static final long COMBAT_TRIGGERS = maskOf(ATTACK_ENTITY, KILL_ENTITY, DAMAGE_TAKEN, CRITICAL_HIT);
+    public static final long CONSUME_TRIGGERS = maskOf(CONSUME, EAT, DRINK);
+    public static final long MOVEMENT_TRIGGERS = maskOf(SPRINT, SNEAK, JUMP, FALL);
+    public static final long EQUIPMENT_TRIGGERS = maskOf(ON_EQUIP, ON_UNEQUIP, WHILE_HELD, PERIODIC);
+    public static final long PROJECTILE_TRIGGERS = maskOf(SHOOT_BOW, THROW_ITEM, HIT_TARGET);
+
+    // Copia única de values() para recorridos sin reservar memoria
+    private static final TriggerType[] VALUES = values();
+
     private final String configKey;
     private final String displayName;
 
@@ -84,13 +95,45 @@ public enum TriggerType {
         return displayName;
     }
 
+    /**
+     * Bit de este trigger en las máscaras de triggers (hay menos de 64 triggers)
+     */
+    public long mask() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Construye una máscara con varios triggers
+     */
+    public static long maskOf(TriggerType... triggers) {
+        long mask = 0L;
+        for (TriggerType trigger : triggers) {
+            mask |= trigger.mask();
+        }
+        return mask;
+    }
+
+    /**
+     * Obtiene el trigger por su ordinal (posición en las tablas indexadas por trigger)
+     */
+    public static TriggerType fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Número de triggers, para dimensionar tablas indexadas por ordinal
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+
     /**
      * Busca un TriggerType por su clave de configuración
      * @param configKey La clave del trigger en el YAML
      * @return El TriggerType correspondiente o null si no existe
      */
     public static TriggerType fromConfigKey(String configKey) {
-        for (TriggerType trigger : values()) {
+        for (TriggerType trigger : VALUES) {
             if (trigger.getConfigKey().equalsIgnoreCase(configKey)) {
                 return trigger;
             }
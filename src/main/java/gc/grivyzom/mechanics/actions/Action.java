@@ -63,6 +63,13 @@ public abstract class Action {
                 type, requiresTarget ? "required" : "optional", delay);
     }
 
+    /**
+     * Prioridad frente al presupuesto por tick; las subclases la ajustan según su efecto
+     */
+    public ActionPriority getPriority() {
+        return ActionPriority.NORMAL;
+    }
+
     // Getters
     public String getType() { return type; }
     public boolean requiresTarget() { return requiresTarget; }
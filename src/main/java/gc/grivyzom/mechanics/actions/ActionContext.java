@@ -5,6 +5,7 @@ import gc.grivyzom.mechanics.TriggerType;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 
 /**
@@ -19,6 +20,9 @@ public class ActionContext {
     private final ItemStack itemStack;
     private final TriggerType trigger;
 
+    // Slot donde está equipado el ítem (solo en ON_EQUIP, ON_UNEQUIP y WHILE_HELD)
+    private final EquipmentSlot equipmentSlot;
+
     // Información de ubicación
     private final Location location;
     private final Location targetLocation;
@@ -40,6 +44,7 @@ public class ActionContext {
         this.itemDefinition = builder.itemDefinition;
         this.itemStack = builder.itemStack;
         this.trigger = builder.trigger;
+        this.equipmentSlot = builder.equipmentSlot;
         this.location = builder.location;
         this.targetLocation = builder.targetLocation;
         this.target = builder.target;
@@ -54,6 +59,7 @@ public class ActionContext {
     public ItemDefinition getItemDefinition() { return itemDefinition; }
     public ItemStack getItemStack() { return itemStack; }
     public TriggerType getTrigger() { return trigger; }
+    public EquipmentSlot getEquipmentSlot() { return equipmentSlot; }
     public Location getLocation() { return location; }
     public Location getTargetLocation() { return targetLocation; }
     public Entity getTarget() { return target; }
@@ -68,6 +74,7 @@ public class ActionContext {
     public boolean hasTarget() { return target != null; }
     public boolean hasTargetPlayer() { return targetPlayer != null; }
     public boolean hasTargetLocation() { return targetLocation != null; }
+    public boolean hasEquipmentSlot() { return equipmentSlot != null; }
     public boolean hasAdditionalData() { return additionalData != null && !additionalData.isEmpty(); }
 
     /**
@@ -81,6 +88,7 @@ public class ActionContext {
 
         // Campos opcionales
         private ItemStack itemStack;
+        private EquipmentSlot equipmentSlot;
         private Location location;
         private Location targetLocation;
         private Entity target;
@@ -101,6 +109,11 @@ public class ActionContext {
             return this;
         }
 
+        public Builder equipmentSlot(EquipmentSlot equipmentSlot) {
+            this.equipmentSlot = equipmentSlot;
+            return this;
+        }
+
         public Builder location(Location location) {
             this.location = location;
             return this;
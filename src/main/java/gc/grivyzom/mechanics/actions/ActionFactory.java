@@ -0,0 +1,21 @@
+package gc.grivyzom.mechanics.actions;
+
+import gc.grivyzom.mechanics.conditions.Condition;
+
+import java.util.List;
+
+/**
+ * Crea instancias de un tipo de acción a partir de sus parámetros ya convertidos
+ * Se llama una vez por acción al cargar items.yml
+ */
+@FunctionalInterface
+public interface ActionFactory {
+
+    /**
+     * @param parameters Parámetros de la acción según el esquema registrado
+     * @param conditions Condiciones del trigger tal como se leyeron
+     * @param delay Retraso en ticks
+     * @return La acción, o null para descartarla
+     */
+    Action create(ActionParameters parameters, List<Condition> conditions, int delay);
+}
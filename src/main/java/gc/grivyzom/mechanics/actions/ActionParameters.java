@@ -0,0 +1,71 @@
+package gc.grivyzom.mechanics.actions;
+
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.potion.PotionEffectType;
+
+/**
+ * Valores ya convertidos de los parámetros de una acción, según su ActionSchema
+ * Se crea una vez al cargar; las fábricas copian los valores a campos de la acción
+ */
+public final class ActionParameters {
+
+    private final ActionSchema schema;
+    private final Object[] values;
+
+    ActionParameters(ActionSchema schema, Object[] values) {
+        this.schema = schema;
+        this.values = values;
+    }
+
+    public double getDouble(String name) {
+        return ((Number) get(name, ActionSchema.ParameterType.NUMBER, ActionSchema.ParameterType.INTEGER)).doubleValue();
+    }
+
+    public float getFloat(String name) {
+        return (float) getDouble(name);
+    }
+
+    public int getInt(String name) {
+        return (Integer) get(name, ActionSchema.ParameterType.INTEGER);
+    }
+
+    public String getString(String name) {
+        return (String) get(name, ActionSchema.ParameterType.TEXT);
+    }
+
+    public boolean getBoolean(String name) {
+        return (Boolean) get(name, ActionSchema.ParameterType.BOOLEAN);
+    }
+
+    public PotionEffectType getPotionEffect(String name) {
+        return (PotionEffectType) get(name, ActionSchema.ParameterType.POTION_EFFECT);
+    }
+
+    public Sound getSound(String name) {
+        return (Sound) get(name, ActionSchema.ParameterType.SOUND);
+    }
+
+    public Particle getParticle(String name) {
+        return (Particle) get(name, ActionSchema.ParameterType.PARTICLE);
+    }
+
+    /**
+     * Valor de un parámetro declarado con alguno de los tipos indicados
+     * @throws IllegalArgumentException Si no está declarado o su tipo no coincide (error de la fábrica)
+     */
+    private Object get(String name, ActionSchema.ParameterType... types) {
+        int index = schema.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Parámetro no declarado en el esquema: " + name);
+        }
+
+        ActionSchema.ParameterType declared = schema.getParameters().get(index).getType();
+        for (ActionSchema.ParameterType type : types) {
+            if (type == declared) {
+                return values[index];
+            }
+        }
+        throw new IllegalArgumentException("El parámetro " + name + " es de tipo " + declared.getDisplayName());
+    }
+}
@@ -0,0 +1,23 @@
+package gc.grivyzom.mechanics.actions;
+
+/**
+ * Prioridad de una acción frente al presupuesto de acciones por tick
+ */
+public enum ActionPriority {
+
+    /**
+     * Se ejecuta siempre en el momento (modifica el combate o cobra un coste)
+     */
+    CRITICAL,
+
+    /**
+     * Se aplaza a ticks siguientes si el tick actual ya agotó su presupuesto
+     */
+    NORMAL,
+
+    /**
+     * Solo visual o sonora: se aplaza igual que NORMAL, pero se descarta si espera demasiado
+     * o si la cola está llena
+     */
+    COSMETIC
+}
@@ -0,0 +1,258 @@
+package gc.grivyzom.mechanics.actions;
+
+import gc.grivyzom.VarietyMain;
+import gc.grivyzom.mechanics.actions.impl.ApplyPotionAction;
+import gc.grivyzom.mechanics.actions.impl.AreaDamageAction;
+import gc.grivyzom.mechanics.actions.impl.AreaHealAction;
+import gc.grivyzom.mechanics.actions.impl.AreaIgniteAction;
+import gc.grivyzom.mechanics.actions.impl.AreaPullAction;
+import gc.grivyzom.mechanics.actions.impl.ConsumeExperienceAction;
+import gc.grivyzom.mechanics.actions.impl.DamageBoostAction;
+import gc.grivyzom.mechanics.actions.impl.HealPlayerAction;
+import gc.grivyzom.mechanics.actions.impl.LaunchPlayerAction;
+import gc.grivyzom.mechanics.actions.impl.PlaySoundAction;
+import gc.grivyzom.mechanics.actions.impl.RemovePotionAction;
+import gc.grivyzom.mechanics.actions.impl.SendMessageAction;
+import gc.grivyzom.mechanics.actions.impl.SetFireAction;
+import gc.grivyzom.mechanics.actions.impl.SpawnParticlesAction;
+import gc.grivyzom.mechanics.actions.impl.TeleportForwardAction;
+import gc.grivyzom.util.EntityQueries;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de tipos de acción: cada tipo declara su esquema de parámetros y una fábrica
+ * Otros plugins pueden registrar acciones propias; si lo hacen después de cargar los ítems,
+ * items.yml se vuelve a cargar en el siguiente tick para que las usen
+ */
+public class ActionRegistry {
+
+    /**
+     * Un tipo de acción registrado
+     */
+    public static final class ActionType {
+        private final String name;
+        private final ActionSchema schema;
+        private final ActionFactory factory;
+
+        private ActionType(String name, ActionSchema schema, ActionFactory factory) {
+            this.name = name;
+            this.schema = schema;
+            this.factory = factory;
+        }
+
+        public String getName() { return name; }
+        public ActionSchema getSchema() { return schema; }
+        public ActionFactory getFactory() { return factory; }
+    }
+
+    private final VarietyMain plugin;
+    private final Map<String, ActionType> types;
+    private boolean reloadScheduled;
+
+    public ActionRegistry(VarietyMain plugin) {
+        this.plugin = plugin;
+        this.types = new ConcurrentHashMap<>();
+        registerDefaultActions();
+    }
+
+    /**
+     * Registra un tipo de acción (reemplaza al existente con el mismo nombre)
+     * @param name Valor de "type" en items.yml (sin distinguir mayúsculas)
+     * @param schema Parámetros que acepta
+     * @param factory Crea la acción con los parámetros ya convertidos
+     */
+    public void registerAction(String name, ActionSchema schema, ActionFactory factory) {
+        String key = name.toLowerCase();
+        types.put(key, new ActionType(key, schema, factory));
+        plugin.getLogger().info("Acción registrada: " + key);
+
+        if (plugin.getItemRegistry() != null) {
+            scheduleItemReload();
+        }
+    }
+
+    /**
+     * Elimina un tipo de acción; los ítems ya cargados conservan sus instancias hasta recargar
+     * @return true si existía
+     */
+    public boolean unregisterAction(String name) {
+        return types.remove(name.toLowerCase()) != null;
+    }
+
+    /**
+     * Obtiene un tipo de acción, o null si no está registrado
+     */
+    public ActionType getAction(String name) {
+        return types.get(name.toLowerCase());
+    }
+
+    public Set<String> getActionTypes() {
+        return Collections.unmodifiableSet(types.keySet());
+    }
+
+    /**
+     * Recarga los ítems una sola vez en el siguiente tick, aunque se registren varias acciones
+     */
+    private void scheduleItemReload() {
+        if (reloadScheduled) {
+            return;
+        }
+        reloadScheduled = true;
+
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            reloadScheduled = false;
+            plugin.getLogger().info("Nuevas acciones registradas: recargando ítems");
+            plugin.reloadItems();
+        });
+    }
+
+    /**
+     * Registra las acciones incluidas en el plugin
+     */
+    private void registerDefaultActions() {
+        register("heal_player", ActionSchema.builder().number("value", 1.0).build(),
+                (parameters, conditions, delay) ->
+                        new HealPlayerAction(parameters.getDouble("value"), conditions, delay));
+
+        register("damage_boost", ActionSchema.builder()
+                        .number("value", 1.0)
+                        .number("multiplier", 1.0)
+                        .integer("duration", 3)
+                        .build(),
+                (parameters, conditions, delay) -> {
+                    double multiplier = parameters.getDouble("multiplier");
+                    if (multiplier < 0) {
+                        throw new IllegalArgumentException("multiplier no puede ser negativo, se recibió " + multiplier);
+                    }
+                    int duration = parameters.getInt("duration");
+                    if (duration < -1 || duration == 0) {
+                        throw new IllegalArgumentException("duration debe ser -1 (mientras esté equipado) o positivo, se recibió " + duration);
+                    }
+                    return new DamageBoostAction(plugin.getDamageModifiers(), parameters.getDouble("value"),
+                            multiplier, duration, conditions, delay);
+                });
+
+        register("apply_potion", ActionSchema.builder()
+                        .potionEffect("effect", "speed")
+                        .integer("duration", 60)
+                        .integer("amplifier", 0)
+                        .build(),
+                (parameters, conditions, delay) -> {
+                    int duration = parameters.getInt("duration");
+                    if (duration < -1) {
+                        throw new IllegalArgumentException("duration debe ser -1 (infinito) o positivo, se recibió " + duration);
+                    }
+                    return new ApplyPotionAction(plugin.getAuraManager(), parameters.getPotionEffect("effect"), duration,
+                            parameters.getInt("amplifier"), conditions, delay);
+                });
+
+        register("remove_potion", ActionSchema.builder().potionEffect("effect", "speed").build(),
+                (parameters, conditions, delay) ->
+                        new RemovePotionAction(plugin.getAuraManager(), parameters.getPotionEffect("effect"),
+                                conditions, delay));
+
+        register("play_sound", ActionSchema.builder()
+                        .sound("sound", "ENTITY_PLAYER_LEVELUP")
+                        .number("volume", 1.0)
+                        .number("pitch", 1.0)
+                        .build(),
+                (parameters, conditions, delay) -> new PlaySoundAction(parameters.getSound("sound"),
+                        parameters.getFloat("volume"), parameters.getFloat("pitch"), conditions, delay));
+
+        register("spawn_particles", ActionSchema.builder()
+                        .particle("particle", "FLAME")
+                        .integer("amount", 10)
+                        .build(),
+                (parameters, conditions, delay) -> {
+                    int amount = parameters.getInt("amount");
+                    if (amount <= 0) {
+                        throw new IllegalArgumentException("amount debe ser mayor que 0, se recibió " + amount);
+                    }
+                    return new SpawnParticlesAction(plugin.getParticleDispatcher(), parameters.getParticle("particle"),
+                            amount, conditions, delay);
+                });
+
+        register("send_message", ActionSchema.builder().text("message", "").build(),
+                (parameters, conditions, delay) ->
+                        new SendMessageAction(parameters.getString("message"), conditions, delay));
+
+        register("teleport_forward", ActionSchema.builder().number("distance", 5.0).build(),
+                (parameters, conditions, delay) ->
+                        new TeleportForwardAction(plugin.getMovementResolver(), parameters.getDouble("distance"),
+                                conditions, delay));
+
+        register("launch_player", ActionSchema.builder().number("power", 1.0).build(),
+                (parameters, conditions, delay) ->
+                        new LaunchPlayerAction(plugin.getMovementResolver(), parameters.getDouble("power"),
+                                conditions, delay));
+
+        register("consume_experience", ActionSchema.builder().integer("levels", 1).build(),
+                (parameters, conditions, delay) ->
+                        new ConsumeExperienceAction(parameters.getInt("levels"), conditions, delay));
+
+        register("set_fire", ActionSchema.builder().integer("duration", 5).build(),
+                (parameters, conditions, delay) ->
+                        new SetFireAction(parameters.getInt("duration"), conditions, delay));
+
+        // Acciones de área: consultan las entidades cercanas
+        register("area_damage", ActionSchema.builder()
+                        .number("radius", 5.0)
+                        .number("amount", 4.0)
+                        .text("targets", "enemies")
+                        .build(),
+                (parameters, conditions, delay) -> new AreaDamageAction(plugin.getEntityQueries(),
+                        radius(parameters), parameters.getDouble("amount"), targets(parameters), conditions, delay));
+
+        register("area_ignite", ActionSchema.builder()
+                        .number("radius", 5.0)
+                        .integer("duration", 5)
+                        .text("targets", "enemies")
+                        .build(),
+                (parameters, conditions, delay) -> new AreaIgniteAction(plugin.getEntityQueries(),
+                        radius(parameters), parameters.getInt("duration"), targets(parameters), conditions, delay));
+
+        register("area_pull", ActionSchema.builder()
+                        .number("radius", 8.0)
+                        .number("strength", 1.0)
+                        .text("targets", "mobs")
+                        .build(),
+                (parameters, conditions, delay) -> new AreaPullAction(plugin.getEntityQueries(),
+                        radius(parameters), parameters.getDouble("strength"), targets(parameters), conditions, delay));
+
+        register("area_heal", ActionSchema.builder()
+                        .number("radius", 5.0)
+                        .number("amount", 4.0)
+                        .build(),
+                (parameters, conditions, delay) -> new AreaHealAction(plugin.getEntityQueries(),
+                        radius(parameters), parameters.getDouble("amount"), conditions, delay));
+    }
+
+    private static double radius(ActionParameters parameters) {
+        double radius = parameters.getDouble("radius");
+        if (radius <= 0 || radius > EntityQueries.MAX_RADIUS) {
+            throw new IllegalArgumentException("radius debe estar entre 0 y " + EntityQueries.MAX_RADIUS
+                    + ", se recibió " + radius);
+        }
+        return radius;
+    }
+
+    private static EntityQueries.Filter targets(ActionParameters parameters) {
+        String name = parameters.getString("targets");
+        EntityQueries.Filter filter = EntityQueries.Filter.fromName(name);
+        if (filter == null) {
+            throw new IllegalArgumentException("targets debe ser enemies, mobs, players o all, se recibió '" + name + "'");
+        }
+        return filter;
+    }
+
+    /**
+     * Registro interno, sin log ni recarga
+     */
+    private void register(String name, ActionSchema schema, ActionFactory factory) {
+        types.put(name, new ActionType(name, schema, factory));
+    }
+}
@@ -0,0 +1,321 @@
+package gc.grivyzom.mechanics.actions;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.Particle;
+import org.bukkit.Registry;
+import org.bukkit.Sound;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Parámetros que declara un tipo de acción, con su tipo y valor por defecto
+ * Al cargar los ítems, bind() convierte el mapa de items.yml en un ActionParameters tipado:
+ * los números se validan y las partículas, sonidos y efectos se resuelven una sola vez
+ */
+public final class ActionSchema {
+
+    /**
+     * Claves comunes a todas las acciones, leídas por el parser
+     */
+    private static final List<String> RESERVED_KEYS = List.of("type", "delay");
+
+    /**
+     * Tipos de parámetro soportados
+     */
+    public enum ParameterType {
+        NUMBER("número"),
+        INTEGER("entero"),
+        TEXT("texto"),
+        BOOLEAN("booleano"),
+        POTION_EFFECT("efecto de poción"),
+        SOUND("sonido"),
+        PARTICLE("partícula");
+
+        private final String displayName;
+
+        ParameterType(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * Un parámetro declarado
+     */
+    public static final class Parameter {
+        private final String name;
+        private final ParameterType type;
+        private final Object defaultValue;
+
+        private Parameter(String name, ParameterType type, Object defaultValue) {
+            this.name = name;
+            this.type = type;
+            this.defaultValue = defaultValue;
+        }
+
+        public String getName() { return name; }
+        public ParameterType getType() { return type; }
+        public Object getDefaultValue() { return defaultValue; }
+
+        @Override
+        public String toString() {
+            return name + " (" + type.getDisplayName() + ", por defecto " + defaultValue + ")";
+        }
+    }
+
+    /**
+     * Esquema de una acción sin parámetros
+     */
+    public static final ActionSchema EMPTY = builder().build();
+
+    private final Parameter[] parameters;
+    private final Map<String, Integer> indexByName;
+
+    private ActionSchema(List<Parameter> parameters) {
+        this.parameters = parameters.toArray(new Parameter[0]);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < this.parameters.length; i++) {
+            index.put(this.parameters[i].name, i);
+        }
+        this.indexByName = index;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<Parameter> getParameters() {
+        return List.of(parameters);
+    }
+
+    /**
+     * Posición de un parámetro, o -1 si no está declarado
+     */
+    int indexOf(String name) {
+        Integer index = indexByName.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Convierte los valores de configuración de una acción a parámetros tipados
+     * Los valores inválidos se reportan y se usa el valor por defecto; un efecto de poción
+     * inexistente descarta la acción
+     * @param data Mapa de la acción en items.yml
+     * @param problems Recibe la descripción de cada problema encontrado
+     * @return Los parámetros, o null si la acción debe descartarse
+     */
+    public ActionParameters bind(Map<?, ?> data, Consumer<String> problems) {
+        for (Object key : data.keySet()) {
+            String name = String.valueOf(key);
+            if (!indexByName.containsKey(name) && !RESERVED_KEYS.contains(name)) {
+                problems.accept("Parámetro desconocido '" + name + "' (se ignora)");
+            }
+        }
+
+        Object[] values = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            Object value = bindValue(parameter, data.get(parameter.name), problems);
+            if (value == null) {
+                return null;
+            }
+            values[i] = value;
+        }
+
+        return new ActionParameters(this, values);
+    }
+
+    // ==========================================
+    // CONVERSIÓN DE VALORES
+    // ==========================================
+
+    private static Object bindValue(Parameter parameter, Object raw, Consumer<String> problems) {
+        switch (parameter.type) {
+            case NUMBER:
+                if (raw instanceof Number) {
+                    return ((Number) raw).doubleValue();
+                }
+                return numberDefault(parameter, raw, problems);
+
+            case INTEGER:
+                if (raw instanceof Number) {
+                    return ((Number) raw).intValue();
+                }
+                return numberDefault(parameter, raw, problems);
+
+            case TEXT:
+                return raw != null ? raw.toString() : parameter.defaultValue;
+
+            case BOOLEAN:
+                if (raw instanceof Boolean) {
+                    return raw;
+                }
+                if (raw != null && (raw.toString().equalsIgnoreCase("true") || raw.toString().equalsIgnoreCase("false"))) {
+                    return Boolean.parseBoolean(raw.toString());
+                }
+                if (raw != null) {
+                    problems.accept(parameter.name + " debe ser true o false, se recibió '" + raw + "'");
+                }
+                return parameter.defaultValue;
+
+            case POTION_EFFECT: {
+                String name = raw != null ? raw.toString() : (String) parameter.defaultValue;
+                PotionEffectType effect = resolvePotion(name);
+                if (effect == null) {
+                    problems.accept("Efecto de poción desconocido '" + name + "', se descarta la acción");
+                }
+                return effect;
+            }
+
+            case SOUND: {
+                Sound sound = raw != null ? resolveSound(raw.toString()) : null;
+                if (sound == null) {
+                    if (raw != null) {
+                        problems.accept("Sonido desconocido '" + raw + "', se usa " + parameter.defaultValue);
+                    }
+                    sound = resolveSound((String) parameter.defaultValue);
+                }
+                return sound;
+            }
+
+            case PARTICLE: {
+                Particle particle = raw != null ? resolveParticle(raw.toString(), parameter, problems) : null;
+                return particle != null ? particle : Particle.valueOf((String) parameter.defaultValue);
+            }
+
+            default:
+                throw new IllegalStateException("Tipo de parámetro sin conversión: " + parameter.type);
+        }
+    }
+
+    private static Object numberDefault(Parameter parameter, Object raw, Consumer<String> problems) {
+        if (raw != null) {
+            problems.accept(parameter.name + " debe ser un número, se recibió '" + raw + "'");
+        }
+        return parameter.defaultValue;
+    }
+
+    /**
+     * Resuelve un efecto de poción por nombre (SPEED) o clave (minecraft:speed)
+     */
+    private static PotionEffectType resolvePotion(String name) {
+        PotionEffectType effect = PotionEffectType.getByName(name.toUpperCase());
+        if (effect == null) {
+            NamespacedKey key = NamespacedKey.fromString(name.toLowerCase());
+            effect = key != null ? PotionEffectType.getByKey(key) : null;
+        }
+        return effect;
+    }
+
+    /**
+     * Resuelve un sonido por nombre (ENTITY_PLAYER_LEVELUP) o clave (minecraft:entity.player.levelup)
+     */
+    private static Sound resolveSound(String name) {
+        if (name.indexOf('.') >= 0 || name.indexOf(':') >= 0) {
+            NamespacedKey key = NamespacedKey.fromString(name.toLowerCase());
+            return key != null ? Registry.SOUNDS.get(key) : null;
+        }
+
+        try {
+            return Sound.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resuelve una partícula que no requiera datos adicionales
+     */
+    private static Particle resolveParticle(String name, Parameter parameter, Consumer<String> problems) {
+        Particle particle;
+        try {
+            particle = Particle.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            problems.accept("Partícula desconocida '" + name + "', se usa " + parameter.defaultValue);
+            return null;
+        }
+
+        if (particle.getDataType() != Void.class) {
+            problems.accept("La partícula " + particle.name() + " requiere datos adicionales, se usa "
+                    + parameter.defaultValue);
+            return null;
+        }
+        return particle;
+    }
+
+    /**
+     * Constructor de esquemas; los parámetros se declaran en orden
+     */
+    public static final class Builder {
+        private final List<Parameter> parameters = new ArrayList<>();
+
+        public Builder number(String name, double defaultValue) {
+            return add(name, ParameterType.NUMBER, defaultValue);
+        }
+
+        public Builder integer(String name, int defaultValue) {
+            return add(name, ParameterType.INTEGER, defaultValue);
+        }
+
+        public Builder text(String name, String defaultValue) {
+            return add(name, ParameterType.TEXT, defaultValue);
+        }
+
+        public Builder bool(String name, boolean defaultValue) {
+            return add(name, ParameterType.BOOLEAN, defaultValue);
+        }
+
+        /**
+         * @param defaultEffect Nombre o clave del efecto por defecto
+         */
+        public Builder potionEffect(String name, String defaultEffect) {
+            return add(name, ParameterType.POTION_EFFECT, defaultEffect);
+        }
+
+        /**
+         * @param defaultSound Nombre o clave de un sonido existente
+         */
+        public Builder sound(String name, String defaultSound) {
+            if (resolveSound(defaultSound) == null) {
+                throw new IllegalArgumentException("Sonido por defecto inválido: " + defaultSound);
+            }
+            return add(name, ParameterType.SOUND, defaultSound);
+        }
+
+        /**
+         * @param defaultParticle Nombre de una partícula sin datos adicionales
+         */
+        public Builder particle(String name, String defaultParticle) {
+            Particle.valueOf(defaultParticle);
+            return add(name, ParameterType.PARTICLE, defaultParticle);
+        }
+
+        private Builder add(String name, ParameterType type, Object defaultValue) {
+            if (defaultValue == null) {
+                throw new IllegalArgumentException("El parámetro " + name + " necesita un valor por defecto");
+            }
+            if (RESERVED_KEYS.contains(name)) {
+                throw new IllegalArgumentException("Nombre de parámetro reservado: " + name);
+            }
+            for (Parameter parameter : parameters) {
+                if (parameter.name.equals(name)) {
+                    throw new IllegalArgumentException("Parámetro duplicado: " + name);
+                }
+            }
+            parameters.add(new Parameter(name, type, defaultValue));
+            return this;
+        }
+
+        public ActionSchema build() {
+            return new ActionSchema(parameters);
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package gc.grivyzom.mechanics.actions.impl;
 
+import gc.grivyzom.mechanics.TriggerType;
 import gc.grivyzom.mechanics.actions.Action;
 import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.aura.AuraManager;
 import gc.grivyzom.mechanics.conditions.Condition;
-import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
@@ -11,14 +12,22 @@ import java.util.List;
 
 public class ApplyPotionAction extends Action {
 
-    private final String effectName;
+    private final AuraManager auraManager;
+    private final PotionEffectType effectType;
     private final int duration;
     private final int amplifier;
     private final List<Condition> conditions;
 
-    public ApplyPotionAction(String effectName, int duration, int amplifier, List<Condition> conditions, int delay) {
+    /**
+     * @param auraManager Recibe los efectos de ON_EQUIP y WHILE_HELD
+     * @param effectType Efecto ya resuelto al cargar
+     * @param duration Duración en segundos (-1 para infinito)
+     */
+    public ApplyPotionAction(AuraManager auraManager, PotionEffectType effectType, int duration, int amplifier,
+                             List<Condition> conditions, int delay) {
         super("apply_potion", false, delay);
-        this.effectName = effectName.toUpperCase();
+        this.auraManager = auraManager;
+        this.effectType = effectType;
         this.duration = duration;
         this.amplifier = amplifier;
         this.conditions = conditions;
@@ -26,22 +35,20 @@ public class ApplyPotionAction extends Action {
 
     @Override
     public boolean execute(ActionContext context) {
-        try {
-            PotionEffectType effectType = PotionEffectType.getByName(effectName);
-            if (effectType == null) {
-                return false;
-            }
-
-            Player player = context.getPlayer();
-            int durationTicks = duration == -1 ? Integer.MAX_VALUE : duration * 20;
-
-            PotionEffect effect = new PotionEffect(effectType, durationTicks, amplifier, false, true);
-            player.addPotionEffect(effect, true);
+        TriggerType trigger = context.getTrigger();
 
+        // Efecto de un ítem equipado: el AuraManager solo lo reenvía si cambia o va a caducar
+        if (context.hasEquipmentSlot() && (trigger == TriggerType.ON_EQUIP || trigger == TriggerType.WHILE_HELD)) {
+            auraManager.grant(context.getPlayer(), context.getItemDefinition(), effectType, amplifier,
+                    duration == -1 ? -1 : duration * 20);
             return true;
-        } catch (Exception e) {
-            return false;
         }
+
+        int durationTicks = duration == -1 ? Integer.MAX_VALUE : duration * 20;
+
+        PotionEffect effect = new PotionEffect(effectType, durationTicks, amplifier, false, true);
+        context.getPlayer().addPotionEffect(effect, true);
+
+        return true;
     }
 }
-
@@ -0,0 +1,53 @@
+package gc.grivyzom.mechanics.actions.impl;
+
+import gc.grivyzom.mechanics.actions.Action;
+import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.conditions.Condition;
+import gc.grivyzom.util.EntityQueries;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Daña a las entidades dentro de un radio alrededor del jugador
+ */
+public class AreaDamageAction extends Action {
+
+    // El daño lanza eventos de ataque que pueden volver a activar esta acción
+    private static boolean applying;
+
+    private final EntityQueries entityQueries;
+    private final double radius;
+    private final double amount;
+    private final EntityQueries.Filter targets;
+    private final List<Condition> conditions;
+
+    public AreaDamageAction(EntityQueries entityQueries, double radius, double amount, EntityQueries.Filter targets,
+                            List<Condition> conditions, int delay) {
+        super("area_damage", false, delay);
+        this.entityQueries = entityQueries;
+        this.radius = radius;
+        this.amount = amount;
+        this.targets = targets;
+        this.conditions = conditions;
+    }
+
+    @Override
+    public boolean execute(ActionContext context) {
+        if (applying) {
+            return true;
+        }
+
+        Player player = context.getPlayer();
+        applying = true;
+        try {
+            for (LivingEntity entity : entityQueries.getNearby(player.getLocation(), radius, targets, player)) {
+                entity.damage(amount, player);
+            }
+        } finally {
+            applying = false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package gc.grivyzom.mechanics.actions.impl;
+
+import gc.grivyzom.mechanics.actions.Action;
+import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.conditions.Condition;
+import gc.grivyzom.util.EntityQueries;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Cura al jugador y a los aliados (jugadores) dentro de un radio
+ */
+public class AreaHealAction extends Action {
+
+    private final EntityQueries entityQueries;
+    private final double radius;
+    private final double amount;
+    private final List<Condition> conditions;
+
+    public AreaHealAction(EntityQueries entityQueries, double radius, double amount, List<Condition> conditions,
+                          int delay) {
+        super("area_heal", false, delay);
+        this.entityQueries = entityQueries;
+        this.radius = radius;
+        this.amount = amount;
+        this.conditions = conditions;
+    }
+
+    @Override
+    public boolean execute(ActionContext context) {
+        Player player = context.getPlayer();
+
+        heal(player);
+        entityQueries.forEachNearby(player.getLocation(), radius, EntityQueries.Filter.PLAYERS, player, this::heal);
+        return true;
+    }
+
+    private void heal(LivingEntity entity) {
+        if (!entity.isDead()) {
+            entity.setHealth(Math.min(entity.getHealth() + amount, entity.getMaxHealth()));
+        }
+    }
+}
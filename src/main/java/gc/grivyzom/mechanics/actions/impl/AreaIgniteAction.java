@@ -0,0 +1,41 @@
+package gc.grivyzom.mechanics.actions.impl;
+
+import gc.grivyzom.mechanics.actions.Action;
+import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.conditions.Condition;
+import gc.grivyzom.util.EntityQueries;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Prende fuego a las entidades dentro de un radio alrededor del jugador
+ */
+public class AreaIgniteAction extends Action {
+
+    private final EntityQueries entityQueries;
+    private final double radius;
+    private final int duration;
+    private final EntityQueries.Filter targets;
+    private final List<Condition> conditions;
+
+    public AreaIgniteAction(EntityQueries entityQueries, double radius, int duration, EntityQueries.Filter targets,
+                            List<Condition> conditions, int delay) {
+        super("area_ignite", false, delay);
+        this.entityQueries = entityQueries;
+        this.radius = radius;
+        this.duration = duration;
+        this.targets = targets;
+        this.conditions = conditions;
+    }
+
+    @Override
+    public boolean execute(ActionContext context) {
+        Player player = context.getPlayer();
+        int ticks = duration * 20; // Convertir a ticks
+
+        entityQueries.forEachNearby(player.getLocation(), radius, targets, player,
+                entity -> entity.setFireTicks(Math.max(entity.getFireTicks(), ticks)));
+        return true;
+    }
+}
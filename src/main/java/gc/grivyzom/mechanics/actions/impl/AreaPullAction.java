@@ -0,0 +1,49 @@
+package gc.grivyzom.mechanics.actions.impl;
+
+import gc.grivyzom.mechanics.actions.Action;
+import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.conditions.Condition;
+import gc.grivyzom.util.EntityQueries;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+
+import java.util.List;
+
+/**
+ * Atrae hacia el jugador a las entidades dentro de un radio
+ */
+public class AreaPullAction extends Action {
+
+    private final EntityQueries entityQueries;
+    private final double radius;
+    private final double strength;
+    private final EntityQueries.Filter targets;
+    private final List<Condition> conditions;
+
+    public AreaPullAction(EntityQueries entityQueries, double radius, double strength, EntityQueries.Filter targets,
+                          List<Condition> conditions, int delay) {
+        super("area_pull", false, delay);
+        this.entityQueries = entityQueries;
+        this.radius = radius;
+        this.strength = strength;
+        this.targets = targets;
+        this.conditions = conditions;
+    }
+
+    @Override
+    public boolean execute(ActionContext context) {
+        Player player = context.getPlayer();
+        Location center = player.getLocation();
+
+        entityQueries.forEachNearby(center, radius, targets, player, entity -> {
+            Vector pull = center.toVector().subtract(entity.getLocation().toVector());
+            if (pull.lengthSquared() < 1.0E-4) {
+                return;
+            }
+            // Un pequeño impulso vertical evita que el rozamiento con el suelo anule el tirón
+            entity.setVelocity(pull.normalize().multiply(strength).setY(0.3));
+        });
+        return true;
+    }
+}
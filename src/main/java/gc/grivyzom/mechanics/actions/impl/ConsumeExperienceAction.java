@@ -2,6 +2,7 @@ package gc.grivyzom.mechanics.actions.impl;
 
 import gc.grivyzom.mechanics.actions.Action;
 import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.actions.ActionPriority;
 import gc.grivyzom.mechanics.conditions.Condition;
 import org.bukkit.entity.Player;
 
@@ -30,4 +31,10 @@ public class ConsumeExperienceAction extends Action {
 
         return false; // No tiene suficiente experiencia
     }
-}
\ No newline at end of file
+
+    @Override
+    public ActionPriority getPriority() {
+        // Es el coste de usar el ítem: se cobra en el mismo tick
+        return ActionPriority.CRITICAL;
+    }
+}
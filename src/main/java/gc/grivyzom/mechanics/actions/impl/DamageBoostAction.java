@@ -2,32 +2,45 @@ package gc.grivyzom.mechanics.actions.impl;
 
 import gc.grivyzom.mechanics.actions.Action;
 import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.actions.ActionPriority;
+import gc.grivyzom.mechanics.combat.DamageModifiers;
 import gc.grivyzom.mechanics.conditions.Condition;
-import org.bukkit.entity.Player;
-import org.bukkit.potion.PotionEffect;
-import org.bukkit.potion.PotionEffectType;
 
 import java.util.List;
 
 public class DamageBoostAction extends Action {
 
+    private final DamageModifiers damageModifiers;
     private final double boostAmount;
+    private final double multiplier;
+    private final int duration;
     private final List<Condition> conditions;
 
-    public DamageBoostAction(double boostAmount, List<Condition> conditions, int delay) {
+    /**
+     * @param boostAmount Daño que se suma a cada golpe
+     * @param multiplier Multiplicador aplicado tras la suma
+     * @param duration Duración en segundos (-1 mientras el ítem siga equipado)
+     */
+    public DamageBoostAction(DamageModifiers damageModifiers, double boostAmount, double multiplier, int duration,
+                             List<Condition> conditions, int delay) {
         super("damage_boost", false, delay);
+        this.damageModifiers = damageModifiers;
         this.boostAmount = boostAmount;
+        this.multiplier = multiplier;
+        this.duration = duration;
         this.conditions = conditions;
     }
 
     @Override
     public boolean execute(ActionContext context) {
-        // Para implementación completa, necesitarías un sistema que trackee
-        // el próximo daño del jugador y lo modifique
-        // Por simplicidad, aplicamos fuerza temporal
-        Player player = context.getPlayer();
-        PotionEffect strength = new PotionEffect(PotionEffectType.INCREASE_DAMAGE, 60, (int)(boostAmount / 3));
-        player.addPotionEffect(strength, true);
+        damageModifiers.apply(context.getPlayer(), context.getItemDefinition(), boostAmount, multiplier,
+                duration == -1 ? -1L : duration * 20L);
         return true;
     }
-}
\ No newline at end of file
+
+    @Override
+    public ActionPriority getPriority() {
+        // Afecta al combate en curso: no puede esperar al tick siguiente
+        return ActionPriority.CRITICAL;
+    }
+}
@@ -3,6 +3,7 @@ package gc.grivyzom.mechanics.actions.impl;
 import gc.grivyzom.mechanics.actions.Action;
 import gc.grivyzom.mechanics.actions.ActionContext;
 import gc.grivyzom.mechanics.conditions.Condition;
+import gc.grivyzom.mechanics.movement.MovementResolver;
 import org.bukkit.entity.Player;
 import org.bukkit.util.Vector;
 
@@ -10,11 +11,13 @@ import java.util.List;
 
 public class LaunchPlayerAction extends Action {
 
+    private final MovementResolver resolver;
     private final double power;
     private final List<Condition> conditions;
 
-    public LaunchPlayerAction(double power, List<Condition> conditions, int delay) {
+    public LaunchPlayerAction(MovementResolver resolver, double power, List<Condition> conditions, int delay) {
         super("launch_player", false, delay);
+        this.resolver = resolver;
         this.power = power;
         this.conditions = conditions;
     }
@@ -22,6 +25,12 @@ public class LaunchPlayerAction extends Action {
     @Override
     public boolean execute(ActionContext context) {
         Player player = context.getPlayer();
+
+        // Con un techo justo encima el impulso no tendría efecto
+        if (resolver.verticalClearance(player, 1.0) < 0.5) {
+            return true;
+        }
+
         Vector velocity = new Vector(0, power, 0);
         player.setVelocity(velocity);
         return true;
@@ -2,6 +2,7 @@ package gc.grivyzom.mechanics.actions.impl;
 
 import gc.grivyzom.mechanics.actions.Action;
 import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.actions.ActionPriority;
 import gc.grivyzom.mechanics.conditions.Condition;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
@@ -10,14 +11,17 @@ import java.util.List;
 
 public class PlaySoundAction extends Action {
 
-    private final String soundName;
+    private final Sound sound;
     private final float volume;
     private final float pitch;
     private final List<Condition> conditions;
 
-    public PlaySoundAction(String soundName, float volume, float pitch, List<Condition> conditions, int delay) {
+    /**
+     * @param sound Sonido ya resuelto al cargar
+     */
+    public PlaySoundAction(Sound sound, float volume, float pitch, List<Condition> conditions, int delay) {
         super("play_sound", false, delay);
-        this.soundName = soundName.toUpperCase();
+        this.sound = sound;
         this.volume = volume;
         this.pitch = pitch;
         this.conditions = conditions;
@@ -25,21 +29,14 @@ public class PlaySoundAction extends Action {
 
     @Override
     public boolean execute(ActionContext context) {
-        try {
-            Sound sound = Sound.valueOf(soundName);
-            Player player = context.getPlayer();
+        Player player = context.getPlayer();
+        player.playSound(player.getLocation(), sound, volume, pitch);
+        return true;
+    }
 
-            player.playSound(player.getLocation(), sound, volume, pitch);
-            return true;
-        } catch (Exception e) {
-            // Si el sonido no existe, intentar con un sonido por defecto
-            try {
-                Player player = context.getPlayer();
-                player.playSound(player.getLocation(), Sound.ENTITY_PLAYER_LEVELUP, volume, pitch);
-                return true;
-            } catch (Exception e2) {
-                return false;
-            }
-        }
+    @Override
+    public ActionPriority getPriority() {
+        // Solo sonora
+        return ActionPriority.COSMETIC;
     }
-}
\ No newline at end of file
+}
@@ -1,38 +1,49 @@
 package gc.grivyzom.mechanics.actions.impl;
 
+import gc.grivyzom.mechanics.TriggerType;
 import gc.grivyzom.mechanics.actions.Action;
 import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.actions.ActionPriority;
+import gc.grivyzom.mechanics.aura.AuraManager;
 import gc.grivyzom.mechanics.conditions.Condition;
-import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffectType;
 
 import java.util.List;
 
 public class RemovePotionAction extends Action {
 
-    private final String effectName;
+    private final AuraManager auraManager;
+    private final PotionEffectType effectType;
     private final List<Condition> conditions;
 
-    public RemovePotionAction(String effectName, List<Condition> conditions, int delay) {
+    /**
+     * @param auraManager Retira los efectos que concedió el ítem al desequiparlo
+     * @param effectType Efecto ya resuelto al cargar
+     */
+    public RemovePotionAction(AuraManager auraManager, PotionEffectType effectType, List<Condition> conditions,
+                              int delay) {
         super("remove_potion", false, delay);
-        this.effectName = effectName.toUpperCase();
+        this.auraManager = auraManager;
+        this.effectType = effectType;
         this.conditions = conditions;
     }
 
     @Override
     public boolean execute(ActionContext context) {
-        try {
-            PotionEffectType effectType = PotionEffectType.getByName(effectName);
-            if (effectType == null) {
-                return false;
-            }
-
-            Player player = context.getPlayer();
-            player.removePotionEffect(effectType);
-
+        // Al desequipar solo se quita el efecto si lo puso el plugin; sin constancia de él
+        // (por ejemplo tras reconectarse) se quita como antes
+        if (context.getTrigger() == TriggerType.ON_UNEQUIP
+                && auraManager.revoke(context.getPlayer(), context.getItemDefinition(), effectType)) {
             return true;
-        } catch (Exception e) {
-            return false;
         }
+
+        context.getPlayer().removePotionEffect(effectType);
+        return true;
+    }
+
+    @Override
+    public ActionPriority getPriority() {
+        // Aplazada tras revokeSource ya no encontraría el registro y quitaría el efecto sin comprobar
+        return ActionPriority.CRITICAL;
     }
 }
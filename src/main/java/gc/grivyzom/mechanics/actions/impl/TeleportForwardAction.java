@@ -3,19 +3,21 @@ package gc.grivyzom.mechanics.actions.impl;
 import gc.grivyzom.mechanics.actions.Action;
 import gc.grivyzom.mechanics.actions.ActionContext;
 import gc.grivyzom.mechanics.conditions.Condition;
+import gc.grivyzom.mechanics.movement.MovementResolver;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
-import org.bukkit.util.Vector;
 
 import java.util.List;
 
 public class TeleportForwardAction extends Action {
 
+    private final MovementResolver resolver;
     private final double distance;
     private final List<Condition> conditions;
 
-    public TeleportForwardAction(double distance, List<Condition> conditions, int delay) {
+    public TeleportForwardAction(MovementResolver resolver, double distance, List<Condition> conditions, int delay) {
         super("teleport_forward", false, delay);
+        this.resolver = resolver;
         this.distance = distance;
         this.conditions = conditions;
     }
@@ -23,21 +25,12 @@ public class TeleportForwardAction extends Action {
     @Override
     public boolean execute(ActionContext context) {
         Player player = context.getPlayer();
-        Location currentLocation = player.getLocation();
-        Vector direction = currentLocation.getDirection().normalize();
 
-        // Calcular nueva ubicación
-        Location newLocation = currentLocation.clone().add(direction.multiply(distance));
-
-        // Verificar que la ubicación sea segura (no en bloques sólidos)
-        newLocation.setY(newLocation.getY() + 1); // Subir un poco para evitar estar en el suelo
-
-        // Buscar ubicación segura
-        while (newLocation.getBlock().getType().isSolid() && newLocation.getY() < 256) {
-            newLocation.setY(newLocation.getY() + 1);
+        // Sin destino seguro o con chunks sin cargar el jugador se queda donde está
+        Location destination = resolver.resolveForward(player, distance);
+        if (destination != null) {
+            player.teleport(destination);
         }
-
-        player.teleport(newLocation);
         return true;
     }
 }
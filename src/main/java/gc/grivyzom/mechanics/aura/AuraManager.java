@@ -0,0 +1,297 @@
+package gc.grivyzom.mechanics.aura;
+
+import gc.grivyzom.VarietyMain;
+import gc.grivyzom.items.ItemDefinition;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Efectos de poción que conceden los ítems equipados (ON_EQUIP y WHILE_HELD)
+ * Cada ítem aporta los efectos que quiere mantener; por tipo de efecto gana el de mayor
+ * amplificador. El efecto solo se reenvía al jugador si cambia el tipo o el amplificador, o si
+ * le queda menos de REFRESH_THRESHOLD ticks. Al desequipar se retira únicamente el efecto que
+ * aplicó el plugin, sin tocar los que haya puesto otro plugin.
+ * Solo se usa desde el hilo principal
+ */
+public class AuraManager implements Listener {
+
+    // Se reenvía el efecto cuando le quedan menos ticks que esto (más que el pulso de WHILE_HELD)
+    private static final int REFRESH_THRESHOLD = 40;
+
+    // Diferencia de duración tolerada al reconocer un efecto como propio
+    private static final int OWNERSHIP_SLACK = 5;
+
+    // Duración que el plugin usa para los efectos "infinitos"
+    private static final int INFINITE = Integer.MAX_VALUE;
+
+    /**
+     * Efecto que un ítem quiere mantener
+     */
+    private static final class Grant {
+        private final int amplifier;
+        private final long expiresTick; // Long.MAX_VALUE si es infinito
+
+        private Grant(int amplifier, long expiresTick) {
+            this.amplifier = amplifier;
+            this.expiresTick = expiresTick;
+        }
+    }
+
+    /**
+     * Último efecto enviado al jugador por el plugin
+     */
+    private static final class Applied {
+        private final int amplifier;
+        private final long expiresTick;
+
+        private Applied(int amplifier, long expiresTick) {
+            this.amplifier = amplifier;
+            this.expiresTick = expiresTick;
+        }
+    }
+
+    /**
+     * Estado de auras de un jugador
+     */
+    private static final class PlayerAuras {
+        private final Map<String, Map<PotionEffectType, Grant>> bySource = new HashMap<>();
+        private final Map<PotionEffectType, Applied> applied = new HashMap<>();
+    }
+
+    private final VarietyMain plugin;
+    private final Map<UUID, PlayerAuras> players;
+
+    // Métricas
+    private long sentEffects;
+    private long skippedEffects;
+    private long removedEffects;
+
+    public AuraManager(VarietyMain plugin) {
+        this.plugin = plugin;
+        this.players = new HashMap<>();
+    }
+
+    /**
+     * Registra un efecto que concede un ítem equipado y lo aplica si hace falta
+     * Si el ítem ya no está equipado (acción aplazada o retrasada) no hace nada
+     * @param durationTicks Duración en ticks, o -1 para mientras siga equipado
+     */
+    public void grant(Player player, ItemDefinition source, PotionEffectType type, int amplifier, int durationTicks) {
+        if (!player.isOnline() || !plugin.getEquipmentTracker().getSnapshot(player).contains(source)) {
+            return;
+        }
+
+        long now = currentTick();
+        long expires = durationTicks < 0 ? Long.MAX_VALUE : now + durationTicks;
+
+        PlayerAuras auras = players.computeIfAbsent(player.getUniqueId(), uuid -> new PlayerAuras());
+        auras.bySource.computeIfAbsent(source.getId(), id -> new HashMap<>()).put(type, new Grant(amplifier, expires));
+        sync(player, auras, type, now);
+    }
+
+    /**
+     * Retira un efecto concedido por un ítem
+     * @return false si el plugin no aplicó ese efecto (por ejemplo tras reconectarse, cuando el
+     *         efecto que tiene el jugador se conservó de la sesión anterior)
+     */
+    public boolean revoke(Player player, ItemDefinition source, PotionEffectType type) {
+        PlayerAuras auras = players.get(player.getUniqueId());
+        if (auras == null) {
+            return false;
+        }
+
+        // Solo cuenta el efecto enviado: una concesión que sync omitió no dice nada del actual
+        boolean known = auras.applied.containsKey(type);
+        Map<PotionEffectType, Grant> grants = auras.bySource.get(source.getId());
+        if (grants != null) {
+            grants.remove(type);
+        }
+        if (grants != null && grants.isEmpty()) {
+            auras.bySource.remove(source.getId());
+        }
+
+        sync(player, auras, type, currentTick());
+        return known;
+    }
+
+    /**
+     * Retira todos los efectos que concedía un ítem (al desequiparlo)
+     */
+    public void revokeSource(Player player, ItemDefinition source) {
+        PlayerAuras auras = players.get(player.getUniqueId());
+        if (auras == null) {
+            return;
+        }
+
+        Map<PotionEffectType, Grant> grants = auras.bySource.remove(source.getId());
+        if (grants == null) {
+            return;
+        }
+
+        long now = currentTick();
+        for (PotionEffectType type : grants.keySet()) {
+            sync(player, auras, type, now);
+        }
+        if (auras.bySource.isEmpty() && auras.applied.isEmpty()) {
+            players.remove(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Lleva el efecto del jugador al más fuerte de los que piden sus ítems
+     */
+    private void sync(Player player, PlayerAuras auras, PotionEffectType type, long now) {
+        Grant best = strongest(auras, type, now);
+        Applied applied = auras.applied.get(type);
+        PotionEffect current = player.getPotionEffect(type);
+
+        if (best == null) {
+            // Ningún ítem lo pide: se quita solo si el efecto actual es el que puso el plugin
+            if (applied != null) {
+                if (current != null && owns(current, applied, now)) {
+                    player.removePotionEffect(type);
+                    removedEffects++;
+                }
+                auras.applied.remove(type);
+            }
+            return;
+        }
+
+        int remaining = best.expiresTick == Long.MAX_VALUE ? INFINITE : (int) Math.min(INFINITE, best.expiresTick - now);
+        boolean ownCurrent = current != null && applied != null && owns(current, applied, now);
+
+        boolean resend = current == null
+                || current.getAmplifier() != best.amplifier
+                || (current.getDuration() < REFRESH_THRESHOLD && remaining > current.getDuration());
+
+        // Un efecto más fuerte de otro plugin no se rebaja
+        if (current != null && !ownCurrent && current.getAmplifier() > best.amplifier) {
+            resend = false;
+        }
+
+        if (!resend || remaining <= 0) {
+            skippedEffects++;
+            return;
+        }
+
+        player.addPotionEffect(new PotionEffect(type, remaining, best.amplifier, false, true), true);
+        auras.applied.put(type, new Applied(best.amplifier, now + remaining));
+        sentEffects++;
+    }
+
+    /**
+     * Concesión vigente de mayor amplificador (y a igualdad, la más larga); descarta las caducadas
+     */
+    private static Grant strongest(PlayerAuras auras, PotionEffectType type, long now) {
+        Grant best = null;
+        Iterator<Map<PotionEffectType, Grant>> sources = auras.bySource.values().iterator();
+        while (sources.hasNext()) {
+            Map<PotionEffectType, Grant> grants = sources.next();
+            Grant grant = grants.get(type);
+            if (grant == null) {
+                continue;
+            }
+            if (grant.expiresTick <= now) {
+                grants.remove(type);
+                if (grants.isEmpty()) {
+                    sources.remove();
+                }
+                continue;
+            }
+            if (best == null || grant.amplifier > best.amplifier
+                    || (grant.amplifier == best.amplifier && grant.expiresTick > best.expiresTick)) {
+                best = grant;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * El efecto actual es el último que envió el plugin: mismo amplificador y la duración esperada
+     */
+    private static boolean owns(PotionEffect current, Applied applied, long now) {
+        long expected = applied.expiresTick - now;
+        return current.getAmplifier() == applied.amplifier
+                && Math.abs(current.getDuration() - expected) <= OWNERSHIP_SLACK;
+    }
+
+    private long currentTick() {
+        return plugin.getTickDriver().getCurrentTick();
+    }
+
+    // ==========================================
+    // EVENTOS
+    // ==========================================
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        Player player = event.getPlayer();
+        PlayerAuras auras = players.get(player.getUniqueId());
+        if (auras == null) {
+            return;
+        }
+
+        // La muerte borra los efectos: se vuelven a aplicar los de los ítems que sigue teniendo
+        auras.applied.clear();
+        plugin.getTickDriver().schedule(1L, () -> {
+            if (!player.isOnline() || players.get(player.getUniqueId()) != auras) {
+                return;
+            }
+            long now = currentTick();
+            for (PotionEffectType type : desiredTypes(auras)) {
+                sync(player, auras, type, now);
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        // Los efectos se conservan con el jugador; el registro no
+        players.remove(event.getPlayer().getUniqueId());
+    }
+
+    private static Set<PotionEffectType> desiredTypes(PlayerAuras auras) {
+        Set<PotionEffectType> types = new HashSet<>();
+        for (Map<PotionEffectType, Grant> grants : auras.bySource.values()) {
+            types.addAll(grants.keySet());
+        }
+        return types;
+    }
+
+    /**
+     * Olvida todas las auras (al deshabilitar)
+     */
+    public void clear() {
+        players.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        int grants = 0;
+        for (PlayerAuras auras : players.values()) {
+            for (Map<PotionEffectType, Grant> sourceGrants : auras.bySource.values()) {
+                grants += sourceGrants.size();
+            }
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("players", players.size());
+        stats.put("active_grants", grants);
+        stats.put("sent", sentEffects);
+        stats.put("skipped", skippedEffects);
+        stats.put("removed", removedEffects);
+        return stats;
+    }
+}
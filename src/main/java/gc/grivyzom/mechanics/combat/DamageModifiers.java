@@ -0,0 +1,170 @@
+package gc.grivyzom.mechanics.combat;
+
+import gc.grivyzom.VarietyMain;
+import gc.grivyzom.items.ItemDefinition;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Modificadores de daño de los jugadores, aportados por sus ítems (damage_boost)
+ * Cada ítem aporta como mucho un modificador (suma y multiplicador); los totales por jugador se
+ * recalculan solo al añadir, caducar o retirar un modificador, de modo que cada golpe aplica
+ * (daño + suma) x multiplicador con una búsqueda en un mapa y sin reservar memoria.
+ * La caducidad la gestiona la rueda de tiempo. Solo se usa desde el hilo principal
+ */
+public class DamageModifiers implements Listener {
+
+    /**
+     * Modificador aportado por un ítem
+     */
+    private static final class Modifier {
+        private final double add;
+        private final double multiplier;
+        private final boolean whileEquipped; // Sin duración: dura mientras el ítem siga equipado
+
+        private Modifier(double add, double multiplier, boolean whileEquipped) {
+            this.add = add;
+            this.multiplier = multiplier;
+            this.whileEquipped = whileEquipped;
+        }
+    }
+
+    /**
+     * Modificadores de un jugador y sus totales precalculados
+     */
+    private static final class PlayerModifiers {
+        private final Map<String, Modifier> bySource = new HashMap<>();
+        private double add;
+        private double multiplier = 1.0;
+
+        private void recompute() {
+            double totalAdd = 0.0;
+            double totalMultiplier = 1.0;
+            for (Modifier modifier : bySource.values()) {
+                totalAdd += modifier.add;
+                totalMultiplier *= modifier.multiplier;
+            }
+            add = totalAdd;
+            multiplier = totalMultiplier;
+        }
+    }
+
+    private final VarietyMain plugin;
+    private final Map<UUID, PlayerModifiers> players;
+
+    // Métricas
+    private long modifiedHits;
+
+    public DamageModifiers(VarietyMain plugin) {
+        this.plugin = plugin;
+        this.players = new HashMap<>();
+    }
+
+    /**
+     * Añade o renueva el modificador de un ítem; sustituye al anterior del mismo ítem
+     * @param durationTicks Duración en ticks, o -1 para mientras el ítem siga equipado
+     */
+    public void apply(Player player, ItemDefinition source, double add, double multiplier, long durationTicks) {
+        if (!player.isOnline()) {
+            return;
+        }
+        if (durationTicks < 0 && !plugin.getEquipmentTracker().getSnapshot(player).contains(source)) {
+            return;
+        }
+
+        UUID playerId = player.getUniqueId();
+        PlayerModifiers modifiers = players.computeIfAbsent(playerId, uuid -> new PlayerModifiers());
+        Modifier modifier = new Modifier(add, multiplier, durationTicks < 0);
+        modifiers.bySource.put(source.getId(), modifier);
+        modifiers.recompute();
+
+        if (durationTicks >= 0) {
+            // Solo caduca si sigue siendo el mismo modificador (no uno renovado después)
+            plugin.getTickDriver().schedule(durationTicks, () -> expire(playerId, source.getId(), modifier));
+        }
+    }
+
+    private void expire(UUID playerId, String sourceId, Modifier modifier) {
+        PlayerModifiers modifiers = players.get(playerId);
+        if (modifiers != null && modifiers.bySource.remove(sourceId, modifier)) {
+            update(playerId, modifiers);
+        }
+    }
+
+    /**
+     * Retira el modificador "mientras esté equipado" de un ítem (al desequiparlo)
+     * Los temporales se mantienen hasta caducar: cambiar de slot o gastar un consumible no los anula
+     */
+    public void revokeSource(Player player, ItemDefinition source) {
+        PlayerModifiers modifiers = players.get(player.getUniqueId());
+        if (modifiers == null) {
+            return;
+        }
+
+        Modifier modifier = modifiers.bySource.get(source.getId());
+        if (modifier != null && modifier.whileEquipped) {
+            modifiers.bySource.remove(source.getId());
+            update(player.getUniqueId(), modifiers);
+        }
+    }
+
+    private void update(UUID playerId, PlayerModifiers modifiers) {
+        if (modifiers.bySource.isEmpty()) {
+            players.remove(playerId);
+        } else {
+            modifiers.recompute();
+        }
+    }
+
+    /**
+     * Después de los triggers de ataque (HIGH), para que un damage_boost lanzado por este
+     * mismo golpe ya cuente
+     */
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onEntityDamageByEntity(EntityDamageByEntityEvent event) {
+        if (players.isEmpty() || !(event.getDamager() instanceof Player)) {
+            return;
+        }
+
+        PlayerModifiers modifiers = players.get(event.getDamager().getUniqueId());
+        if (modifiers == null) {
+            return;
+        }
+
+        event.setDamage(Math.max(0.0, (event.getDamage() + modifiers.add) * modifiers.multiplier));
+        modifiedHits++;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        players.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Retira todos los modificadores (al deshabilitar)
+     */
+    public void clear() {
+        players.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        int active = 0;
+        for (PlayerModifiers modifiers : players.values()) {
+            active += modifiers.bySource.size();
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("players", players.size());
+        stats.put("active_modifiers", active);
+        stats.put("modified_hits", modifiedHits);
+        return stats;
+    }
+}
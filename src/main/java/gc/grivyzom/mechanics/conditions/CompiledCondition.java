@@ -0,0 +1,114 @@
+package gc.grivyzom.mechanics.conditions;
+
+import gc.grivyzom.mechanics.actions.ActionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Condición ya compilada: un predicado con sus valores resueltos al cargar los ítems
+ * Se compone en árboles AND/OR/NOT y se evalúa sin parsear texto ni buscar enums
+ */
+public interface CompiledCondition {
+
+    /**
+     * Condición que siempre se cumple (trigger sin condiciones)
+     */
+    CompiledCondition ALWAYS = new LeafCondition("siempre", ConditionCost.TRIVIAL, context -> true);
+
+    /**
+     * Condición que nunca se cumple (referencia inválida detectada al cargar)
+     */
+    CompiledCondition NEVER = new LeafCondition("nunca", ConditionCost.TRIVIAL, context -> false);
+
+    /**
+     * Evalúa la condición en el contexto dado
+     */
+    boolean test(ActionContext context);
+
+    /**
+     * Coste estimado de evaluarla (suma de sus condiciones en los grupos)
+     */
+    int getWeight();
+
+    /**
+     * Descripción con el orden de evaluación actual, para depuración
+     */
+    String describe();
+
+    /**
+     * Crea una condición individual
+     */
+    static CompiledCondition leaf(String description, ConditionCost cost, Predicate<ActionContext> predicate) {
+        return new LeafCondition(description, cost, predicate);
+    }
+
+    /**
+     * Se cumple si se cumplen todas las condiciones (AND, con orden adaptativo); sin hijos, siempre
+     */
+    static CompiledCondition all(List<CompiledCondition> children) {
+        List<CompiledCondition> relevant = new ArrayList<>();
+        for (CompiledCondition child : children) {
+            if (child == NEVER) {
+                return NEVER;
+            }
+            if (child != ALWAYS) {
+                relevant.add(child);
+            }
+        }
+
+        if (relevant.isEmpty()) {
+            return ALWAYS;
+        }
+        if (relevant.size() == 1) {
+            return relevant.get(0);
+        }
+
+        return new ConditionGroup(true, relevant);
+    }
+
+    /**
+     * Se cumple si se cumple alguna de las condiciones (OR, con orden adaptativo); sin hijos, siempre
+     */
+    static CompiledCondition any(List<CompiledCondition> children) {
+        List<CompiledCondition> relevant = new ArrayList<>();
+        for (CompiledCondition child : children) {
+            if (child == ALWAYS) {
+                return ALWAYS;
+            }
+            if (child != NEVER) {
+                relevant.add(child);
+            }
+        }
+
+        if (relevant.isEmpty()) {
+            return children.isEmpty() ? ALWAYS : NEVER;
+        }
+        if (relevant.size() == 1) {
+            return relevant.get(0);
+        }
+
+        return new ConditionGroup(false, relevant);
+    }
+
+    /**
+     * Se cumple si no se cumple ninguna de las condiciones (NOT de su OR); sin hijos, siempre
+     */
+    static CompiledCondition none(List<CompiledCondition> children) {
+        return children.isEmpty() ? ALWAYS : not(any(children));
+    }
+
+    /**
+     * Invierte una condición (NOT)
+     */
+    static CompiledCondition not(CompiledCondition condition) {
+        if (condition == ALWAYS) {
+            return NEVER;
+        }
+        if (condition == NEVER) {
+            return ALWAYS;
+        }
+        return new NotCondition(condition);
+    }
+}
@@ -241,6 +241,10 @@ public class Condition {
             return new Condition("target_health_below", health);
         }
 
+        public static Condition enemiesWithin(double radius) {
+            return new Condition("enemies_within", radius);
+        }
+
         // Condición personalizada
         public static Condition custom(String type) {
             return new Condition(type);
@@ -272,6 +276,13 @@ public class Condition {
         String type = parts[0].toLowerCase();
         boolean inverted = false;
 
+        // has_item/missing_item llevan la cantidad como segundo valor: "has_item:DIAMOND:5[:invertido]"
+        if ((type.equals("has_item") || type.equals("missing_item")) && parts.length >= 3
+                && parts[2].matches("\\d+")) {
+            inverted = parts.length >= 4 && Boolean.parseBoolean(parts[3]);
+            return new Condition(type, parts[1] + ":" + parts[2], inverted);
+        }
+
         // Verificar si está invertido
         if (parts.length >= 3) {
             inverted = Boolean.parseBoolean(parts[2]);
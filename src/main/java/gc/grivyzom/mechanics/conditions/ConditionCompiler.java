@@ -0,0 +1,377 @@
+package gc.grivyzom.mechanics.conditions;
+
+import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.util.EntityQueries;
+import org.bukkit.Material;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Compila condiciones de configuración a predicados tipados
+ * El tipo se resuelve una sola vez y los efectos, materiales y biomas se buscan al cargar;
+ * las referencias inválidas se reportan entonces y la condición nunca se cumple.
+ * Cada condición lleva su clase de coste para que los grupos puedan ordenarse
+ */
+public class ConditionCompiler {
+
+    // Condiciones personalizadas registradas en ConditionChecker (se consultan al evaluar)
+    private final Map<String, Predicate<ActionContext>> customConditions;
+
+    // Snapshot del jugador en el tick actual, compartido entre condiciones
+    private final Function<Player, PlayerStateSnapshot> states;
+
+    // Cantidad de un material en el inventario del jugador
+    private final ToIntBiFunction<Player, Material> materialCounts;
+
+    // Consultas de entidades cercanas para las condiciones de proximidad
+    private final EntityQueries entityQueries;
+
+    public ConditionCompiler(Map<String, Predicate<ActionContext>> customConditions,
+                             Function<Player, PlayerStateSnapshot> states,
+                             ToIntBiFunction<Player, Material> materialCounts,
+                             EntityQueries entityQueries) {
+        this.customConditions = customConditions;
+        this.states = states;
+        this.materialCounts = materialCounts;
+        this.entityQueries = entityQueries;
+    }
+
+    /**
+     * Compila una lista de condiciones que deben cumplirse todas
+     * @param errors Lista donde se añaden los errores encontrados
+     */
+    public CompiledCondition compileAll(List<Condition> conditions, List<String> errors) {
+        if (conditions == null || conditions.isEmpty()) {
+            return CompiledCondition.ALWAYS;
+        }
+
+        List<CompiledCondition> compiled = new ArrayList<>();
+        for (Condition condition : conditions) {
+            compiled.add(compile(condition, errors));
+        }
+        return CompiledCondition.all(compiled);
+    }
+
+    /**
+     * Compila una condición individual, aplicando su inversión
+     * @param errors Lista donde se añaden los errores encontrados
+     */
+    public CompiledCondition compile(Condition condition, List<String> errors) {
+        if (condition == null || !condition.isValid()) {
+            errors.add("Condición vacía");
+            return CompiledCondition.NEVER;
+        }
+
+        Predicate<ActionContext> predicate = compileType(condition, errors);
+        if (predicate == null) {
+            // Una condición inválida bloquea siempre, aunque esté invertida: not(NEVER) la anularía
+            return CompiledCondition.NEVER;
+        }
+
+        CompiledCondition compiled = CompiledCondition.leaf(describe(condition), costOf(condition.getType()), predicate);
+        return condition.isInverted() ? CompiledCondition.not(compiled) : compiled;
+    }
+
+    /**
+     * Clase de coste de un tipo de condición, usada para ordenar las comprobaciones
+     */
+    static ConditionCost costOf(String type) {
+        switch (type) {
+            case "health_above":
+            case "health_below":
+            case "health_percentage_above":
+            case "health_percentage_below":
+            case "hunger_above":
+            case "hunger_below":
+            case "level_above":
+            case "level_below":
+            case "is_sneaking":
+            case "is_sprinting":
+            case "is_flying":
+            case "is_in_water":
+            case "is_on_ground":
+            case "is_in_combat":
+            case "target_is_player":
+            case "target_health_below":
+            case "y_above":
+            case "y_below":
+                return ConditionCost.TRIVIAL;
+
+            case "has_potion_effect":
+            case "missing_potion_effect":
+            case "has_permission":
+            case "missing_permission":
+            case "is_day":
+            case "is_night":
+            case "is_raining":
+            case "is_clear":
+            case "has_item":
+            case "missing_item":
+                // has_item y missing_item leen MaterialCountIndex en O(1)
+                return ConditionCost.LOOKUP;
+
+            case "in_biome":
+            case "enemies_within":
+                return ConditionCost.SCAN;
+
+            default:
+                return ConditionCost.CUSTOM;
+        }
+    }
+
+    private static String describe(Condition condition) {
+        if (condition.hasStringValue()) {
+            return condition.getType() + ":" + condition.getStringValue();
+        }
+        return condition.getValue() != 0.0 ? condition.getType() + ":" + condition.getValue() : condition.getType();
+    }
+
+    private Predicate<ActionContext> compileType(Condition condition, List<String> errors) {
+        String type = condition.getType();
+        double value = condition.getValue();
+
+        switch (type) {
+            // Condiciones de salud
+            case "health_above":
+                return requireNumber(condition, errors) ? context -> state(context).getHealth() > value
+                        : null;
+            case "health_below":
+                return requireNumber(condition, errors) ? context -> state(context).getHealth() < value
+                        : null;
+            case "health_percentage_above":
+                return requireNumber(condition, errors) ? context -> state(context).getHealthPercentage() > value
+                        : null;
+            case "health_percentage_below":
+                return requireNumber(condition, errors) ? context -> state(context).getHealthPercentage() < value
+                        : null;
+
+            // Condiciones de hambre
+            case "hunger_above":
+                return requireNumber(condition, errors) ? context -> state(context).getFoodLevel() > value
+                        : null;
+            case "hunger_below":
+                return requireNumber(condition, errors) ? context -> state(context).getFoodLevel() < value
+                        : null;
+
+            // Condiciones de experiencia
+            case "level_above":
+                return requireNumber(condition, errors) ? context -> state(context).getLevel() > value
+                        : null;
+            case "level_below":
+                return requireNumber(condition, errors) ? context -> state(context).getLevel() < value
+                        : null;
+
+            // Condiciones de efectos de poción
+            case "has_potion_effect":
+            case "missing_potion_effect": {
+                PotionEffectType effect = resolvePotion(condition, errors);
+                if (effect == null) {
+                    return null;
+                }
+                Predicate<ActionContext> has = context -> context.getPlayer().hasPotionEffect(effect);
+                return type.equals("has_potion_effect") ? has : has.negate();
+            }
+
+            // Condiciones de inventario ("MATERIAL" o "MATERIAL:cantidad")
+            case "has_item":
+            case "missing_item": {
+                Predicate<ActionContext> has = compileHasItem(condition, errors);
+                if (has == null) {
+                    return null;
+                }
+                return type.equals("has_item") ? has : has.negate();
+            }
+
+            // Condiciones de permisos
+            case "has_permission":
+            case "missing_permission": {
+                String permission = requireString(condition, errors);
+                if (permission == null) {
+                    return null;
+                }
+                Predicate<ActionContext> has = context -> context.getPlayer().hasPermission(permission);
+                return type.equals("has_permission") ? has : has.negate();
+            }
+
+            // Condiciones de tiempo y clima
+            case "is_day":
+                return context -> state(context).isDay();
+            case "is_night":
+                return context -> !state(context).isDay();
+            case "is_raining":
+                return context -> state(context).hasStorm();
+            case "is_clear":
+                return context -> !state(context).hasStorm();
+
+            // Condiciones de ubicación
+            case "y_above":
+                return requireNumber(condition, errors) ? context -> context.getLocation().getY() > value
+                        : null;
+            case "y_below":
+                return requireNumber(condition, errors) ? context -> context.getLocation().getY() < value
+                        : null;
+            case "in_biome": {
+                Biome biome = resolveBiome(condition, errors);
+                if (biome == null) {
+                    return null;
+                }
+                return context -> state(context).getBiome() == biome;
+            }
+
+            // Condiciones de estado del jugador
+            case "is_sneaking":
+                return context -> state(context).isSneaking();
+            case "is_sprinting":
+                return context -> state(context).isSprinting();
+            case "is_flying":
+                return context -> state(context).isFlying();
+            case "is_in_water":
+                return context -> state(context).isInWater();
+            case "is_on_ground":
+                return context -> state(context).isOnGround();
+
+            // Condiciones de combate
+            case "is_in_combat":
+                return context -> isInCombat(context.getPlayer());
+            case "target_is_player":
+                return context -> context.getTargetPlayer() != null;
+            case "target_health_below":
+                return requireNumber(condition, errors) ? context -> targetHealthBelow(context, value)
+                        : null;
+            case "enemies_within":
+                if (!requireNumber(condition, errors)) {
+                    return null;
+                }
+                if (value <= 0 || value > EntityQueries.MAX_RADIUS) {
+                    errors.add("enemies_within requiere un radio entre 0 y " + EntityQueries.MAX_RADIUS
+                            + ", se recibió " + value);
+                    return null;
+                }
+                return context -> entityQueries.hasAny(context.getLocation(), value, EntityQueries.Filter.ENEMIES,
+                        context.getPlayer());
+
+            // Condiciones personalizadas
+            default:
+                return compileCustom(type, errors);
+        }
+    }
+
+    // ==========================================
+    // RESOLUCIÓN DE VALORES
+    // ==========================================
+
+    private boolean requireNumber(Condition condition, List<String> errors) {
+        if (condition.hasStringValue()) {
+            errors.add(condition.getType() + " requiere un valor numérico, se recibió '"
+                    + condition.getStringValue() + "'");
+            return false;
+        }
+        return true;
+    }
+
+    private String requireString(Condition condition, List<String> errors) {
+        String value = condition.getStringValue();
+        if (value == null || value.isEmpty()) {
+            errors.add(condition.getType() + " requiere un valor");
+            return null;
+        }
+        return value;
+    }
+
+    private PotionEffectType resolvePotion(Condition condition, List<String> errors) {
+        String name = requireString(condition, errors);
+        if (name == null) {
+            return null;
+        }
+
+        PotionEffectType effect = PotionEffectType.getByName(name.toUpperCase());
+        if (effect == null) {
+            errors.add("Efecto de poción desconocido en " + condition.getType() + ": " + name);
+        }
+        return effect;
+    }
+
+    private Biome resolveBiome(Condition condition, List<String> errors) {
+        String name = requireString(condition, errors);
+        if (name == null) {
+            return null;
+        }
+
+        try {
+            return Biome.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            errors.add("Bioma desconocido en " + condition.getType() + ": " + name);
+            return null;
+        }
+    }
+
+    private Predicate<ActionContext> compileHasItem(Condition condition, List<String> errors) {
+        String value = requireString(condition, errors);
+        if (value == null) {
+            return null;
+        }
+
+        String[] parts = value.split(":");
+        Material material = Material.matchMaterial(parts[0]);
+        if (material == null) {
+            errors.add("Material desconocido en " + condition.getType() + ": " + parts[0]);
+            return null;
+        }
+
+        int required = 1;
+        if (parts.length > 1) {
+            try {
+                required = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                errors.add("Cantidad inválida en " + condition.getType() + ": " + parts[1]);
+                return null;
+            }
+        }
+
+        int amount = required;
+        return context -> materialCounts.applyAsInt(context.getPlayer(), material) >= amount;
+    }
+
+    private Predicate<ActionContext> compileCustom(String type, List<String> errors) {
+        if (!customConditions.containsKey(type)) {
+            // Puede registrarse más tarde desde otro plugin: se avisa, pero se sigue consultando
+            errors.add("Condición desconocida: " + type);
+        }
+
+        return context -> {
+            Predicate<ActionContext> checker = customConditions.get(type);
+            return checker != null && checker.test(context);
+        };
+    }
+
+    // ==========================================
+    // VERIFICADORES
+    // ==========================================
+
+    private PlayerStateSnapshot state(ActionContext context) {
+        return states.apply(context.getPlayer());
+    }
+
+    private static boolean isInCombat(Player player) {
+        // Verificar si el jugador tiene efectos de combate recientes
+        // Esto puede expandirse con un sistema de combate más sofisticado
+        return player.getLastDamage() > 0 &&
+                (System.currentTimeMillis() - player.getLastDamage()) < 10000; // 10 segundos
+    }
+
+    private static boolean targetHealthBelow(ActionContext context, double value) {
+        if (context.getTarget() instanceof LivingEntity) {
+            return ((LivingEntity) context.getTarget()).getHealth() < value;
+        }
+        return false;
+    }
+}
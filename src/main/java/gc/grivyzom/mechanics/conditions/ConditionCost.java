@@ -0,0 +1,33 @@
+package gc.grivyzom.mechanics.conditions;
+
+/**
+ * Coste estimado de evaluar una condición
+ * Los grupos de condiciones ejecutan antes las baratas y selectivas
+ */
+public enum ConditionCost {
+
+    /** Lee un campo del jugador o del contexto (agachado, vida, nivel) */
+    TRIVIAL(1),
+
+    /** Consulta un mapa o el mundo (permisos, efectos, hora, clima) */
+    LOOKUP(3),
+
+    /** Lógica registrada por otro plugin: coste desconocido */
+    CUSTOM(8),
+
+    /** Recorre el inventario o lee bloques del mundo */
+    SCAN(20);
+
+    private final int weight;
+
+    ConditionCost(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Peso relativo usado al ordenar
+     */
+    public int getWeight() {
+        return weight;
+    }
+}
@@ -0,0 +1,128 @@
+package gc.grivyzom.mechanics.conditions;
+
+import gc.grivyzom.mechanics.actions.ActionContext;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Grupo AND u OR de condiciones que se reordena según lo observado
+ * Empieza ordenado por coste y cada cierto número de evaluaciones pone primero las ramas
+ * con menor coste por probabilidad de cortar la evaluación (fallar en AND, cumplirse en OR).
+ * Las estadísticas se reducen a la mitad en cada reordenación para adaptarse a cambios
+ */
+final class ConditionGroup implements CompiledCondition {
+
+    private static final int REORDER_INTERVAL = 256;
+
+    private final boolean conjunction;
+    private final int weight;
+    private volatile Branch[] branches;
+    private int evaluationsSinceReorder;
+
+    ConditionGroup(boolean conjunction, List<CompiledCondition> children) {
+        this.conjunction = conjunction;
+
+        Branch[] initial = new Branch[children.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < initial.length; i++) {
+            initial[i] = new Branch(children.get(i));
+            totalWeight += children.get(i).getWeight();
+        }
+        Arrays.sort(initial, Comparator.comparingInt(branch -> branch.condition.getWeight()));
+
+        this.branches = initial;
+        this.weight = totalWeight;
+    }
+
+    @Override
+    public boolean test(ActionContext context) {
+        // AND corta con el primer fallo; OR con el primer acierto
+        boolean result = conjunction;
+        for (Branch branch : branches) {
+            boolean passed = branch.condition.test(context);
+            branch.record(passed);
+            if (passed != conjunction) {
+                result = passed;
+                break;
+            }
+        }
+
+        if (++evaluationsSinceReorder >= REORDER_INTERVAL) {
+            reorder();
+        }
+        return result;
+    }
+
+    /**
+     * Reordena las ramas por coste esperado hasta cortar la evaluación
+     */
+    private void reorder() {
+        evaluationsSinceReorder = 0;
+
+        Branch[] sorted = branches.clone();
+        Arrays.sort(sorted, Comparator.comparingDouble(this::rank));
+        for (Branch branch : sorted) {
+            branch.decay();
+        }
+        branches = sorted;
+    }
+
+    private double rank(Branch branch) {
+        double shortCircuit = conjunction ? 1.0 - branch.passRate() : branch.passRate();
+        return branch.condition.getWeight() / Math.max(shortCircuit, 0.01);
+    }
+
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String describe() {
+        StringBuilder description = new StringBuilder(conjunction ? "all(" : "any(");
+        Branch[] current = branches;
+        for (int i = 0; i < current.length; i++) {
+            if (i > 0) {
+                description.append(" → ");
+            }
+            description.append(current[i].condition.describe())
+                    .append(String.format(" %.0f%%", current[i].passRate() * 100));
+        }
+        return description.append(")").toString();
+    }
+
+    /**
+     * Rama del grupo con sus estadísticas de evaluación
+     * Se actualizan desde el hilo principal; una carrera ocasional solo afecta al orden
+     */
+    private static final class Branch {
+        private final CompiledCondition condition;
+        private long evaluations;
+        private long passes;
+
+        private Branch(CompiledCondition condition) {
+            this.condition = condition;
+        }
+
+        private void record(boolean passed) {
+            evaluations++;
+            if (passed) {
+                passes++;
+            }
+        }
+
+        /**
+         * Tasa de aciertos con suavizado de Laplace (50% sin datos)
+         */
+        private double passRate() {
+            return (passes + 1.0) / (evaluations + 2.0);
+        }
+
+        private void decay() {
+            evaluations /= 2;
+            passes /= 2;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package gc.grivyzom.mechanics.conditions;
+
+import gc.grivyzom.mechanics.actions.ActionContext;
+
+import java.util.function.Predicate;
+
+/**
+ * Condición individual compilada: un predicado con su descripción y su clase de coste
+ */
+final class LeafCondition implements CompiledCondition {
+
+    private final String description;
+    private final ConditionCost cost;
+    private final Predicate<ActionContext> predicate;
+
+    LeafCondition(String description, ConditionCost cost, Predicate<ActionContext> predicate) {
+        this.description = description;
+        this.cost = cost;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public boolean test(ActionContext context) {
+        return predicate.test(context);
+    }
+
+    @Override
+    public int getWeight() {
+        return cost.getWeight();
+    }
+
+    @Override
+    public String describe() {
+        return description + " [" + cost + "]";
+    }
+}
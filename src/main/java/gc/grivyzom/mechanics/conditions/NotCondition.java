@@ -0,0 +1,30 @@
+package gc.grivyzom.mechanics.conditions;
+
+import gc.grivyzom.mechanics.actions.ActionContext;
+
+/**
+ * Negación de una condición compilada
+ */
+final class NotCondition implements CompiledCondition {
+
+    private final CompiledCondition condition;
+
+    NotCondition(CompiledCondition condition) {
+        this.condition = condition;
+    }
+
+    @Override
+    public boolean test(ActionContext context) {
+        return !condition.test(context);
+    }
+
+    @Override
+    public int getWeight() {
+        return condition.getWeight();
+    }
+
+    @Override
+    public String describe() {
+        return "not(" + condition.describe() + ")";
+    }
+}
@@ -0,0 +1,172 @@
+package gc.grivyzom.mechanics.conditions;
+
+import org.bukkit.Location;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.Player;
+
+/**
+ * Estado de un jugador durante un tick, compartido por todas las condiciones evaluadas en él
+ * Cada grupo de valores se lee del jugador la primera vez que se pide; en el siguiente tick
+ * se crea un snapshot nuevo. Solo se usa desde el hilo principal
+ */
+public final class PlayerStateSnapshot {
+
+    private static final int HEALTH = 1;
+    private static final int FOOD = 1 << 1;
+    private static final int LEVEL = 1 << 2;
+    private static final int FLAGS = 1 << 3;
+    private static final int LOCATION = 1 << 4;
+    private static final int WEATHER = 1 << 5;
+    private static final int BIOME = 1 << 6;
+
+    private final Player player;
+    private final long tick;
+
+    // Grupos ya leídos (bits de arriba)
+    private int loaded;
+
+    private double health;
+    private double maxHealth;
+    private int foodLevel;
+    private int level;
+    private boolean sneaking;
+    private boolean sprinting;
+    private boolean flying;
+    private boolean inWater;
+    private boolean onGround;
+    private Location location;
+    private long worldTime;
+    private boolean storm;
+    private Biome biome;
+
+    PlayerStateSnapshot(Player player, long tick) {
+        this.player = player;
+        this.tick = tick;
+    }
+
+    public Player getPlayer() { return player; }
+    public long getTick() { return tick; }
+
+    public double getHealth() {
+        loadHealth();
+        return health;
+    }
+
+    public double getMaxHealth() {
+        loadHealth();
+        return maxHealth;
+    }
+
+    /**
+     * Vida en porcentaje (0-100)
+     */
+    public double getHealthPercentage() {
+        loadHealth();
+        return maxHealth > 0 ? (health / maxHealth) * 100 : 0;
+    }
+
+    public int getFoodLevel() {
+        if ((loaded & FOOD) == 0) {
+            foodLevel = player.getFoodLevel();
+            loaded |= FOOD;
+        }
+        return foodLevel;
+    }
+
+    public int getLevel() {
+        if ((loaded & LEVEL) == 0) {
+            level = player.getLevel();
+            loaded |= LEVEL;
+        }
+        return level;
+    }
+
+    public boolean isSneaking() {
+        loadFlags();
+        return sneaking;
+    }
+
+    public boolean isSprinting() {
+        loadFlags();
+        return sprinting;
+    }
+
+    public boolean isFlying() {
+        loadFlags();
+        return flying;
+    }
+
+    public boolean isInWater() {
+        loadFlags();
+        return inWater;
+    }
+
+    public boolean isOnGround() {
+        loadFlags();
+        return onGround;
+    }
+
+    /**
+     * Ubicación del jugador (no modificar: es compartida)
+     */
+    public Location getLocation() {
+        if ((loaded & LOCATION) == 0) {
+            location = player.getLocation();
+            loaded |= LOCATION;
+        }
+        return location;
+    }
+
+    public long getWorldTime() {
+        loadWeather();
+        return worldTime;
+    }
+
+    public boolean hasStorm() {
+        loadWeather();
+        return storm;
+    }
+
+    /**
+     * Si es de día en el mundo del jugador (6:00 AM a 7:00 PM aprox)
+     */
+    public boolean isDay() {
+        long time = getWorldTime();
+        return time >= 0 && time < 13000;
+    }
+
+    public Biome getBiome() {
+        if ((loaded & BIOME) == 0) {
+            biome = getLocation().getBlock().getBiome();
+            loaded |= BIOME;
+        }
+        return biome;
+    }
+
+    private void loadHealth() {
+        if ((loaded & HEALTH) == 0) {
+            health = player.getHealth();
+            maxHealth = player.getMaxHealth();
+            loaded |= HEALTH;
+        }
+    }
+
+    private void loadFlags() {
+        if ((loaded & FLAGS) == 0) {
+            sneaking = player.isSneaking();
+            sprinting = player.isSprinting();
+            flying = player.isFlying();
+            inWater = player.isInWater();
+            onGround = player.isOnGround();
+            loaded |= FLAGS;
+        }
+    }
+
+    private void loadWeather() {
+        if ((loaded & WEATHER) == 0) {
+            worldTime = player.getWorld().getTime();
+            storm = player.getWorld().hasStorm();
+            loaded |= WEATHER;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package gc.grivyzom.mechanics.detection;
+
+import gc.grivyzom.VarietyMain;
+import gc.grivyzom.mechanics.actions.Action;
+import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.actions.ActionPriority;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Presupuesto de acciones por tick, medido en número de acciones y en nanosegundos
+ * Las acciones que superan el presupuesto esperan en una cola FIFO que se vacía en los ticks
+ * siguientes con el presupuesto que quede libre. Las acciones CRITICAL se ejecutan siempre;
+ * las COSMETIC se descartan si esperan demasiado o si la cola está llena.
+ * Solo se usa desde el hilo principal
+ */
+public class ActionBudget {
+
+    /**
+     * Acción aplazada
+     */
+    private static final class Deferred {
+        private final Action action;
+        private final ActionContext context;
+        private final long enqueuedTick;
+
+        private Deferred(Action action, ActionContext context, long enqueuedTick) {
+            this.action = action;
+            this.context = context;
+            this.enqueuedTick = enqueuedTick;
+        }
+    }
+
+    private final VarietyMain plugin;
+    private final BiConsumer<Action, ActionContext> executor;
+    private final ArrayDeque<Deferred> queue;
+
+    // Configuración (action-budget en config.yml)
+    private boolean enabled;
+    private int maxActions;
+    private long maxNanos;
+    private int maxQueue;
+    private long cosmeticMaxAge;
+
+    // Consumo del tick actual
+    private long currentTick = Long.MIN_VALUE;
+    private int tickActions;
+    private long tickNanos;
+
+    // Métricas (el último tick con acciones ya cerrado)
+    private int lastTickActions;
+    private long lastTickNanos;
+    private int peakQueue;
+    private long deferredTotal;
+    private long droppedTotal;
+    private boolean drainScheduled;
+
+    /**
+     * @param executor Ejecuta una acción (con su manejo de errores)
+     */
+    public ActionBudget(VarietyMain plugin, BiConsumer<Action, ActionContext> executor) {
+        this.plugin = plugin;
+        this.executor = executor;
+        this.queue = new ArrayDeque<>();
+        loadConfig();
+    }
+
+    /**
+     * Lee la sección action-budget de config.yml
+     */
+    public void loadConfig() {
+        ConfigurationSection config = plugin.getConfig().getConfigurationSection("action-budget");
+        enabled = config == null || config.getBoolean("enabled", true);
+        maxActions = config != null ? config.getInt("max-actions-per-tick", 400) : 400;
+        maxNanos = (config != null ? config.getLong("max-micros-per-tick", 5000L) : 5000L) * 1000L;
+        maxQueue = config != null ? config.getInt("max-queue", 5000) : 5000;
+        cosmeticMaxAge = config != null ? config.getLong("cosmetic-max-age", 10L) : 10L;
+    }
+
+    /**
+     * Ejecuta una acción ahora si cabe en el presupuesto del tick; si no, la aplaza
+     */
+    public void submit(Action action, ActionContext context) {
+        rollTick();
+
+        ActionPriority priority = action.getPriority();
+        if (!enabled || priority == ActionPriority.CRITICAL) {
+            run(action, context);
+            return;
+        }
+
+        // Con cola pendiente, las nuevas van detrás para conservar el orden
+        if (queue.isEmpty() && hasBudget()) {
+            run(action, context);
+            return;
+        }
+
+        if (queue.size() >= maxQueue) {
+            if (priority == ActionPriority.COSMETIC) {
+                droppedTotal++;
+            } else {
+                // Cola llena: una acción con efecto de juego no se pierde
+                run(action, context);
+            }
+            return;
+        }
+
+        queue.addLast(new Deferred(action, context, currentTick));
+        deferredTotal++;
+        peakQueue = Math.max(peakQueue, queue.size());
+        scheduleDrain();
+    }
+
+    /**
+     * Vacía la cola con el presupuesto del tick; se reprograma mientras quede algo
+     */
+    private void drain() {
+        drainScheduled = false;
+        rollTick();
+
+        while (!queue.isEmpty() && hasBudget()) {
+            Deferred deferred = queue.pollFirst();
+
+            if (!deferred.context.getPlayer().isOnline()
+                    || (deferred.action.getPriority() == ActionPriority.COSMETIC
+                    && currentTick - deferred.enqueuedTick > cosmeticMaxAge)) {
+                droppedTotal++;
+                continue;
+            }
+
+            run(deferred.action, deferred.context);
+        }
+
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (!drainScheduled) {
+            drainScheduled = true;
+            plugin.getTickDriver().schedule(1L, this::drain);
+        }
+    }
+
+    private void run(Action action, ActionContext context) {
+        long start = System.nanoTime();
+        executor.accept(action, context);
+        tickNanos += System.nanoTime() - start;
+        tickActions++;
+    }
+
+    private boolean hasBudget() {
+        return tickActions < maxActions && tickNanos < maxNanos;
+    }
+
+    /**
+     * Reinicia el consumo al cambiar de tick
+     */
+    private void rollTick() {
+        long tick = plugin.getTickDriver().getCurrentTick();
+        if (tick != currentTick) {
+            if (currentTick != Long.MIN_VALUE) {
+                lastTickActions = tickActions;
+                lastTickNanos = tickNanos;
+            }
+            currentTick = tick;
+            tickActions = 0;
+            tickNanos = 0L;
+        }
+    }
+
+    /**
+     * Descarta las acciones aplazadas (al recargar o deshabilitar)
+     */
+    public void clear() {
+        droppedTotal += queue.size();
+        queue.clear();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("max_actions_per_tick", maxActions);
+        stats.put("max_micros_per_tick", maxNanos / 1000L);
+        stats.put("last_active_tick_actions", lastTickActions);
+        stats.put("last_active_tick_micros", lastTickNanos / 1000L);
+        stats.put("queue_depth", queue.size());
+        stats.put("peak_queue_depth", peakQueue);
+        stats.put("deferred_total", deferredTotal);
+        stats.put("dropped_total", droppedTotal);
+        return stats;
+    }
+}
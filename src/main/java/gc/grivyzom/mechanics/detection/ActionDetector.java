@@ -1,18 +1,20 @@
 package gc.grivyzom.mechanics.detection;
 
 import gc.grivyzom.VarietyMain;
+import gc.grivyzom.items.EquipmentSnapshot;
 import gc.grivyzom.items.ItemDefinition;
+import gc.grivyzom.mechanics.ExecutionPlan;
 import gc.grivyzom.mechanics.TriggerType;
 import gc.grivyzom.mechanics.actions.Action;
 import gc.grivyzom.mechanics.actions.ActionContext;
-import gc.grivyzom.mechanics.conditions.ConditionChecker;
 import gc.grivyzom.util.Cooldowns;
+import gc.grivyzom.util.PlayerTasks;
+import org.bukkit.Sound;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
 import java.util.logging.Level;
 
 /**
@@ -23,20 +25,54 @@ public class ActionDetector {
 
     private final VarietyMain plugin;
     private final Cooldowns cooldownManager;
-    private final ConditionChecker conditionChecker;
 
-    // Cache para optimizar verificaciones frecuentes
-    private final ConcurrentHashMap<String, Boolean> triggerCache;
+    // Acciones retrasadas y pulsos de WHILE_HELD / PERIODIC, sobre la rueda de tiempo
+    private final PlayerTasks playerTasks;
 
-    // Control de ejecución para triggers periódicos
-    private final ConcurrentHashMap<String, BukkitRunnable> periodicTasks;
+    // Presupuesto de acciones por tick; lo que no cabe espera en su cola
+    private final ActionBudget actionBudget;
 
-    public ActionDetector(VarietyMain plugin, ConditionChecker conditionChecker) {
+    // Ejecuta las acciones que lanzan los planes; cada grupo retrasado es una sola entrada de la rueda
+    private final ExecutionPlan.Runner planRunner = new ExecutionPlan.Runner() {
+        @Override
+        public void runNow(Action action, ActionContext context) {
+            actionBudget.submit(action, context);
+        }
+
+        @Override
+        public void runLater(long delayTicks, Action[] actions, ActionContext context) {
+            // Se descarta si el jugador se desconecta antes
+            playerTasks.schedule(context.getPlayer().getUniqueId(), delayTicks, () -> {
+                for (Action action : actions) {
+                    actionBudget.submit(action, context);
+                }
+            });
+        }
+    };
+
+    // Intervalo de WHILE_HELD y mínimo de PERIODIC, en ticks
+    private static final long WHILE_HELD_INTERVAL = 20L;
+    private static final long MIN_PERIODIC_INTERVAL = 100L;
+    private static final int TRIGGER_COUNT = TriggerType.count();
+
+    public ActionDetector(VarietyMain plugin) {
         this.plugin = plugin;
-        this.cooldownManager = new Cooldowns();
-        this.conditionChecker = conditionChecker;
-        this.triggerCache = new ConcurrentHashMap<>();
-        this.periodicTasks = new ConcurrentHashMap<>();
+        this.cooldownManager = new Cooldowns(new Cooldowns.ItemIndexResolver() {
+            @Override
+            public int indexOf(String itemId) {
+                ItemDefinition definition = plugin.getItemRegistry().getItemDefinition(itemId);
+                return definition != null ? definition.getNumericId() : -1;
+            }
+
+            @Override
+            public String idOf(int index) {
+                ItemDefinition definition = plugin.getItemRegistry().getItemDefinition(index);
+                return definition != null ? definition.getId() : null;
+            }
+        }, plugin.getTickDriver());
+        this.cooldownManager.setReadyListener(this::notifyCooldownReady);
+        this.playerTasks = new PlayerTasks(plugin.getTickDriver());
+        this.actionBudget = new ActionBudget(plugin, this::executeActionSafely);
     }
 
     /**
@@ -53,12 +89,43 @@ public class ActionDetector {
             return false;
         }
 
-        // Obtener definición del ítem
-        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(itemStack);
+        // Obtener definición del ítem (el contexto ya la trae resuelta desde el listener)
+        ItemDefinition definition = context != null && context.getItemDefinition() != null
+                ? context.getItemDefinition()
+                : plugin.getItemRegistry().getDefinitionFromItemStack(itemStack);
         if (definition == null) {
             return false;
         }
 
+        // Verificar si el trigger requiere que el ítem esté en la mano
+        if (trigger.requiresInHand() && !isHeld(player, itemStack, definition)) {
+            return false;
+        }
+
+        return dispatch(player, definition, trigger, context);
+    }
+
+    /**
+     * Detecta y ejecuta acciones para un ítem ya resuelto desde el snapshot de equipamiento
+     * No necesita leer el ItemStack ni su ItemMeta
+     * @param player El jugador que ejecuta la acción
+     * @param definition La definición del ítem equipado
+     * @param trigger El tipo de trigger activado
+     * @param context Contexto adicional para la acción
+     * @return true si se ejecutaron acciones, false en caso contrario
+     */
+    public boolean detectAndExecute(Player player, ItemDefinition definition, TriggerType trigger, ActionContext context) {
+        if (player == null || !player.isOnline() || definition == null || trigger == null) {
+            return false;
+        }
+
+        return dispatch(player, definition, trigger, context);
+    }
+
+    /**
+     * Comprobaciones comunes y ejecución de las acciones del trigger
+     */
+    private boolean dispatch(Player player, ItemDefinition definition, TriggerType trigger, ActionContext context) {
         // Verificar si el ítem tiene este trigger
         if (!definition.hasTrigger(trigger)) {
             return false;
@@ -98,62 +165,54 @@ public class ActionDetector {
      * Inicia el monitoreo de triggers periódicos para un jugador
      */
     public void startPeriodicMonitoring(Player player, ItemStack itemStack) {
-        ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(itemStack);
+        startPeriodicMonitoring(player, plugin.getItemRegistry().getDefinitionFromItemStack(itemStack));
+    }
+
+    /**
+     * Inicia el monitoreo de triggers periódicos para un ítem equipado ya resuelto
+     */
+    public void startPeriodicMonitoring(Player player, ItemDefinition definition) {
         if (definition == null) {
             return;
         }
 
-        String taskKey = generateTaskKey(player, definition);
-
-        // Verificar si ya hay una tarea corriendo
-        if (periodicTasks.containsKey(taskKey)) {
-            return;
-        }
+        UUID playerId = player.getUniqueId();
 
-        // Crear tarea para WHILE_HELD
+        // Pulso de WHILE_HELD (cada segundo) mientras el ítem siga en la mano según el snapshot
         if (definition.hasTrigger(TriggerType.WHILE_HELD)) {
-            BukkitRunnable task = new BukkitRunnable() {
-                @Override
-                public void run() {
-                    // Verificar si el jugador sigue teniendo el ítem en la mano
-                    ItemStack currentItem = player.getInventory().getItemInMainHand();
-                    if (!plugin.getItemRegistry().getItemFactory().matches(currentItem, definition)) {
-                        // El jugador ya no tiene el ítem, cancelar tarea
-                        this.cancel();
-                        periodicTasks.remove(taskKey);
-                        return;
-                    }
-
-                    // Ejecutar acciones de WHILE_HELD
-                    ActionContext context = new ActionContext.Builder(player, definition, TriggerType.WHILE_HELD)
-                            .itemStack(currentItem)
-                            .build();
-
-                    executeActions(player, definition, TriggerType.WHILE_HELD, context);
-                }
-            };
-
-            task.runTaskTimer(plugin, 20L, 20L); // Cada segundo
-            periodicTasks.put(taskKey, task);
+            playerTasks.startPulse(playerId, pulseKey(definition, TriggerType.WHILE_HELD),
+                    WHILE_HELD_INTERVAL, WHILE_HELD_INTERVAL, () -> {
+                        if (!player.isOnline()
+                                || plugin.getEquipmentTracker().getSnapshot(player).get(EquipmentSlot.HAND) != definition) {
+                            // El jugador ya no tiene el ítem, detener el pulso
+                            return false;
+                        }
+
+                        ActionContext context = new ActionContext.Builder(player, definition, TriggerType.WHILE_HELD)
+                                .itemStack(player.getInventory().getItemInMainHand())
+                                .equipmentSlot(EquipmentSlot.HAND)
+                                .build();
+
+                        executeActions(player, definition, TriggerType.WHILE_HELD, context);
+                        return true;
+                    });
         }
 
-        // Crear tarea para PERIODIC
+        // Pulso de PERIODIC con intervalo basado en el cooldown del ítem (mínimo 5 segundos)
         if (definition.hasTrigger(TriggerType.PERIODIC)) {
-            BukkitRunnable task = new BukkitRunnable() {
-                @Override
-                public void run() {
-                    ActionContext context = new ActionContext.Builder(player, definition, TriggerType.PERIODIC)
-                            .itemStack(itemStack)
-                            .build();
-
-                    executeActions(player, definition, TriggerType.PERIODIC, context);
+            long interval = Math.max(definition.getCooldown() * 20L, MIN_PERIODIC_INTERVAL);
+            playerTasks.startPulse(playerId, pulseKey(definition, TriggerType.PERIODIC), interval, interval, () -> {
+                if (!player.isOnline()) {
+                    return false;
                 }
-            };
 
-            // Intervalo basado en el cooldown del ítem (mínimo 5 segundos)
-            long interval = Math.max(definition.getCooldown() * 20L, 100L);
-            task.runTaskTimer(plugin, interval, interval);
-            periodicTasks.put(taskKey + "_periodic", task);
+                ActionContext context = new ActionContext.Builder(player, definition, TriggerType.PERIODIC)
+                        .itemStack(findEquippedStack(player, definition))
+                        .build();
+
+                executeActions(player, definition, TriggerType.PERIODIC, context);
+                return true;
+            });
         }
     }
 
@@ -161,34 +220,29 @@ public class ActionDetector {
      * Detiene el monitoreo periódico para un jugador e ítem específico
      */
     public void stopPeriodicMonitoring(Player player, ItemDefinition definition) {
-        String taskKey = generateTaskKey(player, definition);
-
-        // Cancelar tarea WHILE_HELD
-        BukkitRunnable task = periodicTasks.remove(taskKey);
-        if (task != null) {
-            task.cancel();
-        }
+        playerTasks.stopPulse(player.getUniqueId(), pulseKey(definition, TriggerType.WHILE_HELD));
+        playerTasks.stopPulse(player.getUniqueId(), pulseKey(definition, TriggerType.PERIODIC));
+    }
 
-        // Cancelar tarea PERIODIC
-        task = periodicTasks.remove(taskKey + "_periodic");
-        if (task != null) {
-            task.cancel();
+    /**
+     * Busca el ItemStack equipado que corresponde a una definición
+     */
+    private ItemStack findEquippedStack(Player player, ItemDefinition definition) {
+        EquipmentSnapshot snapshot = plugin.getEquipmentTracker().getSnapshot(player);
+        for (int i = 0; i < EquipmentSnapshot.TRACKED_SLOTS.length; i++) {
+            if (snapshot.get(i) == definition) {
+                return player.getInventory().getItem(EquipmentSnapshot.TRACKED_SLOTS[i]);
+            }
         }
+        return null;
     }
 
     /**
      * Limpia todas las tareas periódicas de un jugador (cuando se desconecta)
      */
     public void cleanupPlayer(Player player) {
-        String playerKey = player.getUniqueId().toString();
-
-        periodicTasks.entrySet().removeIf(entry -> {
-            if (entry.getKey().contains(playerKey)) {
-                entry.getValue().cancel();
-                return true;
-            }
-            return false;
-        });
+        // Pulsos y acciones retrasadas pendientes del jugador
+        playerTasks.cancelPlayer(player.getUniqueId());
 
         cooldownManager.cleanupPlayer(player);
     }
@@ -205,21 +259,20 @@ public class ActionDetector {
             return false;
         }
 
-        if (trigger == null) {
-            return false;
-        }
-
-        // Verificar si el trigger requiere que el ítem esté en la mano
-        if (trigger.requiresInHand()) {
-            ItemStack mainHand = player.getInventory().getItemInMainHand();
-            ItemStack offHand = player.getInventory().getItemInOffHand();
+        return trigger != null;
+    }
 
-            if (!itemStack.equals(mainHand) && !itemStack.equals(offHand)) {
-                return false;
-            }
+    /**
+     * Verifica si el ítem está en alguna mano del jugador
+     */
+    private boolean isHeld(Player player, ItemStack itemStack, ItemDefinition definition) {
+        if (plugin.getEquipmentTracker().getSnapshot(player).isHeld(definition)) {
+            return true;
         }
 
-        return true;
+        // Algunos cambios se reflejan en el snapshot al tick siguiente: comparar el ítem real
+        return itemStack.equals(player.getInventory().getItemInMainHand())
+                || itemStack.equals(player.getInventory().getItemInOffHand());
     }
 
     /**
@@ -230,10 +283,9 @@ public class ActionDetector {
             return true; // Sin cooldown
         }
 
-        String cooldownKey = generateCooldownKey(player, definition, trigger);
-
-        if (cooldownManager.isOnCooldown(cooldownKey)) {
-            long remaining = cooldownManager.getRemainingTime(cooldownKey);
+        int itemIndex = definition.getNumericId();
+        if (cooldownManager.isOnCooldown(player, itemIndex, trigger)) {
+            long remaining = cooldownManager.getRemainingTime(player, itemIndex, trigger);
             plugin.getMessageManager().sendMessage(player, "items.cooldown", "time", String.valueOf(remaining));
             return false;
         }
@@ -241,6 +293,20 @@ public class ActionDetector {
         return true;
     }
 
+    /**
+     * Avisa al jugador de que un ítem vuelve a estar disponible (cooldown-notify: true)
+     */
+    private void notifyCooldownReady(UUID playerId, int itemIndex, TriggerType trigger) {
+        Player player = plugin.getServer().getPlayer(playerId);
+        ItemDefinition definition = plugin.getItemRegistry().getItemDefinition(itemIndex);
+        if (player == null || !player.isOnline() || definition == null) {
+            return;
+        }
+
+        plugin.getMessageManager().sendActionBar(player, "items.cooldown-ready", "item", definition.getDisplayName());
+        player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_PLING, 0.6f, 1.6f);
+    }
+
     /**
      * Verifica los permisos del jugador para usar el ítem
      */
@@ -258,49 +324,31 @@ public class ActionDetector {
     }
 
     /**
-     * Ejecuta todas las acciones asociadas a un trigger
+     * Ejecuta el plan compilado de un trigger y aplica su cooldown y consumo
      */
     private boolean executeActions(Player player, ItemDefinition definition, TriggerType trigger, ActionContext context) {
-        List<Action> actions = definition.getActionsForTrigger(trigger);
-
-        if (actions.isEmpty()) {
+        ExecutionPlan plan = definition.getExecutionPlan(trigger);
+        if (plan.isEmpty()) {
             return false;
         }
 
-        boolean anyExecuted = false;
-
-        for (Action action : actions) {
-            try {
-                // Verificar si la acción puede ejecutarse (incluyendo sus condiciones específicas)
-                if (action.canExecute(context)) {
-                    if (action.getDelay() > 0) {
-                        // Ejecutar con retraso
-                        new BukkitRunnable() {
-                            @Override
-                            public void run() {
-                                executeActionSafely(action, context);
-                            }
-                        }.runTaskLater(plugin, action.getDelay());
-                    } else {
-                        // Ejecutar inmediatamente
-                        executeActionSafely(action, context);
-                    }
-                    anyExecuted = true;
-                }
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.SEVERE,
-                        "Error ejecutando acción " + action.getType() + " para ítem " + definition.getId(), e);
-            }
+        boolean anyExecuted;
+        try {
+            anyExecuted = plan.run(context, planRunner);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE,
+                    "Error ejecutando acciones de " + trigger.name() + " para ítem " + definition.getId(), e);
+            return false;
         }
 
         // Aplicar cooldown si se ejecutó alguna acción
-        if (anyExecuted && definition.getCooldown() > 0) {
-            String cooldownKey = generateCooldownKey(player, definition, trigger);
-            cooldownManager.setCooldown(cooldownKey, definition.getCooldown());
+        if (anyExecuted && plan.getCooldown() > 0) {
+            cooldownManager.setCooldown(player, definition.getNumericId(), trigger, plan.getCooldown(),
+                    plan.isCooldownNotify());
         }
 
         // Consumir ítem si es necesario
-        if (anyExecuted && definition.isConsumable()) {
+        if (anyExecuted && plan.isConsumable()) {
             consumeItem(player, context.getItemStack());
         }
 
@@ -329,29 +377,20 @@ public class ActionDetector {
     private void consumeItem(Player player, ItemStack itemStack) {
         if (itemStack != null && itemStack.getAmount() > 0) {
             itemStack.setAmount(itemStack.getAmount() - 1);
+            plugin.getMaterialCountIndex().invalidate(player);
 
             if (itemStack.getAmount() <= 0) {
-                // El ítem se agotó, notificar al sistema de monitoreo
-                ItemDefinition definition = plugin.getItemRegistry().getDefinitionFromItemStack(itemStack);
-                if (definition != null) {
-                    stopPeriodicMonitoring(player, definition);
-                }
+                // El ítem se agotó: el snapshot detectará el desequipamiento y detendrá el monitoreo
+                plugin.getEquipmentTracker().scheduleRefresh(player);
             }
         }
     }
 
     /**
-     * Genera una clave única para el cooldown
+     * Clave de un pulso dentro del jugador: índice del ítem y trigger
      */
-    private String generateCooldownKey(Player player, ItemDefinition definition, TriggerType trigger) {
-        return player.getUniqueId() + ":" + definition.getId() + ":" + trigger.name();
-    }
-
-    /**
-     * Genera una clave única para las tareas periódicas
-     */
-    private String generateTaskKey(Player player, ItemDefinition definition) {
-        return player.getUniqueId() + ":" + definition.getId();
+    private static int pulseKey(ItemDefinition definition, TriggerType trigger) {
+        return definition.getNumericId() * TRIGGER_COUNT + trigger.ordinal();
     }
 
     /**
@@ -359,21 +398,29 @@ public class ActionDetector {
      */
     public void shutdown() {
         // Cancelar todas las tareas periódicas
-        periodicTasks.values().forEach(BukkitRunnable::cancel);
-        periodicTasks.clear();
-
-        // Limpiar cache
-        triggerCache.clear();
+        cancelAllPeriodicTasks();
 
         plugin.getLogger().info("ActionDetector limpiado correctamente");
     }
 
+    /**
+     * Cancela todas las tareas periódicas y acciones retrasadas (al recargar las definiciones de ítems)
+     */
+    public void cancelAllPeriodicTasks() {
+        playerTasks.cancelAll();
+        actionBudget.clear();
+    }
+
     // Getters para testing y debugging
     public Cooldowns getCooldownManager() {
         return cooldownManager;
     }
 
+    public ActionBudget getActionBudget() {
+        return actionBudget;
+    }
+
     public int getActivePeriodicTasks() {
-        return periodicTasks.size();
+        return playerTasks.getPulseCount();
     }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package gc.grivyzom.mechanics.movement;
+
+import org.bukkit.FluidCollisionMode;
+import org.bukkit.HeightMap;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.util.RayTraceResult;
+import org.bukkit.util.Vector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calcula destinos seguros para las acciones de movimiento (teleport_forward, launch_player)
+ * Nunca carga chunks: si el recorrido pasa por un chunk sin cargar, el movimiento se rechaza.
+ * El camino se comprueba con un raycast de bloques y el destino con el heightmap del mundo,
+ * revisando solo unos pocos bloques alrededor del punto de llegada.
+ * Solo se usa desde el hilo principal
+ */
+public class MovementResolver {
+
+    // Bloques que se revisan hacia arriba desde el punto de llegada
+    private static final int SEARCH_RANGE = 4;
+
+    // Separación respecto a la pared contra la que choca el raycast
+    private static final double WALL_MARGIN = 0.5;
+
+    // Métricas
+    private long resolved;
+    private long blocked;
+    private long refusedUnloaded;
+    private long refusedUnsafe;
+
+    /**
+     * Destino al avanzar en la dirección de la mirada, parando antes de la primera pared
+     * @param distance Distancia máxima en bloques
+     * @return Ubicación segura (pies y cabeza libres), o null si el movimiento se rechaza
+     */
+    public Location resolveForward(Player player, double distance) {
+        Location origin = player.getLocation();
+        World world = origin.getWorld();
+        Vector direction = origin.getDirection().normalize();
+
+        if (!isPathLoaded(world, origin, direction, distance)) {
+            refusedUnloaded++;
+            return null;
+        }
+
+        // El raycast sale de los ojos para no chocar con el bloque sobre el que se está de pie
+        Location eye = player.getEyeLocation();
+        double travel = distance;
+        RayTraceResult hit = world.rayTraceBlocks(eye, direction, distance, FluidCollisionMode.NEVER, true);
+        if (hit != null) {
+            travel = Math.max(0.0, hit.getHitPosition().distance(eye.toVector()) - WALL_MARGIN);
+            blocked++;
+        }
+
+        // El destino es el punto del rayo (a la altura de los ojos), no el mismo avance desde los pies
+        Location target = eye.clone().add(direction.clone().multiply(travel));
+        Location destination = findStandable(world, target, player.getEyeHeight());
+        if (destination == null) {
+            refusedUnsafe++;
+            return null;
+        }
+
+        destination.setYaw(origin.getYaw());
+        destination.setPitch(origin.getPitch());
+        resolved++;
+        return destination;
+    }
+
+    /**
+     * Espacio libre sobre la cabeza del jugador, hasta un máximo
+     * @return Bloques libres (0 si tiene un techo justo encima)
+     */
+    public double verticalClearance(Player player, double maxBlocks) {
+        Location eye = player.getEyeLocation();
+        RayTraceResult hit = eye.getWorld().rayTraceBlocks(eye, new Vector(0, 1, 0), maxBlocks,
+                FluidCollisionMode.NEVER, true);
+        return hit != null ? hit.getHitPosition().getY() - eye.getY() : maxBlocks;
+    }
+
+    /**
+     * Comprueba que todos los chunks del recorrido estén cargados, sin cargarlos
+     * Recorre las columnas de chunk que cruza el segmento en planta (DDA en 2D), incluidas las
+     * que solo atraviesa por una esquina, antes de que el raycast pueda tocarlas
+     */
+    public boolean isPathLoaded(World world, Location origin, Vector direction, double distance) {
+        double x = origin.getX() / 16.0;
+        double z = origin.getZ() / 16.0;
+        double dx = direction.getX() * distance / 16.0;
+        double dz = direction.getZ() * distance / 16.0;
+
+        int chunkX = (int) Math.floor(x);
+        int chunkZ = (int) Math.floor(z);
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            return false;
+        }
+
+        int stepX = dx > 0 ? 1 : -1;
+        int stepZ = dz > 0 ? 1 : -1;
+
+        // Fracción del segmento hasta el siguiente borde de chunk en cada eje, y entre bordes
+        double deltaX = dx != 0 ? Math.abs(1.0 / dx) : Double.POSITIVE_INFINITY;
+        double deltaZ = dz != 0 ? Math.abs(1.0 / dz) : Double.POSITIVE_INFINITY;
+        double nextX = dx != 0 ? (dx > 0 ? chunkX + 1 - x : x - chunkX) * deltaX : Double.POSITIVE_INFINITY;
+        double nextZ = dz != 0 ? (dz > 0 ? chunkZ + 1 - z : z - chunkZ) * deltaZ : Double.POSITIVE_INFINITY;
+
+        while (Math.min(nextX, nextZ) <= 1.0) {
+            if (nextX < nextZ) {
+                chunkX += stepX;
+                nextX += deltaX;
+            } else if (nextZ < nextX) {
+                chunkZ += stepZ;
+                nextZ += deltaZ;
+            } else {
+                // Cruza justo por la esquina: se revisan también las dos columnas vecinas
+                if (!world.isChunkLoaded(chunkX + stepX, chunkZ) || !world.isChunkLoaded(chunkX, chunkZ + stepZ)) {
+                    return false;
+                }
+                chunkX += stepX;
+                chunkZ += stepZ;
+                nextX += deltaX;
+                nextZ += deltaZ;
+            }
+
+            if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Busca en la columna del punto del rayo una altura con pies y cabeza libres
+     * Los pies bajan desde el punto como mucho la altura de los ojos y solo por bloques
+     * atravesables, así que nunca cruzan el suelo que detuvo el rayo; desde ahí solo se busca
+     * hacia arriba. Por encima del heightmap todo es aire, así que no hace falta revisar bloques
+     * @param target Punto del rayo, a la altura de los ojos
+     */
+    private Location findStandable(World world, Location target, double eyeHeight) {
+        int x = target.getBlockX();
+        int z = target.getBlockZ();
+        int minY = world.getMinHeight();
+        int maxY = world.getMaxHeight() - 2; // La cabeza ocupa y + 1
+
+        int lowest = Math.max(minY, (int) Math.floor(target.getY() - eyeHeight));
+        int y = target.getBlockY();
+        while (y > lowest && world.getBlockAt(x, y - 1, z).isPassable()) {
+            y--;
+        }
+
+        int surface = world.getHighestBlockYAt(x, z, HeightMap.MOTION_BLOCKING);
+        for (int offset = 0; offset <= SEARCH_RANGE; offset++) {
+            int up = y + offset;
+            if (up > surface) {
+                return up <= maxY ? center(world, x, up, z) : null;
+            }
+            if (up <= maxY && isFree(world, x, up, z)) {
+                return center(world, x, up, z);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isFree(World world, int x, int y, int z) {
+        Block feet = world.getBlockAt(x, y, z);
+        return feet.isPassable() && world.getBlockAt(x, y + 1, z).isPassable();
+    }
+
+    private static Location center(World world, int x, int y, int z) {
+        return new Location(world, x + 0.5, y, z + 0.5);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("resolved", resolved);
+        stats.put("blocked_by_wall", blocked);
+        stats.put("refused_unloaded", refusedUnloaded);
+        stats.put("refused_unsafe", refusedUnsafe);
+        return stats;
+    }
+}
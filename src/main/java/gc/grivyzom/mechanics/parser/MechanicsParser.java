@@ -3,15 +3,20 @@ package gc.grivyzom.mechanics.parser;
 import gc.grivyzom.VarietyMain;
 import gc.grivyzom.mechanics.TriggerType;
 import gc.grivyzom.mechanics.actions.Action;
-import gc.grivyzom.mechanics.actions.impl.*;
+import gc.grivyzom.mechanics.actions.ActionParameters;
+import gc.grivyzom.mechanics.actions.ActionRegistry;
+import gc.grivyzom.mechanics.conditions.CompiledCondition;
 import gc.grivyzom.mechanics.conditions.Condition;
+import gc.grivyzom.mechanics.conditions.ConditionCompiler;
 import org.bukkit.configuration.ConfigurationSection;
 
 import java.util.*;
 
 /**
  * Parser que convierte la configuración YAML en objetos de mecánicas funcionales
- * Se encarga de leer triggers, condiciones y acciones desde items.yml
+ * Se encarga de leer triggers, condiciones y acciones desde items.yml. Cada acción se crea con
+ * el tipo registrado en ActionRegistry, que convierte sus parámetros una sola vez; los problemas
+ * se anotan en un ValidationReport, de modo que las acciones no buscan nada al ejecutarse
  */
 public class MechanicsParser {
 
@@ -21,12 +26,38 @@ public class MechanicsParser {
         this.plugin = plugin;
     }
 
+    /**
+     * Ubicación de la acción que se está cargando, para el reporte de validación
+     */
+    private static final class ActionSite {
+        private final ValidationReport report;
+        private final String itemId;
+        private final TriggerType trigger;
+        private final int index;
+
+        private ActionSite(ValidationReport report, String itemId, TriggerType trigger, int index) {
+            this.report = report;
+            this.itemId = itemId;
+            this.trigger = trigger;
+            this.index = index;
+        }
+
+        private void problem(String message) {
+            report.add(itemId, trigger, index, message);
+        }
+    }
+
     /**
      * Parsea las mecánicas desde una sección de configuración de un ítem
+     * @param itemId ID del ítem, para el reporte
      * @param mechanicsSection La sección "mechanics" del ítem en YAML
+     * @param report Reporte donde se anotan los problemas encontrados
+     * @param conditions Mapa donde se añaden las condiciones compiladas de cada trigger con acciones
      * @return Map con triggers y sus acciones asociadas
      */
-    public Map<TriggerType, List<Action>> parseMechanics(ConfigurationSection mechanicsSection) {
+    public Map<TriggerType, List<Action>> parseMechanics(String itemId, ConfigurationSection mechanicsSection,
+                                                         ValidationReport report,
+                                                         Map<TriggerType, CompiledCondition> conditions) {
         Map<TriggerType, List<Action>> mechanics = new HashMap<>();
 
         if (mechanicsSection == null) {
@@ -38,7 +69,7 @@ public class MechanicsParser {
             TriggerType trigger = TriggerType.fromConfigKey(triggerKey);
 
             if (trigger == null) {
-                plugin.getLogger().warning("Trigger desconocido: " + triggerKey);
+                report.add(itemId, null, -1, "Trigger desconocido: " + triggerKey);
                 continue;
             }
 
@@ -47,14 +78,30 @@ public class MechanicsParser {
                 continue;
             }
 
-            // Parsear condiciones para este trigger
-            List<Condition> conditions = parseConditions(triggerSection.getStringList("conditions"));
+            // Compilar condiciones para este trigger
+            List<Condition> leaves = new ArrayList<>();
+            List<String> errors = new ArrayList<>();
+            CompiledCondition condition = parseConditions(triggerSection.getList("conditions"), leaves, errors);
+            for (String error : errors) {
+                report.add(itemId, trigger, -1, "Condición inválida: " + error);
+            }
+
+            // Parsear acciones para este trigger (lista de mapas o sección con claves)
+            List<Map<?, ?>> actionData = triggerSection.isList("actions")
+                    ? triggerSection.getMapList("actions")
+                    : actionSections(triggerSection.getConfigurationSection("actions"));
 
-            // Parsear acciones para este trigger
-            List<Action> actions = parseActions(triggerSection.getConfigurationSection("actions"), conditions);
+            List<Action> actions = new ArrayList<>();
+            for (int i = 0; i < actionData.size(); i++) {
+                Action action = parseAction(actionData.get(i), leaves, new ActionSite(report, itemId, trigger, i));
+                if (action != null) {
+                    actions.add(action);
+                }
+            }
 
             if (!actions.isEmpty()) {
                 mechanics.put(trigger, actions);
+                conditions.put(trigger, condition);
                 plugin.getLogger().info("Trigger " + trigger.name() + " cargado con " + actions.size() + " acciones");
             }
         }
@@ -63,173 +110,146 @@ public class MechanicsParser {
     }
 
     /**
-     * Parsea una lista de condiciones desde strings de configuración
+     * Compila las condiciones de un trigger; los errores se reportan una vez, al cargar
+     * Cada elemento es una condición ("tipo:valor[:invertido]") o un grupo con una sola
+     * clave: all (todas), any (alguna) o not (ninguna). Los elementos de la lista se combinan con AND
+     * @param leaves Lista donde se añaden las condiciones individuales leídas
+     * @param errors Lista donde se añaden los errores encontrados
      */
-    private List<Condition> parseConditions(List<String> conditionStrings) {
-        List<Condition> conditions = new ArrayList<>();
-
-        if (conditionStrings == null) {
-            return conditions;
+    private CompiledCondition parseConditions(List<?> rawConditions, List<Condition> leaves, List<String> errors) {
+        if (rawConditions == null || rawConditions.isEmpty()) {
+            return CompiledCondition.ALWAYS;
         }
 
-        for (String conditionString : conditionStrings) {
-            Condition condition = Condition.parseFromString(conditionString);
-            if (condition != null && condition.isValid()) {
-                conditions.add(condition);
-            } else {
-                plugin.getLogger().warning("Condición inválida: " + conditionString);
-            }
-        }
+        ConditionCompiler compiler = plugin.getConditionChecker().getCompiler();
+        return CompiledCondition.all(compileNodes(rawConditions, compiler, leaves, errors));
+    }
 
-        return conditions;
+    private static List<CompiledCondition> compileNodes(List<?> nodes, ConditionCompiler compiler,
+                                                        List<Condition> leaves, List<String> errors) {
+        List<CompiledCondition> compiled = new ArrayList<>();
+        for (Object node : nodes) {
+            compiled.add(compileNode(node, compiler, leaves, errors));
+        }
+        return compiled;
     }
 
     /**
-     * Parsea acciones desde una sección de configuración
+     * Compila un elemento de la lista de condiciones: una condición o un grupo all/any/not
      */
-    private List<Action> parseActions(ConfigurationSection actionsSection, List<Condition> conditions) {
-        List<Action> actions = new ArrayList<>();
-
-        if (actionsSection == null) {
-            return actions;
+    static CompiledCondition compileNode(Object node, ConditionCompiler compiler, List<Condition> leaves,
+                                         List<String> errors) {
+        if (node instanceof String) {
+            Condition condition = Condition.parseFromString((String) node);
+            if (condition != null) {
+                leaves.add(condition);
+            }
+            return compiler.compile(condition, errors);
         }
 
-        // Las acciones pueden estar como lista o como sección
-        if (actionsSection.isList("")) {
-            // Formato de lista
-            List<Map<?, ?>> actionList = actionsSection.getMapList("");
-            for (Map<?, ?> actionMap : actionList) {
-                Action action = parseAction(actionMap, conditions);
-                if (action != null) {
-                    actions.add(action);
-                }
+        if (node instanceof Map) {
+            Map<?, ?> group = (Map<?, ?>) node;
+            if (group.size() != 1) {
+                errors.add("un grupo debe tener una sola clave (all, any o not): " + group.keySet());
+                return CompiledCondition.NEVER;
             }
-        } else {
-            // Formato de sección individual
-            for (String actionKey : actionsSection.getKeys(false)) {
-                ConfigurationSection actionSection = actionsSection.getConfigurationSection(actionKey);
-                if (actionSection != null) {
-                    Action action = parseAction(actionSection.getValues(false), conditions);
-                    if (action != null) {
-                        actions.add(action);
+
+            Map.Entry<?, ?> entry = group.entrySet().iterator().next();
+            String key = String.valueOf(entry.getKey()).toLowerCase();
+            List<?> children = entry.getValue() instanceof List
+                    ? (List<?>) entry.getValue()
+                    : Collections.singletonList(entry.getValue());
+
+            switch (key) {
+                case "all":
+                    return CompiledCondition.all(compileNodes(children, compiler, leaves, errors));
+                case "any":
+                    return CompiledCondition.any(compileNodes(children, compiler, leaves, errors));
+                case "not": {
+                    int reported = errors.size();
+                    List<CompiledCondition> compiled = compileNodes(children, compiler, leaves, errors);
+                    // Un hijo inválido bloquea siempre: invertirlo anularía la guarda, como con ":true"
+                    if (errors.size() > reported && compiled.contains(CompiledCondition.NEVER)) {
+                        return CompiledCondition.NEVER;
                     }
+                    return CompiledCondition.none(compiled);
                 }
+                default:
+                    errors.add("grupo desconocido '" + key + "' (usa all, any o not)");
+                    return CompiledCondition.NEVER;
             }
         }
 
-        return actions;
+        errors.add("formato no soportado: " + node);
+        return CompiledCondition.NEVER;
     }
 
     /**
-     * Parsea una acción individual desde un mapa de configuración
+     * Datos de las acciones escritas como sección con una subsección por acción
      */
-    private Action parseAction(Map<?, ?> actionData, List<Condition> conditions) {
-        try {
-            String type = (String) actionData.get("type");
-            if (type == null) {
-                plugin.getLogger().warning("Acción sin tipo especificado");
-                return null;
-            }
+    private List<Map<?, ?>> actionSections(ConfigurationSection actionsSection) {
+        List<Map<?, ?>> actions = new ArrayList<>();
 
-            int delay = actionData.containsKey("delay") ?
-                    ((Number) actionData.get("delay")).intValue() : 0;
-
-            // Crear la acción específica según el tipo
-            return createAction(type.toLowerCase(), actionData, conditions, delay);
+        if (actionsSection == null) {
+            return actions;
+        }
 
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error parseando acción: " + e.getMessage());
-            return null;
+        for (String actionKey : actionsSection.getKeys(false)) {
+            ConfigurationSection actionSection = actionsSection.getConfigurationSection(actionKey);
+            if (actionSection != null) {
+                actions.add(actionSection.getValues(false));
+            }
         }
+
+        return actions;
     }
 
     /**
-     * Crea una instancia de Action específica según el tipo
+     * Parsea una acción individual desde un mapa de configuración
      */
-    private Action createAction(String type, Map<?, ?> data, List<Condition> conditions, int delay) {
-        switch (type) {
-            case "heal_player":
-                double healAmount = getDoubleValue(data, "value", 1.0);
-                return new HealPlayerAction(healAmount, conditions, delay);
-
-            case "damage_boost":
-                double damageBoost = getDoubleValue(data, "value", 1.0);
-                return new DamageBoostAction(damageBoost, conditions, delay);
-
-            case "apply_potion":
-                String effect = getStringValue(data, "effect", "speed");
-                int duration = getIntValue(data, "duration", 60);
-                int amplifier = getIntValue(data, "amplifier", 0);
-                return new ApplyPotionAction(effect, duration, amplifier, conditions, delay);
-
-            case "remove_potion":
-                String removeEffect = getStringValue(data, "effect", "speed");
-                return new RemovePotionAction(removeEffect, conditions, delay);
-
-            case "play_sound":
-                String sound = getStringValue(data, "sound", "ENTITY_PLAYER_LEVELUP");
-                float volume = getFloatValue(data, "volume", 1.0f);
-                float pitch = getFloatValue(data, "pitch", 1.0f);
-                return new PlaySoundAction(sound, volume, pitch, conditions, delay);
-
-            case "spawn_particles":
-                String particle = getStringValue(data, "particle", "FLAME");
-                int amount = getIntValue(data, "amount", 10);
-                return new SpawnParticlesAction(particle, amount, conditions, delay);
-
-            case "send_message":
-                String message = getStringValue(data, "message", "");
-                return new SendMessageAction(message, conditions, delay);
-
-            case "teleport_forward":
-                double distance = getDoubleValue(data, "distance", 5.0);
-                return new TeleportForwardAction(distance, conditions, delay);
-
-            case "launch_player":
-                double power = getDoubleValue(data, "power", 1.0);
-                return new LaunchPlayerAction(power, conditions, delay);
-
-            case "consume_experience":
-                int levels = getIntValue(data, "levels", 1);
-                return new ConsumeExperienceAction(levels, conditions, delay);
-
-            case "set_fire":
-                int fireDuration = getIntValue(data, "duration", 5);
-                return new SetFireAction(fireDuration, conditions, delay);
-
-            default:
-                plugin.getLogger().warning("Tipo de acción desconocido: " + type);
-                return null;
+    private Action parseAction(Map<?, ?> actionData, List<Condition> conditions, ActionSite site) {
+        Object type = actionData.get("type");
+        if (type == null) {
+            site.problem("Acción sin tipo especificado");
+            return null;
         }
-    }
 
-    // Métodos auxiliares para obtener valores con defaults
-    private double getDoubleValue(Map<?, ?> data, String key, double defaultValue) {
-        Object value = data.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).doubleValue();
+        Object rawDelay = actionData.get("delay");
+        int delay = 0;
+        if (rawDelay instanceof Number) {
+            delay = ((Number) rawDelay).intValue();
+        } else if (rawDelay != null) {
+            site.problem("delay debe ser un número de ticks, se recibió '" + rawDelay + "'");
         }
-        return defaultValue;
+
+        // Crear la acción específica según el tipo
+        return createAction(type.toString().toLowerCase(), actionData, conditions, delay, site);
     }
 
-    private int getIntValue(Map<?, ?> data, String key, int defaultValue) {
-        Object value = data.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).intValue();
+    /**
+     * Crea la acción con el tipo registrado en ActionRegistry, con sus parámetros ya convertidos
+     */
+    private Action createAction(String type, Map<?, ?> data, List<Condition> conditions, int delay, ActionSite site) {
+        ActionRegistry.ActionType actionType = plugin.getActionRegistry().getAction(type);
+        if (actionType == null) {
+            site.problem("Tipo de acción desconocido: " + type);
+            return null;
         }
-        return defaultValue;
-    }
 
-    private float getFloatValue(Map<?, ?> data, String key, float defaultValue) {
-        Object value = data.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).floatValue();
+        ActionParameters parameters = actionType.getSchema().bind(data, site::problem);
+        if (parameters == null) {
+            return null;
         }
-        return defaultValue;
-    }
 
-    private String getStringValue(Map<?, ?> data, String key, String defaultValue) {
-        Object value = data.get(key);
-        return value != null ? value.toString() : defaultValue;
+        try {
+            Action action = actionType.getFactory().create(parameters, conditions, delay);
+            if (action == null) {
+                site.problem("La acción " + type + " se descartó al crearla");
+            }
+            return action;
+        } catch (IllegalArgumentException e) {
+            site.problem(e.getMessage());
+            return null;
+        }
     }
 }
\ No newline at end of file
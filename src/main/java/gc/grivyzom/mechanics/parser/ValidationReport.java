@@ -0,0 +1,95 @@
+package gc.grivyzom.mechanics.parser;
+
+import gc.grivyzom.mechanics.TriggerType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Problemas encontrados al cargar items.yml, con el ítem, trigger y acción donde ocurren
+ * Se rellena durante una carga completa y se conserva hasta la siguiente
+ */
+public class ValidationReport {
+
+    /**
+     * Un problema de configuración
+     */
+    public static final class Problem {
+        private final String itemId;
+        private final TriggerType trigger;
+        private final int actionIndex;
+        private final String message;
+
+        private Problem(String itemId, TriggerType trigger, int actionIndex, String message) {
+            this.itemId = itemId;
+            this.trigger = trigger;
+            this.actionIndex = actionIndex;
+            this.message = message;
+        }
+
+        public String getItemId() { return itemId; }
+
+        /**
+         * Trigger afectado, o null si el problema es del ítem
+         */
+        public TriggerType getTrigger() { return trigger; }
+
+        /**
+         * Posición de la acción dentro del trigger (desde 0), o -1 si no afecta a una acción
+         */
+        public int getActionIndex() { return actionIndex; }
+
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            StringBuilder location = new StringBuilder(itemId);
+            if (trigger != null) {
+                location.append(" / ").append(trigger.name());
+            }
+            if (actionIndex >= 0) {
+                location.append(" / acción #").append(actionIndex + 1);
+            }
+            return location + ": " + message;
+        }
+    }
+
+    private final List<Problem> problems = new ArrayList<>();
+
+    /**
+     * Registra un problema
+     * @param trigger Trigger afectado o null
+     * @param actionIndex Posición de la acción o -1
+     */
+    public void add(String itemId, TriggerType trigger, int actionIndex, String message) {
+        problems.add(new Problem(itemId, trigger, actionIndex, message));
+    }
+
+    public List<Problem> getProblems() {
+        return Collections.unmodifiableList(problems);
+    }
+
+    public boolean isEmpty() {
+        return problems.isEmpty();
+    }
+
+    public int size() {
+        return problems.size();
+    }
+
+    /**
+     * Escribe cada problema en el log, seguido de un resumen
+     */
+    public void log(Logger logger) {
+        if (problems.isEmpty()) {
+            return;
+        }
+
+        for (Problem problem : problems) {
+            logger.warning("Configuración inválida en " + problem);
+        }
+        logger.warning("items.yml tiene " + problems.size() + " problema(s) de configuración");
+    }
+}
@@ -0,0 +1,469 @@
+package gc.grivyzom.storage;
+
+import gc.grivyzom.VarietyMain;
+import gc.grivyzom.items.ItemDefinition;
+import gc.grivyzom.mechanics.TriggerType;
+import gc.grivyzom.util.Cooldowns;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistencia de cooldowns de ítems entre reconexiones y reinicios
+ * El hilo principal nunca toca la base de datos: los cambios se acumulan en memoria y un
+ * hilo propio los escribe por lotes (write-behind); la carga se hace durante
+ * AsyncPlayerPreLoginEvent y se aplica al unirse el jugador
+ *
+ * En modo compartido los servidores que usan la misma base de datos MySQL se avisan de
+ * los cambios a través de un registro incremental; las consultas de cooldown siguen
+ * resolviéndose siempre en memoria
+ */
+public class CooldownPersistence implements Listener, Cooldowns.ChangeListener {
+
+    private static final long MILLIS_PER_TICK = 50L;
+    private static final int SHARED_POLL_LIMIT = 500;
+    private static final long SHARED_LOG_RETENTION = TimeUnit.MINUTES.toMillis(10);
+
+    private final VarietyMain plugin;
+    private final Cooldowns cooldowns;
+    private final Logger logger;
+
+    // Cambios pendientes de escribir, por "uuid:itemId:TRIGGER"; el último cambio gana
+    private final ConcurrentHashMap<String, StoredCooldown> pending;
+
+    // Cooldowns cargados en el pre-login, a la espera de que el jugador entre
+    private final ConcurrentHashMap<UUID, List<StoredCooldown>> preloaded;
+
+    private CooldownStore store;
+    private ScheduledExecutorService executor;
+    private volatile boolean enabled;
+    private volatile boolean shared;
+    private long loadTimeout;
+
+    public CooldownPersistence(VarietyMain plugin, Cooldowns cooldowns) {
+        this(plugin, cooldowns, plugin.getLogger());
+    }
+
+    /**
+     * Sin plugin: solo el almacenamiento, la cola de escritura y la carga (pruebas)
+     */
+    CooldownPersistence(Cooldowns cooldowns, Logger logger) {
+        this(null, cooldowns, logger);
+    }
+
+    private CooldownPersistence(VarietyMain plugin, Cooldowns cooldowns, Logger logger) {
+        this.plugin = plugin;
+        this.cooldowns = cooldowns;
+        this.logger = logger;
+        this.pending = new ConcurrentHashMap<>();
+        this.preloaded = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Abre el almacenamiento configurado en config.yml e inicia las escrituras periódicas
+     */
+    public void start() {
+        ConfigurationSection config = plugin.getConfig().getConfigurationSection("storage");
+        if (config == null || !config.getBoolean("enabled", true)) {
+            logger.info("Persistencia de cooldowns deshabilitada");
+            return;
+        }
+
+        CooldownStore configured = createStore(config);
+        if (configured == null) {
+            return;
+        }
+
+        long flushInterval = Math.max(250L, config.getLong("flush-interval", 2000L));
+        long timeout = Math.max(500L, config.getLong("load-timeout", 3000L));
+
+        ConfigurationSection sharedConfig = config.getConfigurationSection("shared");
+        boolean wantsShared = sharedConfig != null && sharedConfig.getBoolean("enabled", false);
+        if (wantsShared && !configured.supportsSharedLog()) {
+            logger.warning("El modo compartido de cooldowns requiere storage.type: mysql; se ignora");
+            wantsShared = false;
+        }
+        String serverId = wantsShared ? resolveServerId(sharedConfig) : null;
+        long pollInterval = wantsShared ? Math.max(250L, sharedConfig.getLong("poll-interval", 1000L)) : 0L;
+
+        open(configured, flushInterval, timeout, serverId, pollInterval);
+
+        // Jugadores ya conectados (el plugin se habilitó con el servidor en marcha)
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            UUID playerId = player.getUniqueId();
+            executor.execute(() -> {
+                List<StoredCooldown> loaded = loadMerged(playerId);
+                plugin.getServer().getScheduler().runTask(plugin, () -> apply(playerId, loaded));
+            });
+        }
+    }
+
+    /**
+     * Inicia el hilo de almacenamiento sobre un almacenamiento ya creado
+     * La inicialización corre en ese hilo: las cargas y escrituras posteriores quedan en cola
+     * detrás de ella
+     * @param serverId Identificador en el registro compartido, o null sin modo compartido
+     */
+    void open(CooldownStore store, long flushInterval, long loadTimeout, String serverId, long pollInterval) {
+        this.store = store;
+        this.loadTimeout = loadTimeout;
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VarietyLoot-Storage");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        enabled = true;
+        cooldowns.setChangeListener(this);
+
+        executor.execute(() -> {
+            try {
+                store.initialize();
+                int purged = store.purgeExpired(System.currentTimeMillis());
+                if (serverId != null) {
+                    store.enableSharedLog(serverId);
+                    shared = true;
+                }
+                logger.info("Persistencia de cooldowns iniciada (" + store.getName()
+                        + (shared ? ", compartida como '" + serverId + "'" : "") + ", "
+                        + purged + " cooldowns vencidos eliminados)");
+            } catch (SQLException e) {
+                enabled = false;
+                logger.log(Level.SEVERE, "No se pudo iniciar la persistencia de cooldowns", e);
+            }
+        });
+        executor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+
+        if (serverId != null) {
+            executor.scheduleWithFixedDelay(this::pollShared, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+            executor.scheduleWithFixedDelay(this::purgeSharedLog, 5L, 5L, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Crea el almacenamiento según el tipo configurado
+     */
+    private CooldownStore createStore(ConfigurationSection config) {
+        String prefix = config.getString("table-prefix", "varietyloot_");
+        String type = config.getString("type", "sqlite").toLowerCase();
+
+        switch (type) {
+            case "sqlite":
+                File file = new File(plugin.getDataFolder(), config.getString("sqlite.file", "cooldowns.db"));
+                return new JdbcCooldownStore(JdbcCooldownStore.Dialect.SQLITE,
+                        "jdbc:sqlite:" + file.getAbsolutePath(), null, null, prefix);
+
+            case "mysql":
+                String url = "jdbc:mysql://" + config.getString("mysql.host", "localhost") + ":"
+                        + config.getInt("mysql.port", 3306) + "/" + config.getString("mysql.database", "varietyloot")
+                        + "?" + config.getString("mysql.properties", "useSSL=false");
+                return new JdbcCooldownStore(JdbcCooldownStore.Dialect.MYSQL, url,
+                        config.getString("mysql.username", "root"), config.getString("mysql.password", ""), prefix);
+
+            default:
+                logger.warning("Tipo de almacenamiento desconocido: " + type + " (usa sqlite o mysql)");
+                return null;
+        }
+    }
+
+    /**
+     * Identificador de este servidor en el registro compartido (aleatorio si no se configura)
+     */
+    private String resolveServerId(ConfigurationSection sharedConfig) {
+        String serverId = sharedConfig.getString("server-id", "");
+        if (serverId == null || serverId.isBlank()) {
+            serverId = UUID.randomUUID().toString().substring(0, 8);
+        }
+        return serverId;
+    }
+
+    // ==========================================
+    // ESCRITURA (write-behind)
+    // ==========================================
+
+    /**
+     * Encola un cambio de cooldown; se llama desde el hilo principal y no bloquea
+     */
+    @Override
+    public void onCooldownChanged(UUID playerId, int itemIndex, TriggerType trigger, long expirationTick) {
+        if (!enabled) {
+            return;
+        }
+
+        ItemDefinition definition = plugin.getItemRegistry().getItemDefinition(itemIndex);
+        if (definition == null) {
+            return;
+        }
+
+        long expiresAt = expirationTick == 0L ? 0L
+                : System.currentTimeMillis() + (expirationTick - cooldowns.getCurrentTick()) * MILLIS_PER_TICK;
+        enqueue(new StoredCooldown(playerId, definition.getId(), trigger.name(), expiresAt));
+    }
+
+    /**
+     * Añade un cambio a la cola; sustituye al pendiente del mismo cooldown
+     */
+    void enqueue(StoredCooldown change) {
+        pending.put(change.getPlayerId() + ":" + change.getKey(), change);
+    }
+
+    /**
+     * Escribe los cambios pendientes en un solo lote (hilo de almacenamiento)
+     * Un cambio solo sale de la cola si no fue reemplazado mientras se escribía
+     */
+    void flush() {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, StoredCooldown> batch = new HashMap<>(pending);
+        try {
+            store.writeBatch(batch.values());
+            batch.forEach(pending::remove);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error al guardar cooldowns; se reintentará", e);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error inesperado al guardar cooldowns", e);
+        }
+    }
+
+    // ==========================================
+    // CARGA
+    // ==========================================
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (!enabled || event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        UUID playerId = event.getUniqueId();
+        try {
+            // Este hilo ya es asíncrono: esperar la carga no afecta al hilo principal
+            List<StoredCooldown> loaded = executor.submit(() -> loadMerged(playerId))
+                    .get(loadTimeout, TimeUnit.MILLISECONDS);
+            preloaded.put(playerId, loaded);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "No se pudieron cargar los cooldowns de " + event.getName(), e);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent event) {
+        // Rechazado después del pre-login (baneo, whitelist, servidor lleno): nunca llegará a entrar
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            preloaded.remove(event.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        List<StoredCooldown> loaded = takePreloaded(playerId);
+        if (loaded != null) {
+            apply(playerId, loaded);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        preloaded.remove(event.getPlayer().getUniqueId());
+
+        // Si cambia de servidor, el siguiente debe ver sus cooldowns cuanto antes
+        if (shared && !pending.isEmpty()) {
+            executor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Retira los cooldowns cargados en el pre-login de un jugador
+     * @return null si no se cargaron (sin persistencia, error o tiempo agotado)
+     */
+    List<StoredCooldown> takePreloaded(UUID playerId) {
+        return preloaded.remove(playerId);
+    }
+
+    /**
+     * Carga los cooldowns de la base de datos y superpone los cambios aún no escritos
+     * (un jugador que reconecta antes del siguiente lote)
+     */
+    private List<StoredCooldown> loadMerged(UUID playerId) {
+        Map<String, StoredCooldown> merged = new HashMap<>();
+        long now = System.currentTimeMillis();
+
+        if (enabled) {
+            try {
+                for (StoredCooldown stored : store.load(playerId, now)) {
+                    merged.put(stored.getKey(), stored);
+                }
+            } catch (SQLException e) {
+                logger.log(Level.WARNING, "Error al cargar cooldowns de " + playerId, e);
+            }
+        }
+
+        for (StoredCooldown change : pending.values()) {
+            if (change.getPlayerId().equals(playerId)) {
+                merged.put(change.getKey(), change);
+            }
+        }
+
+        List<StoredCooldown> result = new ArrayList<>();
+        for (StoredCooldown stored : merged.values()) {
+            if (!stored.isRemoval() && stored.getExpiresAt() > now) {
+                result.add(stored);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Restaura los cooldowns cargados en memoria (hilo principal)
+     */
+    private void apply(UUID playerId, List<StoredCooldown> loaded) {
+        long now = System.currentTimeMillis();
+
+        for (StoredCooldown stored : loaded) {
+            ItemDefinition definition = plugin.getItemRegistry().getItemDefinition(stored.getItemId());
+            TriggerType trigger = parseTrigger(stored.getTrigger());
+            if (definition == null || trigger == null) {
+                continue;
+            }
+
+            long remainingTicks = (stored.getExpiresAt() - now + MILLIS_PER_TICK - 1) / MILLIS_PER_TICK;
+            cooldowns.restoreCooldown(playerId, definition.getNumericId(), trigger, remainingTicks,
+                    definition.isCooldownNotify());
+        }
+    }
+
+    // ==========================================
+    // SINCRONIZACIÓN ENTRE SERVIDORES
+    // ==========================================
+
+    /**
+     * Lee los cambios de otros servidores (hilo de almacenamiento) y los aplica en el principal
+     */
+    private void pollShared() {
+        if (!enabled || !shared) {
+            return;
+        }
+
+        try {
+            List<StoredCooldown> changes = store.pollSharedChanges(SHARED_POLL_LIMIT);
+            if (!changes.isEmpty()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> applyShared(changes));
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error al leer cooldowns compartidos", e);
+        }
+    }
+
+    /**
+     * Aplica cambios remotos a los jugadores de este servidor (hilo principal)
+     * Los que aún están entrando los reciben en su carga previa; el resto se ignora,
+     * ya que la tabla principal tendrá el estado cuando entren
+     */
+    private void applyShared(List<StoredCooldown> changes) {
+        Map<UUID, List<StoredCooldown>> byPlayer = new HashMap<>();
+        for (StoredCooldown change : changes) {
+            byPlayer.computeIfAbsent(change.getPlayerId(), id -> new ArrayList<>()).add(change);
+        }
+
+        byPlayer.forEach((playerId, playerChanges) -> {
+            if (plugin.getServer().getPlayer(playerId) != null) {
+                apply(playerId, playerChanges);
+                return;
+            }
+
+            preloaded.computeIfPresent(playerId, (id, loaded) -> {
+                Map<String, StoredCooldown> merged = new HashMap<>();
+                loaded.forEach(stored -> merged.put(stored.getKey(), stored));
+                playerChanges.forEach(change -> merged.put(change.getKey(), change));
+                return new ArrayList<>(merged.values());
+            });
+        });
+    }
+
+    /**
+     * Borra del registro compartido los cambios que ya leyeron todos los servidores
+     */
+    private void purgeSharedLog() {
+        try {
+            store.purgeSharedLog(System.currentTimeMillis() - SHARED_LOG_RETENTION);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error al limpiar el registro de cooldowns compartidos", e);
+        }
+    }
+
+    private TriggerType parseTrigger(String name) {
+        try {
+            return TriggerType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // ==========================================
+    // CIERRE
+    // ==========================================
+
+    /**
+     * Escribe lo pendiente y cierra el almacenamiento (al deshabilitar el plugin)
+     */
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+
+        cooldowns.setChangeListener(null);
+        executor.execute(this::flush);
+        executor.execute(store::close);
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("La escritura final de cooldowns no terminó a tiempo");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        enabled = false;
+        executor = null;
+    }
+
+    /**
+     * Obtiene estadísticas de la persistencia
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("backend", store != null ? store.getName() : "none");
+        stats.put("shared", shared);
+        stats.put("pending_writes", pending.size());
+        stats.put("preloaded_players", preloaded.size());
+        return stats;
+    }
+}
@@ -0,0 +1,74 @@
+package gc.grivyzom.storage;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Almacenamiento persistente de cooldowns
+ * Las implementaciones pueden bloquear: solo se llaman desde el hilo de CooldownPersistence
+ */
+public interface CooldownStore {
+
+    /**
+     * Abre la conexión y crea las tablas si no existen
+     */
+    void initialize() throws SQLException;
+
+    /**
+     * Carga los cooldowns vigentes de un jugador
+     * @param now Instante actual en milisegundos; los ya vencidos se descartan
+     */
+    List<StoredCooldown> load(UUID playerId, long now) throws SQLException;
+
+    /**
+     * Escribe un lote de cambios en una sola transacción
+     * Los elementos con isRemoval() se borran; el resto se insertan o actualizan
+     */
+    void writeBatch(Collection<StoredCooldown> changes) throws SQLException;
+
+    /**
+     * Borra los cooldowns ya vencidos
+     * @return Número de filas borradas
+     */
+    int purgeExpired(long now) throws SQLException;
+
+    // ==========================================
+    // MODO COMPARTIDO (varios servidores)
+    // ==========================================
+
+    /**
+     * Si el backend puede compartirse entre servidores (una base de datos de red)
+     */
+    boolean supportsSharedLog();
+
+    /**
+     * Crea el registro de cambios compartido y empieza a publicar en él los lotes escritos
+     * Los cambios anteriores a la activación no se leen: el estado ya está en la tabla principal
+     * @param serverId Identificador de este servidor, para no releer sus propios cambios
+     */
+    void enableSharedLog(String serverId) throws SQLException;
+
+    /**
+     * Lee los cambios publicados por otros servidores desde la última consulta
+     * @param limit Máximo de cambios por consulta
+     */
+    List<StoredCooldown> pollSharedChanges(int limit) throws SQLException;
+
+    /**
+     * Borra del registro compartido los cambios escritos antes de un instante
+     * @return Número de filas borradas
+     */
+    int purgeSharedLog(long olderThan) throws SQLException;
+
+    /**
+     * Cierra la conexión
+     */
+    void close();
+
+    /**
+     * Nombre del backend para logs
+     */
+    String getName();
+}
@@ -0,0 +1,324 @@
+package gc.grivyzom.storage;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Almacenamiento de cooldowns sobre JDBC
+ * Soporta un archivo SQLite local (driver incluido en Spigot) o un servidor MySQL;
+ * solo cambia la sintaxis del upsert. Usa una única conexión, accedida siempre
+ * desde el mismo hilo
+ *
+ * En modo compartido (solo MySQL) cada lote también se añade a una tabla de registro con
+ * versión autoincremental; los demás servidores leen las filas nuevas. Una transacción puede
+ * confirmarse después de otra con versión mayor, así que cada lectura repasa también las filas
+ * escritas en los últimos LATE_COMMIT_WINDOW milisegundos y descarta las ya leídas. La ventana
+ * se mide en tiempo y no en versiones: un lote grande de otro servidor no la agota. Solo se
+ * pierde una fila si su transacción tarda en confirmarse más que la ventana (menos el desfase
+ * entre los relojes de los servidores). Las filas llevan la expiración absoluta, así que
+ * aplicarlas dos veces no cambia el resultado
+ */
+public class JdbcCooldownStore implements CooldownStore {
+
+    /**
+     * Diferencias de SQL entre los backends soportados
+     */
+    public enum Dialect {
+        SQLITE("org.sqlite.JDBC",
+                "ON CONFLICT(player_uuid, item_id, trigger_type) DO UPDATE SET expires_at = excluded.expires_at",
+                "INTEGER PRIMARY KEY AUTOINCREMENT", false),
+        MYSQL("com.mysql.cj.jdbc.Driver",
+                "ON DUPLICATE KEY UPDATE expires_at = VALUES(expires_at)",
+                "BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY", true);
+
+        private final String driverClass;
+        private final String upsertSuffix;
+        private final String logVersionColumn;
+        private final boolean inlineIndex; // SQLite no admite INDEX dentro de CREATE TABLE
+
+        Dialect(String driverClass, String upsertSuffix, String logVersionColumn, boolean inlineIndex) {
+            this.driverClass = driverClass;
+            this.upsertSuffix = upsertSuffix;
+            this.logVersionColumn = logVersionColumn;
+            this.inlineIndex = inlineIndex;
+        }
+    }
+
+    // Antigüedad (por written_at) de las filas que se siguen releyendo, por si se confirman tarde
+    // Debe ser menor que la retención del registro compartido
+    static final long LATE_COMMIT_WINDOW = TimeUnit.SECONDS.toMillis(60);
+
+    private final Dialect dialect;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String table;
+    private final String logTable;
+
+    private Connection connection;
+
+    // Modo compartido: null si está desactivado
+    private String serverId;
+    private long lastVersion;
+    private final Map<Long, Long> seenVersions = new HashMap<>(); // Leídas dentro de la ventana -> written_at
+
+    public JdbcCooldownStore(Dialect dialect, String url, String username, String password, String tablePrefix) {
+        this.dialect = dialect;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.table = tablePrefix + "cooldowns";
+        this.logTable = tablePrefix + "cooldown_log";
+    }
+
+    @Override
+    public void initialize() throws SQLException {
+        try {
+            Class.forName(dialect.driverClass);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("Driver JDBC no disponible: " + dialect.driverClass, e);
+        }
+
+        try (Statement statement = getConnection().createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + table + " ("
+                    + "player_uuid CHAR(36) NOT NULL, "
+                    + "item_id VARCHAR(64) NOT NULL, "
+                    + "trigger_type VARCHAR(32) NOT NULL, "
+                    + "expires_at BIGINT NOT NULL, "
+                    + "PRIMARY KEY (player_uuid, item_id, trigger_type))");
+        }
+    }
+
+    @Override
+    public List<StoredCooldown> load(UUID playerId, long now) throws SQLException {
+        List<StoredCooldown> cooldowns = new ArrayList<>();
+        String sql = "SELECT item_id, trigger_type, expires_at FROM " + table
+                + " WHERE player_uuid = ? AND expires_at > ?";
+
+        try (PreparedStatement statement = getConnection().prepareStatement(sql)) {
+            statement.setString(1, playerId.toString());
+            statement.setLong(2, now);
+
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    cooldowns.add(new StoredCooldown(playerId, result.getString(1), result.getString(2),
+                            result.getLong(3)));
+                }
+            }
+        }
+
+        return cooldowns;
+    }
+
+    @Override
+    public void writeBatch(Collection<StoredCooldown> changes) throws SQLException {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Connection conn = getConnection();
+        String upsert = "INSERT INTO " + table + " (player_uuid, item_id, trigger_type, expires_at) VALUES (?, ?, ?, ?) "
+                + dialect.upsertSuffix;
+        String delete = "DELETE FROM " + table + " WHERE player_uuid = ? AND item_id = ? AND trigger_type = ?";
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement upsertStatement = conn.prepareStatement(upsert);
+             PreparedStatement deleteStatement = conn.prepareStatement(delete)) {
+
+            for (StoredCooldown change : changes) {
+                if (change.isRemoval()) {
+                    deleteStatement.setString(1, change.getPlayerId().toString());
+                    deleteStatement.setString(2, change.getItemId());
+                    deleteStatement.setString(3, change.getTrigger());
+                    deleteStatement.addBatch();
+                } else {
+                    upsertStatement.setString(1, change.getPlayerId().toString());
+                    upsertStatement.setString(2, change.getItemId());
+                    upsertStatement.setString(3, change.getTrigger());
+                    upsertStatement.setLong(4, change.getExpiresAt());
+                    upsertStatement.addBatch();
+                }
+            }
+
+            upsertStatement.executeBatch();
+            deleteStatement.executeBatch();
+            if (serverId != null) {
+                appendLog(conn, changes);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    @Override
+    public int purgeExpired(long now) throws SQLException {
+        try (PreparedStatement statement = getConnection().prepareStatement(
+                "DELETE FROM " + table + " WHERE expires_at <= ?")) {
+            statement.setLong(1, now);
+            return statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public boolean supportsSharedLog() {
+        return dialect == Dialect.MYSQL;
+    }
+
+    /**
+     * El registro también funciona sobre SQLite (un archivo local, útil para pruebas), pero
+     * solo MySQL se ofrece como modo compartido entre servidores
+     */
+    @Override
+    public void enableSharedLog(String serverId) throws SQLException {
+        try (Statement statement = getConnection().createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + logTable + " ("
+                    + "version " + dialect.logVersionColumn + ", "
+                    + "server_id VARCHAR(64) NOT NULL, "
+                    + "player_uuid CHAR(36) NOT NULL, "
+                    + "item_id VARCHAR(64) NOT NULL, "
+                    + "trigger_type VARCHAR(32) NOT NULL, "
+                    + "expires_at BIGINT NOT NULL, "
+                    + "written_at BIGINT NOT NULL"
+                    + (dialect.inlineIndex ? ", INDEX idx_written_at (written_at))" : ")"));
+            if (!dialect.inlineIndex) {
+                statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + logTable + "_written_at ON "
+                        + logTable + " (written_at)");
+            }
+
+            try (ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(version), 0) FROM " + logTable)) {
+                lastVersion = result.next() ? result.getLong(1) : 0L;
+            }
+
+            // Lo anterior a la activación ya está en la tabla principal: cuenta como leído
+            seenVersions.clear();
+            long cutoff = System.currentTimeMillis() - LATE_COMMIT_WINDOW;
+            try (ResultSet result = statement.executeQuery("SELECT version, written_at FROM " + logTable
+                    + " WHERE written_at > " + cutoff)) {
+                while (result.next()) {
+                    seenVersions.put(result.getLong(1), result.getLong(2));
+                }
+            }
+        }
+
+        this.serverId = serverId;
+    }
+
+    @Override
+    public List<StoredCooldown> pollSharedChanges(int limit) throws SQLException {
+        List<StoredCooldown> changes = new ArrayList<>();
+        if (serverId == null) {
+            return changes;
+        }
+
+        String sql = "SELECT version, server_id, player_uuid, item_id, trigger_type, expires_at, written_at FROM "
+                + logTable + " WHERE version > ? OR written_at > ? ORDER BY version LIMIT ?";
+        long cutoff = System.currentTimeMillis() - LATE_COMMIT_WINDOW;
+
+        try (PreparedStatement statement = getConnection().prepareStatement(sql)) {
+            // Se relee la ventana: las filas ya vistas no cuentan para el límite
+            statement.setLong(1, lastVersion);
+            statement.setLong(2, cutoff);
+            statement.setInt(3, limit + seenVersions.size());
+
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    long version = result.getLong(1);
+                    if (seenVersions.putIfAbsent(version, result.getLong(7)) != null) {
+                        continue;
+                    }
+                    lastVersion = Math.max(lastVersion, version);
+                    if (serverId.equals(result.getString(2))) {
+                        continue;
+                    }
+                    changes.add(new StoredCooldown(UUID.fromString(result.getString(3)), result.getString(4),
+                            result.getString(5), result.getLong(6)));
+                }
+            }
+        }
+
+        // Lo que sale de la ventana ya no vuelve a leerse: deja de hacer falta recordarlo
+        seenVersions.values().removeIf(writtenAt -> writtenAt <= cutoff);
+        return changes;
+    }
+
+    @Override
+    public int purgeSharedLog(long olderThan) throws SQLException {
+        if (serverId == null) {
+            return 0;
+        }
+
+        try (PreparedStatement statement = getConnection().prepareStatement(
+                "DELETE FROM " + logTable + " WHERE written_at < ?")) {
+            statement.setLong(1, olderThan);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Añade un lote al registro compartido, dentro de la transacción de writeBatch
+     */
+    private void appendLog(Connection conn, Collection<StoredCooldown> changes) throws SQLException {
+        String sql = "INSERT INTO " + logTable
+                + " (server_id, player_uuid, item_id, trigger_type, expires_at, written_at) VALUES (?, ?, ?, ?, ?, ?)";
+        long now = System.currentTimeMillis();
+
+        try (PreparedStatement statement = conn.prepareStatement(sql)) {
+            for (StoredCooldown change : changes) {
+                statement.setString(1, serverId);
+                statement.setString(2, change.getPlayerId().toString());
+                statement.setString(3, change.getItemId());
+                statement.setString(4, change.getTrigger());
+                statement.setLong(5, change.getExpiresAt());
+                statement.setLong(6, now);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // Se está cerrando el plugin: no hay nada más que hacer
+            }
+            connection = null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return dialect.name();
+    }
+
+    /**
+     * Obtiene la conexión, reabriéndola si el servidor la cerró (timeouts de MySQL)
+     */
+    private Connection getConnection() throws SQLException {
+        if (connection == null || !connection.isValid(2)) {
+            close();
+            connection = username != null
+                    ? DriverManager.getConnection(url, username, password)
+                    : DriverManager.getConnection(url);
+        }
+        return connection;
+    }
+}
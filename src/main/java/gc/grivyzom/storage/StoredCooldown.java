@@ -0,0 +1,42 @@
+package gc.grivyzom.storage;
+
+import java.util.UUID;
+
+/**
+ * Cooldown tal como se guarda en la base de datos
+ * Se identifica por el ID de texto del ítem y el nombre del trigger, que no cambian entre
+ * reinicios, y expira en un instante de reloj real (milisegundos epoch)
+ */
+public final class StoredCooldown {
+
+    private final UUID playerId;
+    private final String itemId;
+    private final String trigger;
+    private final long expiresAt;
+
+    public StoredCooldown(UUID playerId, String itemId, String trigger, long expiresAt) {
+        this.playerId = playerId;
+        this.itemId = itemId;
+        this.trigger = trigger;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getPlayerId() { return playerId; }
+    public String getItemId() { return itemId; }
+    public String getTrigger() { return trigger; }
+    public long getExpiresAt() { return expiresAt; }
+
+    /**
+     * Clave del cooldown dentro de un jugador ("itemId:TRIGGER")
+     */
+    public String getKey() {
+        return itemId + ":" + trigger;
+    }
+
+    /**
+     * Un cooldown con expiración 0 representa su eliminación
+     */
+    public boolean isRemoval() {
+        return expiresAt == 0L;
+    }
+}
@@ -0,0 +1,374 @@
+package gc.grivyzom.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache con tamaño máximo, caducidad y expulsión según frecuencia de uso (estilo W-TinyLFU)
+ * Las entradas nuevas entran en una ventana LRU pequeña; al salir de ella solo pasan a la
+ * zona principal si se usan más que la víctima que desplazarían, según un contador de
+ * frecuencias aproximado que se reduce a la mitad periódicamente. La zona principal se
+ * divide en prueba y protegida (LRU segmentada). Los métodos están sincronizados
+ * @param <K> Tipo de clave
+ * @param <V> Tipo de valor
+ */
+public class BoundedCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final int maximumSize;
+    private final int maxWindow;
+    private final int maxProtected;
+    private final long ttlMillis;
+
+    private final Map<K, Node<K, V>> data;
+    private final Queue<K, V> window;
+    private final Queue<K, V> probation;
+    private final Queue<K, V> protectedQueue;
+    private final FrequencySketch sketch;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * @param maximumSize Número máximo de entradas
+     * @param ttlMillis Milisegundos desde la última escritura hasta que una entrada caduca
+     */
+    public BoundedCache(int maximumSize, long ttlMillis) {
+        this.maximumSize = Math.max(2, maximumSize);
+        this.maxWindow = Math.max(1, this.maximumSize / 100);
+        this.maxProtected = (int) ((this.maximumSize - maxWindow) * 0.8);
+        this.ttlMillis = ttlMillis;
+        this.data = new HashMap<>();
+        this.window = new Queue<>();
+        this.probation = new Queue<>();
+        this.protectedQueue = new Queue<>();
+        this.sketch = new FrequencySketch(this.maximumSize);
+    }
+
+    /**
+     * Obtiene un valor, o null si no está o caducó
+     */
+    public synchronized V get(K key) {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+
+        if (node == null) {
+            misses++;
+            return null;
+        }
+
+        if (isExpired(node, System.currentTimeMillis())) {
+            removeNode(node);
+            expirations++;
+            misses++;
+            return null;
+        }
+
+        hits++;
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * Guarda un valor, expulsando otra entrada si se supera el tamaño máximo
+     */
+    public synchronized void put(K key, V value) {
+        sketch.increment(key);
+        long now = System.currentTimeMillis();
+        Node<K, V> node = data.get(key);
+
+        if (node != null) {
+            node.value = value;
+            node.writeTime = now;
+            onAccess(node);
+            return;
+        }
+
+        node = new Node<>(key, value, now);
+        data.put(key, node);
+        window.addLast(node, WINDOW);
+
+        if (window.size > maxWindow) {
+            Node<K, V> candidate = window.removeFirst();
+            probation.addLast(candidate, PROBATION);
+            if (data.size() > maximumSize) {
+                evict(candidate);
+            }
+        }
+    }
+
+    /**
+     * Elimina una entrada
+     */
+    public synchronized void invalidate(K key) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            removeNode(node);
+        }
+    }
+
+    /**
+     * Elimina todas las entradas (las estadísticas se conservan)
+     */
+    public synchronized void invalidateAll() {
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+    }
+
+    /**
+     * Elimina las entradas caducadas
+     * @return Número de entradas eliminadas
+     */
+    public synchronized int cleanUp() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Node<K, V> node : new ArrayList<>(data.values())) {
+            if (isExpired(node, now)) {
+                removeNode(node);
+                removed++;
+            }
+        }
+        expirations += removed;
+        return removed;
+    }
+
+    public synchronized int size() {
+        return data.size();
+    }
+
+    /**
+     * Estadísticas de uso del cache
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long requests = hits + misses;
+        stats.put("size", data.size());
+        stats.put("maximum_size", maximumSize);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("expirations", expirations);
+        stats.put("hit_rate", requests == 0 ? 0.0 : (double) hits / requests);
+        return stats;
+    }
+
+    // ==========================================
+    // POLÍTICA DE EXPULSIÓN
+    // ==========================================
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return ttlMillis > 0 && now - node.writeTime > ttlMillis;
+    }
+
+    /**
+     * Ventana y protegida: pasa al final de su cola; prueba: asciende a protegida
+     */
+    private void onAccess(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                protectedQueue.addLast(node, PROTECTED);
+                if (protectedQueue.size > maxProtected) {
+                    probation.addLast(protectedQueue.removeFirst(), PROBATION);
+                }
+                break;
+            default:
+                protectedQueue.moveToLast(node);
+                break;
+        }
+    }
+
+    /**
+     * Decide entre el candidato que sale de la ventana y la víctima más antigua de la zona principal
+     */
+    private void evict(Node<K, V> candidate) {
+        Node<K, V> victim = probation.first();
+        if (victim == candidate) {
+            // El candidato es el único en prueba: compite con el más antiguo de protegida
+            victim = protectedQueue.first();
+        }
+
+        Node<K, V> evicted;
+        if (victim == null || isExpired(victim, System.currentTimeMillis())) {
+            evicted = victim != null ? victim : candidate;
+        } else {
+            evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+        }
+
+        removeNode(evicted);
+        evictions++;
+    }
+
+    private void removeNode(Node<K, V> node) {
+        data.remove(node.key);
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            default:
+                protectedQueue.remove(node);
+                break;
+        }
+    }
+
+    // ==========================================
+    // ESTRUCTURAS INTERNAS
+    // ==========================================
+
+    private static final class Node<K, V> {
+        private final K key;
+        private V value;
+        private long writeTime;
+        private int queue;
+        private Node<K, V> prev;
+        private Node<K, V> nextNode;
+
+        private Node(K key, V value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * Lista doblemente enlazada en orden de uso (la cabeza es la menos reciente)
+     */
+    private static final class Queue<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+        private int size;
+
+        private Node<K, V> first() {
+            return head;
+        }
+
+        private void addLast(Node<K, V> node, int queueId) {
+            node.queue = queueId;
+            node.prev = tail;
+            node.nextNode = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.nextNode = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        private Node<K, V> removeFirst() {
+            Node<K, V> node = head;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        private void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.nextNode;
+            } else {
+                node.prev.nextNode = node.nextNode;
+            }
+            if (node.nextNode == null) {
+                tail = node.prev;
+            } else {
+                node.nextNode.prev = node.prev;
+            }
+            node.prev = null;
+            node.nextNode = null;
+            size--;
+        }
+
+        private void moveToLast(Node<K, V> node) {
+            if (tail != node) {
+                int queueId = node.queue;
+                remove(node);
+                addLast(node, queueId);
+            }
+        }
+
+        private void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * Contador de frecuencias aproximado (count-min de 4 filas, contadores de 4 bits)
+     * Al llegar a diez veces el tamaño del cache en incrementos, todos se dividen a la mitad
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int maximumSize) {
+            int width = Integer.highestOneBit(Math.max(16, maximumSize * 2 - 1)) << 1;
+            this.counters = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = maximumSize * 10;
+        }
+
+        private void increment(Object key) {
+            int hash = spread(key.hashCode());
+            for (int row = 0; row < DEPTH; row++) {
+                int index = indexOf(hash, row);
+                if (counters[row][index] < 15) {
+                    counters[row][index]++;
+                }
+            }
+
+            if (++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int min = 15;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, counters[row][indexOf(hash, row)]);
+            }
+            return min;
+        }
+
+        private void reset() {
+            additions /= 2;
+            for (byte[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 17;
+            hash *= 0xED5AD4BB;
+            return hash ^ (hash >>> 11);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package gc.grivyzom.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cooldowns de un jugador conectado
+ * Los de ítem y trigger se guardan como expiraciones primitivas en un arreglo indexado por
+ * (índice de ítem × número de triggers + ordinal del trigger); el resto, por nombre
+ */
+final class CooldownSession {
+
+    private static final long[] EMPTY = new long[0];
+    private static final TimingWheel.Timeout[] NO_TIMERS = new TimingWheel.Timeout[0];
+
+    // Tick de expiración de cada slot (0 = sin cooldown)
+    private long[] expirations = EMPTY;
+
+    // Tarea de la rueda que vence cada slot, para cancelarla si el cooldown cambia
+    private TimingWheel.Timeout[] timers = NO_TIMERS;
+
+    // Cooldowns con identificador libre, usados por los métodos de texto de Cooldowns
+    private final Map<String, Long> named = new ConcurrentHashMap<>();
+
+    long getExpiration(int slot) {
+        long[] current = expirations;
+        return slot < current.length ? current[slot] : 0L;
+    }
+
+    void setExpiration(int slot, long expiration) {
+        if (slot >= expirations.length) {
+            if (expiration == 0L) {
+                return;
+            }
+            int length = Math.max(slot + 1, expirations.length * 2);
+            expirations = Arrays.copyOf(expirations, length);
+            timers = Arrays.copyOf(timers, length);
+        }
+        expirations[slot] = expiration;
+    }
+
+    /**
+     * Sustituye la tarea de vencimiento de un slot, cancelando la anterior
+     */
+    void setTimer(int slot, TimingWheel.Timeout timer) {
+        if (slot >= timers.length) {
+            return;
+        }
+        TimingWheel.Timeout previous = timers[slot];
+        if (previous != null) {
+            previous.cancel();
+        }
+        timers[slot] = timer;
+    }
+
+    Map<String, Long> getNamed() {
+        return named;
+    }
+
+    int getSlotCount() {
+        return expirations.length;
+    }
+
+    /**
+     * Borra los slots ya expirados
+     * @return Número de cooldowns borrados
+     */
+    int clearExpired(long now) {
+        int cleared = 0;
+        long[] current = expirations;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != 0L && current[i] <= now) {
+                current[i] = 0L;
+                cleared++;
+            }
+        }
+
+        int before = named.size();
+        named.values().removeIf(expiration -> expiration <= now);
+        return cleared + before - named.size();
+    }
+
+    /**
+     * Cuenta los cooldowns que siguen activos
+     */
+    int countActive(long now) {
+        int active = 0;
+        for (long expiration : expirations) {
+            if (expiration > now) {
+                active++;
+            }
+        }
+        for (long expiration : named.values()) {
+            if (expiration > now) {
+                active++;
+            }
+        }
+        return active;
+    }
+}
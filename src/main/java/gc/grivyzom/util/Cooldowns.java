@@ -1,34 +1,201 @@
 package gc.grivyzom.util;
 
+import gc.grivyzom.mechanics.TriggerType;
 import org.bukkit.entity.Player;
 
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Sistema eficiente de gestión de cooldowns para ítems y acciones
- * Utiliza timestamps para un rendimiento óptimo y limpieza automática
+ * Cada jugador tiene una sesión con las expiraciones en un arreglo primitivo indexado por
+ * ítem y trigger: comprobar un cooldown no construye claves ni reserva memoria, y limpiar
+ * a un jugador es quitar su sesión. Los métodos con claves de texto se mantienen como adaptadores.
+ * Los tiempos se miden en ticks del TickDriver y cada cooldown se vence desde la rueda de tiempo,
+ * sin recorridos periódicos
  */
 public class Cooldowns {
 
-    // Almacena el timestamp cuando expira cada cooldown
-    private final ConcurrentHashMap<String, Long> cooldowns;
+    /**
+     * Traduce entre IDs de texto de ítems y sus índices numéricos compactos
+     */
+    public interface ItemIndexResolver {
+        /**
+         * @return El índice del ítem o -1 si no existe
+         */
+        int indexOf(String itemId);
+
+        /**
+         * @return El ID de texto del ítem o null si el índice no existe
+         */
+        String idOf(int index);
+    }
+
+    /**
+     * Recibe el aviso de que un cooldown marcado para notificar ha terminado
+     */
+    public interface ReadyListener {
+        void onCooldownReady(UUID playerId, int itemIndex, TriggerType trigger);
+    }
+
+    /**
+     * Recibe cada cambio de un cooldown de ítem (para persistirlo o compartirlo)
+     * Los vencimientos naturales no se notifican
+     */
+    public interface ChangeListener {
+        /**
+         * @param expirationTick Tick de expiración o 0 si el cooldown se eliminó
+         */
+        void onCooldownChanged(UUID playerId, int itemIndex, TriggerType trigger, long expirationTick);
+    }
+
+    private static final ItemIndexResolver NO_ITEMS = new ItemIndexResolver() {
+        @Override
+        public int indexOf(String itemId) {
+            return -1;
+        }
+
+        @Override
+        public String idOf(int index) {
+            return null;
+        }
+    };
+
+    private static final int TRIGGER_COUNT = TriggerType.count();
+    private static final long TICKS_PER_SECOND = 20L;
+
+    // Longitud de un UUID en texto, prefijo de las claves "uuid:identificador"
+    private static final int UUID_LENGTH = 36;
+
+    private final ConcurrentHashMap<UUID, CooldownSession> sessions;
 
-    // Cache para mejorar el rendimiento en consultas frecuentes
-    private final ConcurrentHashMap<String, Boolean> statusCache;
+    // Cooldowns de claves de texto que no pertenecen a ningún jugador
+    private final ConcurrentHashMap<String, Long> globalCooldowns;
 
-    // Control de limpieza automática
+    private final ItemIndexResolver resolver;
+    private final TickDriver clock;
+    private ReadyListener readyListener;
+    private ChangeListener changeListener;
+
+    // Control de limpieza
     private long lastCleanup;
-    private static final long CLEANUP_INTERVAL = 300000; // 5 minutos
-    private static final long CACHE_DURATION = 1000; // 1 segundo
 
-    public Cooldowns() {
-        this.cooldowns = new ConcurrentHashMap<>();
-        this.statusCache = new ConcurrentHashMap<>();
+    public Cooldowns(TickDriver clock) {
+        this(NO_ITEMS, clock);
+    }
+
+    public Cooldowns(ItemIndexResolver resolver, TickDriver clock) {
+        this.sessions = new ConcurrentHashMap<>();
+        this.globalCooldowns = new ConcurrentHashMap<>();
+        this.resolver = resolver;
+        this.clock = clock;
         this.lastCleanup = System.currentTimeMillis();
     }
 
+    /**
+     * Establece quién recibe los avisos de cooldown terminado
+     */
+    public void setReadyListener(ReadyListener readyListener) {
+        this.readyListener = readyListener;
+    }
+
+    /**
+     * Establece quién recibe los cambios de cooldowns de ítems
+     */
+    public void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Tick actual del reloj de cooldowns
+     */
+    public long getCurrentTick() {
+        return clock.getCurrentTick();
+    }
+
+    // ==========================================
+    // API PRIMITIVA (ítem × trigger)
+    // ==========================================
+
+    /**
+     * Verifica si un ítem está en cooldown para un trigger
+     * @param player El jugador
+     * @param itemIndex El ID numérico del ítem
+     * @param trigger El trigger
+     * @return true si está en cooldown
+     */
+    public boolean isOnCooldown(Player player, int itemIndex, TriggerType trigger) {
+        CooldownSession session = sessions.get(player.getUniqueId());
+        return session != null && session.getExpiration(slot(itemIndex, trigger)) > clock.getCurrentTick();
+    }
+
+    /**
+     * Obtiene el tiempo restante de cooldown en segundos
+     * @return Segundos restantes o 0 si no hay cooldown
+     */
+    public long getRemainingTime(Player player, int itemIndex, TriggerType trigger) {
+        CooldownSession session = sessions.get(player.getUniqueId());
+        return session != null ? remainingSeconds(session.getExpiration(slot(itemIndex, trigger))) : 0;
+    }
+
+    /**
+     * Establece el cooldown de un ítem para un trigger
+     * @param seconds Duración en segundos (0 o menos lo elimina)
+     */
+    public void setCooldown(Player player, int itemIndex, TriggerType trigger, int seconds) {
+        setCooldown(player, itemIndex, trigger, seconds, false);
+    }
+
+    /**
+     * Establece el cooldown de un ítem para un trigger
+     * @param seconds Duración en segundos (0 o menos lo elimina)
+     * @param notifyWhenReady Si se avisa al ReadyListener cuando termine
+     */
+    public void setCooldown(Player player, int itemIndex, TriggerType trigger, int seconds, boolean notifyWhenReady) {
+        if (seconds <= 0) {
+            removeCooldown(player, itemIndex, trigger);
+            return;
+        }
+
+        UUID uuid = player.getUniqueId();
+        setSlot(uuid, session(uuid), slot(itemIndex, trigger), clock.getCurrentTick() + seconds * TICKS_PER_SECOND,
+                notifyWhenReady, true);
+    }
+
+    /**
+     * Restaura un cooldown guardado (persistencia o sincronización) sin notificar el cambio
+     * @param playerId El jugador
+     * @param remainingTicks Ticks que le quedan; 0 o menos lo elimina
+     */
+    public void restoreCooldown(UUID playerId, int itemIndex, TriggerType trigger, long remainingTicks,
+                                boolean notifyWhenReady) {
+        if (remainingTicks <= 0) {
+            CooldownSession session = sessions.get(playerId);
+            if (session != null) {
+                setSlot(playerId, session, slot(itemIndex, trigger), 0L, false, false);
+            }
+            return;
+        }
+
+        setSlot(playerId, session(playerId), slot(itemIndex, trigger), clock.getCurrentTick() + remainingTicks,
+                notifyWhenReady, false);
+    }
+
+    /**
+     * Elimina el cooldown de un ítem para un trigger
+     */
+    public void removeCooldown(Player player, int itemIndex, TriggerType trigger) {
+        CooldownSession session = sessions.get(player.getUniqueId());
+        if (session != null) {
+            setSlot(player.getUniqueId(), session, slot(itemIndex, trigger), 0L, false, true);
+        }
+    }
+
+    // ==========================================
+    // ADAPTADORES CON CLAVES DE TEXTO
+    // ==========================================
+
     /**
      * Establece un cooldown para una clave específica
      * @param key La clave única del cooldown
@@ -40,14 +207,7 @@ public class Cooldowns {
             return;
         }
 
-        long expirationTime = System.currentTimeMillis() + (seconds * 1000L);
-        cooldowns.put(key, expirationTime);
-
-        // Invalidar cache para esta clave
-        statusCache.remove(key);
-
-        // Limpieza periódica
-        performPeriodicCleanup();
+        setExpiration(key, clock.getCurrentTick() + seconds * TICKS_PER_SECOND);
     }
 
     /**
@@ -66,29 +226,7 @@ public class Cooldowns {
      * @return true si está en cooldown, false en caso contrario
      */
     public boolean isOnCooldown(String key) {
-        // Verificar cache primero
-        Boolean cached = statusCache.get(key);
-        if (cached != null) {
-            return cached;
-        }
-
-        Long expirationTime = cooldowns.get(key);
-        if (expirationTime == null) {
-            statusCache.put(key, false);
-            return false;
-        }
-
-        long currentTime = System.currentTimeMillis();
-        boolean onCooldown = currentTime < expirationTime;
-
-        // Si el cooldown expiró, limpiarlo
-        if (!onCooldown) {
-            cooldowns.remove(key);
-        }
-
-        // Actualizar cache
-        statusCache.put(key, onCooldown);
-        return onCooldown;
+        return getExpiration(key) > clock.getCurrentTick();
     }
 
     /**
@@ -104,13 +242,7 @@ public class Cooldowns {
      * @return Segundos restantes o 0 si no hay cooldown
      */
     public long getRemainingTime(String key) {
-        Long expirationTime = cooldowns.get(key);
-        if (expirationTime == null) {
-            return 0;
-        }
-
-        long remaining = (expirationTime - System.currentTimeMillis()) / 1000L;
-        return Math.max(0, remaining);
+        return remainingSeconds(getExpiration(key));
     }
 
     /**
@@ -125,8 +257,7 @@ public class Cooldowns {
      * @param key La clave del cooldown a remover
      */
     public void removeCooldown(String key) {
-        cooldowns.remove(key);
-        statusCache.remove(key);
+        setExpiration(key, 0L);
     }
 
     /**
@@ -136,195 +267,335 @@ public class Cooldowns {
         removeCooldown(generateKey(player, identifier));
     }
 
+    /**
+     * Verifica y actualiza el tiempo restante de un cooldown específico
+     * @param key La clave del cooldown
+     * @param newSeconds Nueva duración en segundos (solo si es mayor que la actual)
+     * @return true si se actualizó, false en caso contrario
+     */
+    public boolean updateCooldown(String key, int newSeconds) {
+        long newExpiration = clock.getCurrentTick() + newSeconds * TICKS_PER_SECOND;
+
+        // Solo actualizar si el nuevo cooldown es mayor
+        if (newExpiration > getExpiration(key)) {
+            setExpiration(key, newExpiration);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Reduce el tiempo de un cooldown específico
+     * @param key La clave del cooldown
+     * @param seconds Segundos a reducir
+     * @return true si se redujo exitosamente
+     */
+    public boolean reduceCooldown(String key, int seconds) {
+        long expirationTime = getExpiration(key);
+        if (expirationTime == 0L) {
+            return false;
+        }
+
+        long newExpiration = expirationTime - seconds * TICKS_PER_SECOND;
+        if (newExpiration <= clock.getCurrentTick()) {
+            // El cooldown se agotó
+            removeCooldown(key);
+        } else {
+            setExpiration(key, newExpiration);
+        }
+
+        return true;
+    }
+
+    // ==========================================
+    // GESTIÓN
+    // ==========================================
+
     /**
      * Limpia todos los cooldowns de un jugador específico
      * @param player El jugador cuyos cooldowns limpiar
      */
     public void cleanupPlayer(Player player) {
-        String playerKey = player.getUniqueId().toString();
-
-        // Remover cooldowns del jugador
-        cooldowns.entrySet().removeIf(entry -> entry.getKey().contains(playerKey));
-
-        // Limpiar cache del jugador
-        statusCache.entrySet().removeIf(entry -> entry.getKey().contains(playerKey));
+        sessions.remove(player.getUniqueId());
     }
 
     /**
      * Limpia todos los cooldowns expirados
+     * Normalmente no hace falta: la rueda de tiempo vence cada cooldown en su tick
      * @return Número de cooldowns limpiados
      */
     public int cleanupExpired() {
-        long currentTime = System.currentTimeMillis();
+        long currentTime = clock.getCurrentTick();
         int cleaned = 0;
 
-        // Limpiar cooldowns expirados
-        var iterator = cooldowns.entrySet().iterator();
-        while (iterator.hasNext()) {
-            var entry = iterator.next();
-            if (currentTime >= entry.getValue()) {
-                iterator.remove();
-                statusCache.remove(entry.getKey());
-                cleaned++;
-            }
+        for (CooldownSession session : sessions.values()) {
+            cleaned += session.clearExpired(currentTime);
         }
 
-        lastCleanup = currentTime;
+        int before = globalCooldowns.size();
+        globalCooldowns.values().removeIf(expiration -> expiration <= currentTime);
+        cleaned += before - globalCooldowns.size();
+
+        lastCleanup = System.currentTimeMillis();
         return cleaned;
     }
 
+    /**
+     * Obtiene todos los cooldowns activos de un jugador
+     * @param player El jugador
+     * @return Map con identificadores y tiempos restantes
+     */
+    public Map<String, Long> getPlayerCooldowns(Player player) {
+        Map<String, Long> playerCooldowns = new ConcurrentHashMap<>();
+        CooldownSession session = sessions.get(player.getUniqueId());
+        if (session == null) {
+            return playerCooldowns;
+        }
+
+        for (int slot = 0; slot < session.getSlotCount(); slot++) {
+            long remaining = remainingSeconds(session.getExpiration(slot));
+            if (remaining > 0) {
+                String itemId = resolver.idOf(slot / TRIGGER_COUNT);
+                TriggerType trigger = TriggerType.fromOrdinal(slot % TRIGGER_COUNT);
+                playerCooldowns.put((itemId != null ? itemId : "#" + slot / TRIGGER_COUNT) + ":" + trigger.name(), remaining);
+            }
+        }
+
+        for (Map.Entry<String, Long> entry : session.getNamed().entrySet()) {
+            long remaining = remainingSeconds(entry.getValue());
+            if (remaining > 0) {
+                playerCooldowns.put(entry.getKey(), remaining);
+            }
+        }
+
+        return playerCooldowns;
+    }
+
     /**
      * Obtiene estadísticas del sistema de cooldowns
      * @return Map con información estadística
      */
     public Map<String, Object> getStats() {
         Map<String, Object> stats = new ConcurrentHashMap<>();
+        long currentTime = clock.getCurrentTick();
 
-        stats.put("active_cooldowns", cooldowns.size());
-        stats.put("cached_status", statusCache.size());
-        stats.put("last_cleanup", lastCleanup);
-
-        // Estadísticas adicionales
-        long currentTime = System.currentTimeMillis();
-        long expiredCount = cooldowns.values().stream()
-                .mapToLong(expTime -> currentTime >= expTime ? 1 : 0)
-                .sum();
+        int active = 0;
+        for (CooldownSession session : sessions.values()) {
+            active += session.countActive(currentTime);
+        }
+        for (long expiration : globalCooldowns.values()) {
+            if (expiration > currentTime) {
+                active++;
+            }
+        }
 
-        stats.put("expired_cooldowns", expiredCount);
-        stats.put("active_cooldowns_actual", cooldowns.size() - expiredCount);
+        stats.put("player_sessions", sessions.size());
+        stats.put("active_cooldowns", active);
+        stats.put("global_cooldowns", globalCooldowns.size());
+        stats.put("last_cleanup", lastCleanup);
 
         return stats;
     }
 
     /**
-     * Verifica y actualiza el tiempo restante de un cooldown específico
-     * @param key La clave del cooldown
-     * @param newSeconds Nueva duración en segundos (solo si es mayor que la actual)
-     * @return true si se actualizó, false en caso contrario
+     * Limpia todos los cooldowns (usado principalmente para testing)
      */
-    public boolean updateCooldown(String key, int newSeconds) {
-        Long currentExpiration = cooldowns.get(key);
-        long newExpiration = System.currentTimeMillis() + (newSeconds * 1000L);
+    public void clearAll() {
+        sessions.clear();
+        globalCooldowns.clear();
+    }
 
-        // Solo actualizar si el nuevo cooldown es mayor
-        if (currentExpiration == null || newExpiration > currentExpiration) {
-            cooldowns.put(key, newExpiration);
-            statusCache.remove(key); // Invalidar cache
-            return true;
+    /**
+     * Verifica si el sistema está funcionando correctamente
+     * @return true si está operativo
+     */
+    public boolean isHealthy() {
+        try {
+            // Verificaciones básicas de salud
+            return sessions.size() < 10000 && globalCooldowns.size() < 10000;
+        } catch (Exception e) {
+            return false;
         }
-
-        return false;
     }
 
     /**
-     * Obtiene todos los cooldowns activos de un jugador
-     * @param player El jugador
-     * @return Map con identificadores y tiempos restantes
+     * Obtiene información de debugging
      */
-    public Map<String, Long> getPlayerCooldowns(Player player) {
-        String playerKey = player.getUniqueId().toString();
-        Map<String, Long> playerCooldowns = new ConcurrentHashMap<>();
-        long currentTime = System.currentTimeMillis();
-
-        for (Map.Entry<String, Long> entry : cooldowns.entrySet()) {
-            if (entry.getKey().contains(playerKey)) {
-                long remaining = (entry.getValue() - currentTime) / 1000L;
-                if (remaining > 0) {
-                    // Extraer el identificador de la clave
-                    String identifier = extractIdentifier(entry.getKey());
-                    playerCooldowns.put(identifier, remaining);
-                }
-            }
-        }
+    public String getDebugInfo() {
+        return String.format(
+                "Cooldowns: sessions=%d, global=%d, lastCleanup=%dms ago",
+                sessions.size(),
+                globalCooldowns.size(),
+                System.currentTimeMillis() - lastCleanup
+        );
+    }
 
-        return playerCooldowns;
+    // ==========================================
+    // MÉTODOS AUXILIARES
+    // ==========================================
+
+    private static int slot(int itemIndex, TriggerType trigger) {
+        return itemIndex * TRIGGER_COUNT + trigger.ordinal();
+    }
+
+    private long remainingSeconds(long expiration) {
+        long remainingTicks = expiration - clock.getCurrentTick();
+        if (expiration == 0L || remainingTicks <= 0) {
+            return 0;
+        }
+        // Redondear hacia arriba: "1 segundo" hasta el último tick
+        return (remainingTicks + TICKS_PER_SECOND - 1) / TICKS_PER_SECOND;
     }
 
     /**
-     * Reduce el tiempo de un cooldown específico
-     * @param key La clave del cooldown
-     * @param seconds Segundos a reducir
-     * @return true si se redujo exitosamente
+     * Escribe la expiración de un slot y programa su vencimiento en la rueda (0 lo elimina)
+     * @param publish Si se avisa al ChangeListener (no al restaurar desde fuera)
      */
-    public boolean reduceCooldown(String key, int seconds) {
-        Long expirationTime = cooldowns.get(key);
-        if (expirationTime == null) {
-            return false;
+    private void setSlot(UUID uuid, CooldownSession session, int slot, long expiration, boolean notifyWhenReady,
+                         boolean publish) {
+        session.setExpiration(slot, expiration);
+        if (expiration == 0L) {
+            session.setTimer(slot, null);
+        } else {
+            long delay = expiration - clock.getCurrentTick();
+            session.setTimer(slot, clock.schedule(delay, () -> expire(uuid, session, slot, expiration, notifyWhenReady)));
         }
 
-        long reduction = seconds * 1000L;
-        long newExpiration = expirationTime - reduction;
-        long currentTime = System.currentTimeMillis();
+        if (publish && changeListener != null) {
+            changeListener.onCooldownChanged(uuid, slot / TRIGGER_COUNT, TriggerType.fromOrdinal(slot % TRIGGER_COUNT),
+                    expiration);
+        }
+    }
 
-        if (newExpiration <= currentTime) {
-            // El cooldown se agotó
-            removeCooldown(key);
-        } else {
-            cooldowns.put(key, newExpiration);
-            statusCache.remove(key); // Invalidar cache
+    /**
+     * Vence un slot desde la rueda de tiempo y avisa si corresponde
+     */
+    private void expire(UUID uuid, CooldownSession session, int slot, long expiration, boolean notifyWhenReady) {
+        // El jugador se desconectó o el cooldown cambió desde que se programó
+        if (sessions.get(uuid) != session || session.getExpiration(slot) != expiration) {
+            return;
         }
 
-        return true;
+        session.setExpiration(slot, 0L);
+        if (notifyWhenReady && readyListener != null) {
+            readyListener.onCooldownReady(uuid, slot / TRIGGER_COUNT, TriggerType.fromOrdinal(slot % TRIGGER_COUNT));
+        }
     }
 
     /**
-     * Limpia todos los cooldowns (usado principalmente para testing)
+     * Programa el vencimiento de un cooldown guardado por nombre
      */
-    public void clearAll() {
-        cooldowns.clear();
-        statusCache.clear();
+    private void scheduleNamedExpiry(Map<String, Long> map, String name, long expiration) {
+        clock.schedule(expiration - clock.getCurrentTick(), () -> map.remove(name, expiration));
+    }
+
+    private CooldownSession session(UUID uuid) {
+        return sessions.computeIfAbsent(uuid, id -> new CooldownSession());
     }
 
     /**
-     * Genera una clave única para un jugador e identificador
+     * Lee la expiración de una clave de texto
      */
-    private String generateKey(Player player, String identifier) {
-        return player.getUniqueId().toString() + ":" + identifier;
+    private long getExpiration(String key) {
+        UUID uuid = parsePlayer(key);
+        if (uuid == null) {
+            Long expiration = globalCooldowns.get(key);
+            return expiration != null ? expiration : 0L;
+        }
+
+        CooldownSession session = sessions.get(uuid);
+        if (session == null) {
+            return 0L;
+        }
+
+        String identifier = key.substring(UUID_LENGTH + 1);
+        int slot = parseSlot(identifier);
+        if (slot >= 0) {
+            return session.getExpiration(slot);
+        }
+
+        Long expiration = session.getNamed().get(identifier);
+        return expiration != null ? expiration : 0L;
     }
 
     /**
-     * Extrae el identificador de una clave compuesta
+     * Escribe la expiración de una clave de texto (0 la elimina)
      */
-    private String extractIdentifier(String key) {
-        int lastColon = key.lastIndexOf(':');
-        return lastColon != -1 ? key.substring(lastColon + 1) : key;
+    private void setExpiration(String key, long expiration) {
+        UUID uuid = parsePlayer(key);
+        if (uuid == null) {
+            if (expiration == 0L) {
+                globalCooldowns.remove(key);
+            } else {
+                globalCooldowns.put(key, expiration);
+                scheduleNamedExpiry(globalCooldowns, key, expiration);
+            }
+            return;
+        }
+
+        CooldownSession session = expiration == 0L ? sessions.get(uuid) : session(uuid);
+        if (session == null) {
+            return;
+        }
+
+        String identifier = key.substring(UUID_LENGTH + 1);
+        int slot = parseSlot(identifier);
+        if (slot >= 0) {
+            setSlot(uuid, session, slot, expiration, false, true);
+        } else if (expiration == 0L) {
+            session.getNamed().remove(identifier);
+        } else {
+            session.getNamed().put(identifier, expiration);
+            scheduleNamedExpiry(session.getNamed(), identifier, expiration);
+        }
     }
 
     /**
-     * Realiza limpieza periódica automática
+     * Extrae el jugador de una clave "uuid:identificador"
+     * @return El UUID o null si la clave no pertenece a un jugador
      */
-    private void performPeriodicCleanup() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastCleanup > CLEANUP_INTERVAL) {
-            cleanupExpired();
+    private UUID parsePlayer(String key) {
+        if (key.length() <= UUID_LENGTH + 1 || key.charAt(UUID_LENGTH) != ':') {
+            return null;
+        }
+
+        try {
+            return UUID.fromString(key.substring(0, UUID_LENGTH));
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
     /**
-     * Verifica si el sistema está funcionando correctamente
-     * @return true si está operativo
+     * Traduce un identificador "itemId:TRIGGER" a su slot primitivo
+     * @return El slot o -1 si el identificador no corresponde a un ítem y trigger conocidos
      */
-    public boolean isHealthy() {
-        try {
-            // Verificaciones básicas de salud
-            boolean mapsHealthy = cooldowns != null && statusCache != null;
-            boolean sizesReasonable = cooldowns.size() < 10000 && statusCache.size() < 10000;
+    private int parseSlot(String identifier) {
+        int colon = identifier.lastIndexOf(':');
+        if (colon <= 0) {
+            return -1;
+        }
 
-            return mapsHealthy && sizesReasonable;
-        } catch (Exception e) {
-            return false;
+        int itemIndex = resolver.indexOf(identifier.substring(0, colon));
+        if (itemIndex < 0) {
+            return -1;
         }
+
+        String triggerName = identifier.substring(colon + 1);
+        for (int i = 0; i < TRIGGER_COUNT; i++) {
+            TriggerType trigger = TriggerType.fromOrdinal(i);
+            if (trigger.name().equals(triggerName)) {
+                return slot(itemIndex, trigger);
+            }
+        }
+        return -1;
     }
 
     /**
-     * Obtiene información de debugging
+     * Genera una clave única para un jugador e identificador
      */
-    public String getDebugInfo() {
-        return String.format(
-                "Cooldowns: active=%d, cached=%d, lastCleanup=%dms ago",
-                cooldowns.size(),
-                statusCache.size(),
-                System.currentTimeMillis() - lastCleanup
-        );
+    private String generateKey(Player player, String identifier) {
+        return player.getUniqueId().toString() + ":" + identifier;
     }
-}
\ No newline at end of file
+}
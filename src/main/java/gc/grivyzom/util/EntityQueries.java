@@ -0,0 +1,143 @@
+package gc.grivyzom.util;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Enemy;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Consultas espaciales de entidades vivas para las acciones de área y enemies_within
+ * Se apoya en el almacenamiento por secciones del propio servidor: la caja de la consulta solo
+ * recorre las secciones de chunk que toca, y el filtro y la distancia se comprueban dentro de esa
+ * misma pasada, sin copiar las entidades del mundo ni mantener un índice propio.
+ * Solo se usa desde el hilo principal
+ */
+public class EntityQueries {
+
+    /**
+     * Entidades que puede seleccionar una consulta
+     */
+    public enum Filter {
+        /** Mobs hostiles */
+        ENEMIES,
+        /** Cualquier entidad viva que no sea un jugador */
+        MOBS,
+        PLAYERS,
+        ALL;
+
+        public boolean matches(LivingEntity entity) {
+            switch (this) {
+                case ENEMIES:
+                    return entity instanceof Enemy;
+                case MOBS:
+                    return !(entity instanceof Player);
+                case PLAYERS:
+                    return entity instanceof Player;
+                default:
+                    return true;
+            }
+        }
+
+        /**
+         * Filtro por nombre de configuración, o null si no existe
+         */
+        public static Filter fromName(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    // Radio máximo de una consulta; el mismo límite que aplica la configuración de las acciones
+    public static final double MAX_RADIUS = 64.0;
+
+    // Métricas
+    private long queries;
+    private long matches;
+
+    // ==========================================
+    // CONSULTAS
+    // ==========================================
+
+    /**
+     * Recorre las entidades dentro del radio que cumplen el filtro
+     * @param exclude Entidad a omitir (normalmente quien lanza la acción), o null
+     */
+    public void forEachNearby(Location center, double radius, Filter filter, LivingEntity exclude,
+                              Consumer<LivingEntity> consumer) {
+        for (Entity entity : search(center, radius, filter, exclude)) {
+            consumer.accept((LivingEntity) entity);
+        }
+    }
+
+    /**
+     * Entidades dentro del radio que cumplen el filtro
+     */
+    public List<LivingEntity> getNearby(Location center, double radius, Filter filter, LivingEntity exclude) {
+        Collection<Entity> found = search(center, radius, filter, exclude);
+        List<LivingEntity> result = new ArrayList<>(found.size());
+        for (Entity entity : found) {
+            result.add((LivingEntity) entity);
+        }
+        return result;
+    }
+
+    /**
+     * Comprueba si hay al menos una entidad dentro del radio
+     */
+    public boolean hasAny(Location center, double radius, Filter filter, LivingEntity exclude) {
+        return !search(center, radius, filter, exclude).isEmpty();
+    }
+
+    private Collection<Entity> search(Location center, double radius, Filter filter, LivingEntity exclude) {
+        World world = center.getWorld();
+        if (world == null || radius <= 0) {
+            return new ArrayList<>(0);
+        }
+        queries++;
+
+        double r = Math.min(radius, MAX_RADIUS);
+        double radiusSquared = r * r;
+        double x = center.getX();
+        double y = center.getY();
+        double z = center.getZ();
+
+        // La caja limita las secciones visitadas; la esfera se comprueba en el mismo filtro
+        Predicate<Entity> predicate = entity -> {
+            if (!(entity instanceof LivingEntity) || entity == exclude || !entity.isValid()
+                    || !filter.matches((LivingEntity) entity)) {
+                return false;
+            }
+            Location location = entity.getLocation();
+            double dx = location.getX() - x;
+            double dy = location.getY() - y;
+            double dz = location.getZ() - z;
+            return dx * dx + dy * dy + dz * dz <= radiusSquared;
+        };
+
+        Collection<Entity> found = world.getNearbyEntities(
+                new BoundingBox(x - r, y - r, z - r, x + r, y + r, z + r), predicate);
+        matches += found.size();
+        return found;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queries", queries);
+        stats.put("matches", matches);
+        return stats;
+    }
+}
@@ -1,5 +1,7 @@
 package gc.grivyzom.util;
 
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.TextComponent;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -86,6 +88,17 @@ public class MessageManager {
     }
 
 
+    /**
+     * Envía un mensaje en la barra de acción del jugador
+     */
+    public void sendActionBar(Player player, String path, String... placeholders) {
+        String message = getMessage(path, placeholders);
+        if (!message.isEmpty()) {
+            player.spigot().sendMessage(ChatMessageType.ACTION_BAR, TextComponent.fromLegacyText(message));
+        }
+    }
+
+
     public void sendStartupMessage() {
         String message = getMessage("console.startup");
         plugin.getLogger().info(ChatColor.stripColor(message));
@@ -0,0 +1,302 @@
+package gc.grivyzom.util;
+
+import gc.grivyzom.VarietyMain;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Envío de partículas con nivel de detalle
+ * Las ráfagas idénticas en el mismo punto y tick se fusionan y se envían al empezar el tick
+ * siguiente. La cantidad se reduce cuando hay muchos jugadores mirando y cuando el servidor
+ * va con lag; sin nadie cerca no se envía nada. Los jugadores con "efectos reducidos"
+ * (guardado en su PersistentDataContainer) reciben menos partículas por envío individual.
+ * Solo se usa desde el hilo principal
+ */
+public class ParticleDispatcher implements Listener {
+
+    /**
+     * Ráfaga pendiente: partícula, posición (redondeada a 1/4 de bloque) y dispersión
+     */
+    private static final class BurstKey {
+        private final UUID worldId;
+        private final Particle particle;
+        private final int x, y, z;
+        private final double offsetX, offsetY, offsetZ, speed;
+
+        private BurstKey(Location location, Particle particle, double offsetX, double offsetY, double offsetZ,
+                         double speed) {
+            this.worldId = location.getWorld().getUID();
+            this.particle = particle;
+            this.x = (int) Math.floor(location.getX() * 4);
+            this.y = (int) Math.floor(location.getY() * 4);
+            this.z = (int) Math.floor(location.getZ() * 4);
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.offsetZ = offsetZ;
+            this.speed = speed;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BurstKey)) return false;
+            BurstKey other = (BurstKey) o;
+            return x == other.x && y == other.y && z == other.z && particle == other.particle
+                    && offsetX == other.offsetX && offsetY == other.offsetY && offsetZ == other.offsetZ
+                    && speed == other.speed && worldId.equals(other.worldId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(worldId, particle, x, y, z, offsetX, offsetY, offsetZ, speed);
+        }
+    }
+
+    private static final class Burst {
+        private final Location location;
+        private int amount;
+
+        private Burst(Location location) {
+            this.location = location;
+        }
+    }
+
+    private final VarietyMain plugin;
+    private final NamespacedKey reducedEffectsKey;
+    private final Set<UUID> reducedViewers;
+    private final Map<BurstKey, Burst> pending;
+    private boolean flushScheduled;
+
+    // Configuración (particles en config.yml)
+    private boolean enabled;
+    private boolean merge;
+    private double viewDistanceSquared;
+    private int crowdThreshold;
+    private double minScale;
+    private double lagStartMillis;
+    private double lagMaxMillis;
+    private double reducedScale;
+    private int maxAmount;
+
+    // Métricas
+    private long requestedParticles;
+    private long sentParticles;
+    private long mergedBursts;
+    private long culledBursts;
+
+    public ParticleDispatcher(VarietyMain plugin) {
+        this.plugin = plugin;
+        this.reducedEffectsKey = new NamespacedKey(plugin, "reduced_effects");
+        this.reducedViewers = new HashSet<>();
+        this.pending = new HashMap<>();
+        loadConfig();
+
+        // Jugadores ya conectados (el plugin se habilitó o recargó con el servidor en marcha)
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            loadPreference(player);
+        }
+    }
+
+    /**
+     * Lee la sección particles de config.yml
+     */
+    public void loadConfig() {
+        ConfigurationSection config = plugin.getConfig().getConfigurationSection("particles");
+        enabled = config == null || config.getBoolean("lod-enabled", true);
+        merge = config == null || config.getBoolean("merge-bursts", true);
+        double viewDistance = config != null ? config.getDouble("view-distance", 32.0) : 32.0;
+        viewDistanceSquared = viewDistance * viewDistance;
+        crowdThreshold = Math.max(1, config != null ? config.getInt("crowd-threshold", 8) : 8);
+        minScale = config != null ? config.getDouble("min-scale", 0.25) : 0.25;
+        lagStartMillis = config != null ? config.getDouble("lag-start-mspt", 52.0) : 52.0;
+        lagMaxMillis = config != null ? config.getDouble("lag-max-mspt", 100.0) : 100.0;
+        reducedScale = config != null ? config.getDouble("reduced-scale", 0.2) : 0.2;
+        maxAmount = config != null ? config.getInt("max-amount", 200) : 200;
+    }
+
+    /**
+     * Muestra partículas en una posición, aplicando fusión y nivel de detalle
+     */
+    public void spawn(Particle particle, Location location, int amount,
+                      double offsetX, double offsetY, double offsetZ, double speed) {
+        World world = location.getWorld();
+        if (world == null || amount <= 0) {
+            return;
+        }
+
+        requestedParticles += amount;
+
+        if (!enabled) {
+            world.spawnParticle(particle, location, amount, offsetX, offsetY, offsetZ, speed);
+            sentParticles += amount;
+            return;
+        }
+
+        if (!merge) {
+            dispatch(particle, location, amount, offsetX, offsetY, offsetZ, speed);
+            return;
+        }
+
+        BurstKey key = new BurstKey(location, particle, offsetX, offsetY, offsetZ, speed);
+        Burst burst = pending.get(key);
+        if (burst == null) {
+            burst = new Burst(location.clone());
+            pending.put(key, burst);
+        } else {
+            mergedBursts++;
+        }
+        burst.amount += amount;
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            plugin.getTickDriver().schedule(1L, this::flush);
+        }
+    }
+
+    /**
+     * Envía las ráfagas acumuladas durante el tick anterior
+     */
+    private void flush() {
+        flushScheduled = false;
+        for (Map.Entry<BurstKey, Burst> entry : pending.entrySet()) {
+            BurstKey key = entry.getKey();
+            Burst burst = entry.getValue();
+            dispatch(key.particle, burst.location, burst.amount, key.offsetX, key.offsetY, key.offsetZ, key.speed);
+        }
+        pending.clear();
+    }
+
+    private void dispatch(Particle particle, Location location, int amount,
+                          double offsetX, double offsetY, double offsetZ, double speed) {
+        World world = location.getWorld();
+        List<Player> viewers = new ArrayList<>();
+        boolean anyReduced = false;
+
+        for (Player player : world.getPlayers()) {
+            if (player.getLocation().distanceSquared(location) <= viewDistanceSquared) {
+                viewers.add(player);
+                anyReduced |= reducedViewers.contains(player.getUniqueId());
+            }
+        }
+
+        if (viewers.isEmpty()) {
+            culledBursts++;
+            return;
+        }
+
+        int count = (int) Math.round(amount * crowdScale(viewers.size()) * loadScale());
+        count = Math.max(1, Math.min(maxAmount, count));
+
+        if (!anyReduced) {
+            // Un único envío a todos los que están en rango
+            world.spawnParticle(particle, location, count, offsetX, offsetY, offsetZ, speed);
+            sentParticles += (long) count * viewers.size();
+            return;
+        }
+
+        int reducedCount = (int) Math.round(count * reducedScale);
+        for (Player viewer : viewers) {
+            int viewerCount = reducedViewers.contains(viewer.getUniqueId()) ? reducedCount : count;
+            if (viewerCount > 0) {
+                viewer.spawnParticle(particle, location, viewerCount, offsetX, offsetY, offsetZ, speed);
+                sentParticles += viewerCount;
+            }
+        }
+    }
+
+    /**
+     * Con más espectadores que el umbral, la cantidad baja en proporción (el total enviado se mantiene)
+     */
+    private double crowdScale(int viewers) {
+        if (viewers <= crowdThreshold) {
+            return 1.0;
+        }
+        return Math.max(minScale, (double) crowdThreshold / viewers);
+    }
+
+    /**
+     * Reducción lineal entre lag-start-mspt y lag-max-mspt, hasta min-scale
+     */
+    private double loadScale() {
+        double tickMillis = plugin.getTickDriver().getAverageTickMillis();
+        if (tickMillis <= lagStartMillis) {
+            return 1.0;
+        }
+        if (tickMillis >= lagMaxMillis) {
+            return minScale;
+        }
+        double progress = (tickMillis - lagStartMillis) / (lagMaxMillis - lagStartMillis);
+        return 1.0 - progress * (1.0 - minScale);
+    }
+
+    // ==========================================
+    // PREFERENCIA DE EFECTOS REDUCIDOS
+    // ==========================================
+
+    public boolean isReducedEffects(Player player) {
+        return reducedViewers.contains(player.getUniqueId());
+    }
+
+    /**
+     * Cambia la preferencia del jugador; se guarda en sus datos y se conserva entre sesiones
+     */
+    public void setReducedEffects(Player player, boolean reduced) {
+        if (reduced) {
+            player.getPersistentDataContainer().set(reducedEffectsKey, PersistentDataType.BYTE, (byte) 1);
+            reducedViewers.add(player.getUniqueId());
+        } else {
+            player.getPersistentDataContainer().remove(reducedEffectsKey);
+            reducedViewers.remove(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Lee la preferencia guardada en los datos del jugador
+     */
+    private void loadPreference(Player player) {
+        if (player.getPersistentDataContainer().has(reducedEffectsKey, PersistentDataType.BYTE)) {
+            reducedViewers.add(player.getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        loadPreference(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        reducedViewers.remove(event.getPlayer().getUniqueId());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("lod_enabled", enabled);
+        stats.put("requested", requestedParticles);
+        stats.put("sent", sentParticles);
+        stats.put("merged_bursts", mergedBursts);
+        stats.put("culled_bursts", culledBursts);
+        stats.put("reduced_viewers", reducedViewers.size());
+        stats.put("average_tick_ms", plugin.getTickDriver().getAverageTickMillis());
+        return stats;
+    }
+}
@@ -0,0 +1,159 @@
+package gc.grivyzom.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tareas de jugadores sobre la rueda de tiempo del TickDriver: acciones retrasadas y pulsos
+ * periódicos de ítems. Cada tarea es una entrada ligera de la rueda en vez de una tarea del
+ * scheduler de Bukkit, así que el número de tareas del servidor no crece con los jugadores.
+ * Cancelar a un jugador es O(1): se marca su grupo y sus entradas se descartan al vencer.
+ * Solo se usa desde el hilo principal
+ */
+public class PlayerTasks {
+
+    /**
+     * Tareas pendientes de un jugador
+     */
+    private static final class Owner {
+        private final Map<Integer, Pulse> pulses = new HashMap<>();
+        private boolean cancelled;
+    }
+
+    /**
+     * Pulso periódico: se reprograma tras cada ejecución mientras la tarea devuelva true
+     */
+    private final class Pulse implements Runnable {
+        private final Owner owner;
+        private final int key;
+        private final long interval;
+        private final BooleanSupplier task;
+        private TimingWheel.Timeout timeout;
+
+        private Pulse(Owner owner, int key, long interval, BooleanSupplier task) {
+            this.owner = owner;
+            this.key = key;
+            this.interval = interval;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (owner.cancelled || owner.pulses.get(key) != this) {
+                return;
+            }
+
+            boolean keep = false;
+            try {
+                keep = task.getAsBoolean();
+            } finally {
+                // La tarea pudo detener su propio pulso o cancelar al jugador; si falla, el pulso se detiene
+                if (owner.pulses.get(key) == this) {
+                    if (keep && !owner.cancelled) {
+                        timeout = tickDriver.schedule(interval, this);
+                    } else {
+                        owner.pulses.remove(key);
+                    }
+                }
+            }
+        }
+
+        private void cancel() {
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+
+    private final TickDriver tickDriver;
+    private final Map<UUID, Owner> owners;
+
+    public PlayerTasks(TickDriver tickDriver) {
+        this.tickDriver = tickDriver;
+        this.owners = new HashMap<>();
+    }
+
+    /**
+     * Programa una tarea única ligada a un jugador; se descarta si el jugador se cancela antes
+     * @param delayTicks Ticks de espera (mínimo 1)
+     */
+    public void schedule(UUID playerId, long delayTicks, Runnable task) {
+        Owner owner = owners.computeIfAbsent(playerId, id -> new Owner());
+        tickDriver.schedule(delayTicks, () -> {
+            if (!owner.cancelled) {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Inicia un pulso periódico si no hay otro con la misma clave para el jugador
+     * @param key Clave del pulso dentro del jugador (p. ej. ítem y trigger)
+     * @param task Se ejecuta cada intervalo; devolver false detiene el pulso
+     * @return true si se inició
+     */
+    public boolean startPulse(UUID playerId, int key, long initialDelay, long interval, BooleanSupplier task) {
+        Owner owner = owners.computeIfAbsent(playerId, id -> new Owner());
+        if (owner.pulses.containsKey(key)) {
+            return false;
+        }
+
+        Pulse pulse = new Pulse(owner, key, Math.max(1L, interval), task);
+        owner.pulses.put(key, pulse);
+        pulse.timeout = tickDriver.schedule(initialDelay, pulse);
+        return true;
+    }
+
+    /**
+     * Detiene un pulso de un jugador
+     */
+    public void stopPulse(UUID playerId, int key) {
+        Owner owner = owners.get(playerId);
+        if (owner != null) {
+            Pulse pulse = owner.pulses.remove(key);
+            if (pulse != null) {
+                pulse.cancel();
+            }
+        }
+    }
+
+    public boolean hasPulse(UUID playerId, int key) {
+        Owner owner = owners.get(playerId);
+        return owner != null && owner.pulses.containsKey(key);
+    }
+
+    /**
+     * Cancela todas las tareas de un jugador (al desconectarse)
+     */
+    public void cancelPlayer(UUID playerId) {
+        Owner owner = owners.remove(playerId);
+        if (owner != null) {
+            owner.cancelled = true;
+        }
+    }
+
+    /**
+     * Cancela las tareas de todos los jugadores
+     */
+    public void cancelAll() {
+        owners.values().forEach(owner -> owner.cancelled = true);
+        owners.clear();
+    }
+
+    /**
+     * Número de pulsos periódicos activos
+     */
+    public int getPulseCount() {
+        int count = 0;
+        for (Owner owner : owners.values()) {
+            count += owner.pulses.size();
+        }
+        return count;
+    }
+
+    public int getTrackedPlayers() {
+        return owners.size();
+    }
+}
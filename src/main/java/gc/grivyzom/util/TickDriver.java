@@ -0,0 +1,83 @@
+package gc.grivyzom.util;
+
+import gc.grivyzom.VarietyMain;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Reloj de ticks del plugin: una única tarea repetitiva que avanza la rueda de tiempo
+ * Los tiempos se miden en ticks del servidor, por lo que un servidor con lag no
+ * acorta los cooldowns respecto a lo que el jugador percibe
+ */
+public class TickDriver {
+
+    private final VarietyMain plugin;
+    private final TimingWheel wheel;
+    private BukkitTask task;
+
+    // Media móvil del intervalo entre ticks (50 ms sin lag), para estimar la carga del servidor
+    private long lastTickNanos;
+    private double averageTickMillis = 50.0;
+
+    public TickDriver(VarietyMain plugin) {
+        this.plugin = plugin;
+        this.wheel = new TimingWheel(plugin.getLogger());
+    }
+
+    /**
+     * Inicia el reloj (una vez, al habilitar el plugin)
+     */
+    public void start() {
+        if (task == null) {
+            task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        if (lastTickNanos != 0L) {
+            double millis = (now - lastTickNanos) / 1_000_000.0;
+            averageTickMillis += (millis - averageTickMillis) * 0.05;
+        }
+        lastTickNanos = now;
+
+        wheel.advance();
+    }
+
+    /**
+     * Detiene el reloj; las tareas pendientes se descartan
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Tick actual del reloj del plugin
+     */
+    public long getCurrentTick() {
+        return wheel.getCurrentTick();
+    }
+
+    /**
+     * Programa una tarea en el hilo principal
+     * @param delayTicks Ticks de espera (mínimo 1)
+     * @param runnable La tarea
+     * @return El handle para cancelarla
+     */
+    public TimingWheel.Timeout schedule(long delayTicks, Runnable runnable) {
+        return wheel.schedule(delayTicks, runnable);
+    }
+
+    /**
+     * Intervalo medio entre ticks en milisegundos; por encima de 50 el servidor va con lag
+     */
+    public double getAverageTickMillis() {
+        return averageTickMillis;
+    }
+
+    public int getPendingTasks() {
+        return wheel.getPending();
+    }
+}
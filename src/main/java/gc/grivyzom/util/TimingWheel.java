@@ -0,0 +1,229 @@
+package gc.grivyzom.util;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rueda de tiempo jerárquica con resolución de un tick
+ * Cuatro niveles de 64 casillas cubren unos 9 días; programar, cancelar y avanzar un tick
+ * cuestan O(1) amortizado, sin recorrer tareas pendientes que aún no vencen.
+ * No es thread-safe: se usa solo desde el hilo principal a través de TickDriver
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    // Alcance máximo de la rueda; las tareas más lejanas se reinsertan al bajar de nivel
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    /**
+     * Tarea programada en la rueda
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+        private boolean cancelled;
+        private boolean expired;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancela la tarea si aún no se ejecutó
+         * @return true si se canceló
+         */
+        public boolean cancel() {
+            if (cancelled || expired) {
+                return false;
+            }
+            cancelled = true;
+            // Sin casilla: ya se extrajo para ejecutarse en este tick y run() la omitirá
+            if (bucket != null) {
+                bucket.remove(this);
+            }
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+
+    /**
+     * Casilla de la rueda: lista doblemente enlazada para quitar tareas en O(1)
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private int size;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+            size++;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+            size--;
+        }
+
+        /**
+         * Vacía la casilla y devuelve la lista de tareas que contenía
+         */
+        private Timeout drain() {
+            Timeout first = head;
+            for (Timeout t = first; t != null; t = t.next) {
+                t.bucket = null;
+            }
+            head = null;
+            size = 0;
+            return first;
+        }
+    }
+
+    private final Bucket[][] wheels;
+    private final Logger logger;
+    private long currentTick;
+
+    public TimingWheel(Logger logger) {
+        this.logger = logger;
+        this.wheels = new Bucket[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheels[level][slot] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * Programa una tarea
+     * @param delayTicks Ticks de espera (mínimo 1)
+     * @param task La tarea a ejecutar
+     * @return El handle para cancelarla
+     */
+    public Timeout schedule(long delayTicks, Runnable task) {
+        Timeout timeout = new Timeout(task, currentTick + Math.max(1L, delayTicks));
+        insert(timeout);
+        return timeout;
+    }
+
+    /**
+     * Avanza un tick: baja de nivel las casillas que empiezan ahora y ejecuta las que vencen
+     */
+    public void advance() {
+        currentTick++;
+
+        // Cascada de los niveles superiores cuyo bloque empieza en este tick
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) == 0) {
+                Bucket bucket = wheels[level][(int) ((currentTick >>> shift) & SLOT_MASK)];
+                Timeout t = bucket.drain();
+                while (t != null) {
+                    Timeout next = t.next;
+                    t.prev = null;
+                    t.next = null;
+                    insert(t);
+                    t = next;
+                }
+            }
+        }
+
+        // Ejecutar las tareas que vencen en este tick
+        Timeout t = wheels[0][(int) (currentTick & SLOT_MASK)].drain();
+        while (t != null) {
+            Timeout next = t.next;
+            t.prev = null;
+            t.next = null;
+
+            if (t.deadline > currentTick) {
+                // No debería ocurrir: reinsertar por seguridad
+                insert(t);
+            } else {
+                run(t);
+            }
+            t = next;
+        }
+    }
+
+    /**
+     * Coloca una tarea en el nivel más bajo que abarca su vencimiento
+     */
+    private void insert(Timeout timeout) {
+        long delta = timeout.deadline - currentTick;
+        if (delta <= 0) {
+            // Vence justo al empezar su bloque: la casilla de este tick se vacía tras la cascada
+            wheels[0][(int) (currentTick & SLOT_MASK)].add(timeout);
+            return;
+        }
+
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if (delta < (1L << (shift + SLOT_BITS))) {
+                wheels[level][(int) ((timeout.deadline >>> shift) & SLOT_MASK)].add(timeout);
+                return;
+            }
+        }
+
+        // Más allá del alcance: aparcar en la casilla más lejana del nivel superior
+        long parked = currentTick + MAX_SPAN - 1;
+        int shift = SLOT_BITS * (LEVELS - 1);
+        wheels[LEVELS - 1][(int) ((parked >>> shift) & SLOT_MASK)].add(timeout);
+    }
+
+    private void run(Timeout timeout) {
+        if (timeout.cancelled) {
+            return;
+        }
+        timeout.expired = true;
+        try {
+            timeout.task.run();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error ejecutando tarea programada", e);
+        }
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Número de tareas pendientes (recorre las 256 casillas; solo para estadísticas)
+     */
+    public int getPending() {
+        int pending = 0;
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                pending += bucket.size;
+            }
+        }
+        return pending;
+    }
+}
@@ -0,0 +1,92 @@
+package gc.grivyzom.mechanics.parser;
+
+import gc.grivyzom.mechanics.actions.ActionContext;
+import gc.grivyzom.mechanics.conditions.CompiledCondition;
+import gc.grivyzom.mechanics.conditions.Condition;
+import gc.grivyzom.mechanics.conditions.ConditionCompiler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compilación de los grupos de condiciones all / any / not y su plegado
+ */
+class MechanicsParserTest {
+
+    private boolean raining;
+    private boolean night;
+    private ConditionCompiler compiler;
+    private List<String> errors;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Predicate<ActionContext>> custom = new HashMap<>();
+        custom.put("raining", context -> raining);
+        custom.put("night", context -> night);
+        compiler = new ConditionCompiler(custom, player -> null, (player, material) -> 0, null);
+        errors = new ArrayList<>();
+    }
+
+    private CompiledCondition compile(Object node) {
+        return MechanicsParser.compileNode(node, compiler, new ArrayList<Condition>(), errors);
+    }
+
+    private boolean test(CompiledCondition condition, boolean raining, boolean night) {
+        this.raining = raining;
+        this.night = night;
+        return condition.test(null);
+    }
+
+    @Test
+    void notGroupPassesOnlyWhenNoneHolds() {
+        CompiledCondition none = compile(Map.of("not", List.of("raining", "night")));
+
+        assertTrue(test(none, false, false));
+        assertFalse(test(none, true, false));
+        assertFalse(test(none, false, true));
+        assertFalse(test(none, true, true));
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    void anyAndAllGroups() {
+        CompiledCondition any = compile(Map.of("any", List.of("raining", "night")));
+        CompiledCondition all = compile(Map.of("all", List.of("raining", "night")));
+
+        assertTrue(test(any, true, false));
+        assertFalse(test(any, false, false));
+        assertFalse(test(all, true, false));
+        assertTrue(test(all, true, true));
+    }
+
+    @Test
+    void constantsFold() {
+        assertSame(CompiledCondition.NEVER,
+                CompiledCondition.all(List.of(CompiledCondition.ALWAYS, CompiledCondition.NEVER)));
+        assertSame(CompiledCondition.ALWAYS,
+                CompiledCondition.any(List.of(CompiledCondition.NEVER, CompiledCondition.ALWAYS)));
+        assertSame(CompiledCondition.NEVER, CompiledCondition.any(List.of(CompiledCondition.NEVER)));
+        assertSame(CompiledCondition.ALWAYS, CompiledCondition.none(List.of()));
+        assertSame(CompiledCondition.NEVER, CompiledCondition.none(List.of(CompiledCondition.ALWAYS)));
+    }
+
+    @Test
+    void invalidChildKeepsNotGroupBlocked() {
+        // Sin la protección, not(NEVER) se convertiría en ALWAYS y el trigger saltaría siempre
+        assertSame(CompiledCondition.NEVER, compile(Map.of("not", "health_above:abc")));
+        assertEquals(1, errors.size());
+
+        assertSame(CompiledCondition.NEVER, compile(Map.of("not", List.of("raining", "health_above:abc"))));
+        assertSame(CompiledCondition.NEVER, compile(Map.of("not", Map.of("not", "health_above:abc"))));
+    }
+}
@@ -0,0 +1,203 @@
+package gc.grivyzom.storage;
+
+import gc.grivyzom.util.Cooldowns;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cola de escritura y carga en el pre-login, sobre un almacenamiento SQLite real
+ */
+class CooldownPersistenceTest {
+
+    private static final long LOAD_TIMEOUT = 200L;
+
+    @TempDir
+    Path folder;
+
+    private GatedStore store;
+    private CooldownPersistence persistence;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        store = new GatedStore(new JdbcCooldownStore(JdbcCooldownStore.Dialect.SQLITE,
+                "jdbc:sqlite:" + folder.resolve("cooldowns.db"), null, null, "test_"));
+        persistence = new CooldownPersistence(new Cooldowns(null), Logger.getLogger("CooldownPersistenceTest"));
+
+        // Sin escrituras periódicas: las pruebas llaman a flush() cuando quieren
+        persistence.open(store, TimeUnit.HOURS.toMillis(1), LOAD_TIMEOUT, null, 0L);
+        assertTrue(store.ready.await(5, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.releaseLoad.countDown();
+        store.releaseWrite.countDown();
+        persistence.shutdown();
+    }
+
+    @Test
+    void flushKeepsChangeReplacedDuringWrite() throws Exception {
+        UUID playerId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        persistence.enqueue(new StoredCooldown(playerId, "sword", "RIGHT_CLICK", now + 60_000L));
+
+        store.gateWrites = true;
+        Thread writer = new Thread(persistence::flush);
+        writer.start();
+        assertTrue(store.writeStarted.await(5, TimeUnit.SECONDS));
+
+        // El mismo cooldown cambia mientras el lote anterior se está escribiendo
+        persistence.enqueue(new StoredCooldown(playerId, "sword", "RIGHT_CLICK", now + 120_000L));
+        store.gateWrites = false;
+        store.releaseWrite.countDown();
+        writer.join(5000L);
+
+        assertEquals(1, persistence.getStats().get("pending_writes"));
+
+        persistence.flush();
+        assertEquals(0, persistence.getStats().get("pending_writes"));
+
+        List<StoredCooldown> stored = store.delegate.load(playerId, now);
+        assertEquals(1, stored.size());
+        assertEquals(now + 120_000L, stored.get(0).getExpiresAt());
+    }
+
+    @Test
+    void preLoginMergesStoredAndPendingCooldowns() throws Exception {
+        UUID playerId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        store.delegate.writeBatch(List.of(
+                new StoredCooldown(playerId, "sword", "RIGHT_CLICK", now + 60_000L),
+                new StoredCooldown(playerId, "bow", "SHOOT_BOW", now + 60_000L)));
+
+        // Aún sin escribir: una eliminación y un cooldown nuevo
+        persistence.enqueue(new StoredCooldown(playerId, "bow", "SHOOT_BOW", 0L));
+        persistence.enqueue(new StoredCooldown(playerId, "wand", "LEFT_CLICK", now + 30_000L));
+
+        persistence.onPreLogin(new AsyncPlayerPreLoginEvent("Steve", InetAddress.getLoopbackAddress(), playerId));
+
+        List<StoredCooldown> loaded = persistence.takePreloaded(playerId);
+        assertNotNull(loaded);
+        Set<String> keys = new HashSet<>();
+        loaded.forEach(cooldown -> keys.add(cooldown.getKey()));
+        assertEquals(Set.of("sword:RIGHT_CLICK", "wand:LEFT_CLICK"), keys);
+    }
+
+    @Test
+    void preLoginGivesUpAfterTimeout() {
+        UUID playerId = UUID.randomUUID();
+        store.gateLoads = true;
+
+        long start = System.nanoTime();
+        persistence.onPreLogin(new AsyncPlayerPreLoginEvent("Steve", InetAddress.getLoopbackAddress(), playerId));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsed >= LOAD_TIMEOUT, "esperó " + elapsed + " ms");
+        assertTrue(elapsed < LOAD_TIMEOUT + 2000L, "esperó " + elapsed + " ms");
+        assertNull(persistence.takePreloaded(playerId));
+    }
+
+    /**
+     * Almacenamiento que puede detener escrituras y cargas hasta que la prueba las libere
+     */
+    private static final class GatedStore implements CooldownStore {
+        private final JdbcCooldownStore delegate;
+        private final CountDownLatch ready = new CountDownLatch(1);
+        private final CountDownLatch writeStarted = new CountDownLatch(1);
+        private final CountDownLatch releaseWrite = new CountDownLatch(1);
+        private final CountDownLatch releaseLoad = new CountDownLatch(1);
+        private volatile boolean gateWrites;
+        private volatile boolean gateLoads;
+
+        private GatedStore(JdbcCooldownStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void initialize() throws SQLException {
+            delegate.initialize();
+        }
+
+        @Override
+        public List<StoredCooldown> load(UUID playerId, long now) throws SQLException {
+            if (gateLoads) {
+                await(releaseLoad);
+            }
+            return delegate.load(playerId, now);
+        }
+
+        @Override
+        public void writeBatch(Collection<StoredCooldown> changes) throws SQLException {
+            if (gateWrites) {
+                writeStarted.countDown();
+                await(releaseWrite);
+            }
+            delegate.writeBatch(changes);
+        }
+
+        @Override
+        public int purgeExpired(long now) throws SQLException {
+            int purged = delegate.purgeExpired(now);
+            ready.countDown(); // Último paso de la inicialización sin modo compartido
+            return purged;
+        }
+
+        @Override
+        public boolean supportsSharedLog() {
+            return false;
+        }
+
+        @Override
+        public void enableSharedLog(String serverId) throws SQLException {
+            delegate.enableSharedLog(serverId);
+        }
+
+        @Override
+        public List<StoredCooldown> pollSharedChanges(int limit) throws SQLException {
+            return delegate.pollSharedChanges(limit);
+        }
+
+        @Override
+        public int purgeSharedLog(long olderThan) throws SQLException {
+            return delegate.purgeSharedLog(olderThan);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public String getName() {
+            return "GATED_" + delegate.getName();
+        }
+
+        private static void await(CountDownLatch latch) {
+            try {
+                latch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package gc.grivyzom.storage;
+
+import gc.grivyzom.storage.JdbcCooldownStore.Dialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Almacenamiento JDBC, incluido el registro compartido, con cada dialecto: SQLite y
+ * MySQL (sobre H2 en modo de compatibilidad MySQL)
+ */
+class JdbcCooldownStoreTest {
+
+    private static final String PREFIX = "test_";
+
+    @TempDir
+    Path folder;
+
+    private Dialect dialect;
+    private String url;
+    private JdbcCooldownStore store;
+    private JdbcCooldownStore other;
+
+    /**
+     * Crea la base de datos del dialecto en la carpeta temporal y abre el almacenamiento principal
+     */
+    private void setUp(Dialect dialect) throws SQLException {
+        this.dialect = dialect;
+        url = dialect == Dialect.SQLITE
+                ? "jdbc:sqlite:" + folder.resolve("cooldowns.db")
+                : "jdbc:h2:" + folder.resolve("cooldowns") + ";MODE=MySQL";
+        store = openStore();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+        if (other != null) {
+            other.close();
+        }
+    }
+
+    private JdbcCooldownStore openStore() throws SQLException {
+        JdbcCooldownStore opened = new JdbcCooldownStore(dialect, url, null, null, PREFIX);
+        opened.initialize();
+        return opened;
+    }
+
+    @ParameterizedTest
+    @EnumSource(Dialect.class)
+    void writeBatchUpsertsAndDeletes(Dialect dialect) throws SQLException {
+        setUp(dialect);
+        UUID playerId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        store.writeBatch(List.of(new StoredCooldown(playerId, "sword", "RIGHT_CLICK", now + 60_000L)));
+        store.writeBatch(List.of(new StoredCooldown(playerId, "sword", "RIGHT_CLICK", now + 120_000L)));
+
+        List<StoredCooldown> loaded = store.load(playerId, now);
+        assertEquals(1, loaded.size());
+        assertEquals(now + 120_000L, loaded.get(0).getExpiresAt());
+
+        store.writeBatch(List.of(new StoredCooldown(playerId, "sword", "RIGHT_CLICK", 0L)));
+        assertTrue(store.load(playerId, now).isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Dialect.class)
+    void sharedPollReadsOtherServersOnly(Dialect dialect) throws SQLException {
+        setUp(dialect);
+        other = openStore();
+        store.enableSharedLog("a");
+        other.enableSharedLog("b");
+
+        UUID playerId = UUID.randomUUID();
+        long expiresAt = System.currentTimeMillis() + 60_000L;
+        other.writeBatch(List.of(new StoredCooldown(playerId, "sword", "RIGHT_CLICK", expiresAt)));
+
+        List<StoredCooldown> changes = store.pollSharedChanges(100);
+        assertEquals(1, changes.size());
+        assertEquals(playerId, changes.get(0).getPlayerId());
+        assertEquals(expiresAt, changes.get(0).getExpiresAt());
+
+        // Ni sus propios cambios ni los ya leídos
+        assertTrue(other.pollSharedChanges(100).isEmpty());
+        assertTrue(store.pollSharedChanges(100).isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Dialect.class)
+    void sharedPollIgnoresChangesBeforeActivation(Dialect dialect) throws SQLException {
+        setUp(dialect);
+        other = openStore();
+        other.enableSharedLog("b");
+        other.writeBatch(List.of(new StoredCooldown(UUID.randomUUID(), "sword", "RIGHT_CLICK",
+                System.currentTimeMillis() + 60_000L)));
+
+        store.enableSharedLog("a");
+        assertTrue(store.pollSharedChanges(100).isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Dialect.class)
+    void sharedPollReadsVersionCommittedOutOfOrder(Dialect dialect) throws SQLException {
+        setUp(dialect);
+        store.enableSharedLog("a");
+        UUID early = UUID.randomUUID();
+        UUID late = UUID.randomUUID();
+
+        // La versión 11 se reservó antes que la 12, pero su transacción se confirma después
+        insertLogRow(12L, "b", early);
+        List<StoredCooldown> first = store.pollSharedChanges(100);
+        assertEquals(1, first.size());
+        assertEquals(early, first.get(0).getPlayerId());
+
+        insertLogRow(11L, "b", late);
+        List<StoredCooldown> second = store.pollSharedChanges(100);
+        assertEquals(1, second.size());
+        assertEquals(late, second.get(0).getPlayerId());
+
+        assertTrue(store.pollSharedChanges(100).isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Dialect.class)
+    void sharedPollReadsLateVersionAfterLargeBatch(Dialect dialect) throws SQLException {
+        setUp(dialect);
+        store.enableSharedLog("a");
+
+        // Otro servidor confirma un lote grande mientras la versión 1 sigue sin confirmarse
+        for (long version = 2; version <= 301; version++) {
+            insertLogRow(version, "b", UUID.randomUUID());
+        }
+        assertEquals(300, store.pollSharedChanges(500).size());
+
+        UUID late = UUID.randomUUID();
+        insertLogRow(1L, "b", late);
+        List<StoredCooldown> changes = store.pollSharedChanges(500);
+        assertEquals(1, changes.size());
+        assertEquals(late, changes.get(0).getPlayerId());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Dialect.class)
+    void sharedPollLimitSkipsRowsAlreadyRead(Dialect dialect) throws SQLException {
+        setUp(dialect);
+        store.enableSharedLog("a");
+        for (long version = 1; version <= 3; version++) {
+            insertLogRow(version, "b", UUID.randomUUID());
+        }
+
+        assertEquals(2, store.pollSharedChanges(2).size());
+        // Las filas releídas de la ventana no consumen el límite
+        assertEquals(1, store.pollSharedChanges(2).size());
+        assertTrue(store.pollSharedChanges(2).isEmpty());
+    }
+
+    /**
+     * Escribe una fila del registro con una versión concreta, como lo haría otro servidor
+     */
+    private void insertLogRow(long version, String serverId, UUID playerId) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO " + PREFIX + "cooldown_log"
+                     + " (version, server_id, player_uuid, item_id, trigger_type, expires_at, written_at)"
+                     + " VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            long now = System.currentTimeMillis();
+            statement.setLong(1, version);
+            statement.setString(2, serverId);
+            statement.setString(3, playerId.toString());
+            statement.setString(4, "sword");
+            statement.setString(5, "RIGHT_CLICK");
+            statement.setLong(6, now + 60_000L);
+            statement.setLong(7, now);
+            statement.executeUpdate();
+        }
+    }
+}